@@ -0,0 +1,19 @@
+package com.recargaypay.wallet.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Per thread count of the operations that threw, reported by JMH as the {@code failures} secondary result of the
+ * benchmarks taking it, so it is written to {@code jmh-result.json} next to their score.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class FailureCounters {
+
+    public long failures;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        failures = 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.recargaypay.wallet.benchmark;
+
+import com.recargaypay.wallet.model.entity.Transaction;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.repository.TransactionRepository;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import com.recargaypay.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historical balance at the end of a single wallet ledger, with and without a recent checkpoint.
+ * {@code entityScan} is the former implementation, loading every transaction entity and summing in Java,
+ * kept as the baseline of the database-side {@code SUM}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HistoricalBalanceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int ledgerSize;
+
+    @Param({"false", "true"})
+    public boolean checkpointed;
+
+    private WalletBenchmarkContext context;
+    private WalletService walletService;
+    private TransactionRepository transactionRepository;
+    private TransactionTemplate transactionTemplate;
+    private UUID walletId;
+    private LocalDateTime timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = WalletBenchmarkContext.start("historical");
+        walletService = context.bean(WalletService.class);
+        transactionRepository = context.bean(TransactionRepository.class);
+        transactionTemplate = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        walletId = context.createWallets(1, BigDecimal.ZERO).getFirst();
+
+        LocalDateTime end = LocalDateTime.now().withNano(0).minusMinutes(1);
+        context.createLedger(walletId, ledgerSize, end);
+        timestamp = end.plusSeconds(1);
+        if (checkpointed) {
+            // Leaves the last 10 transactions after the checkpoint
+            context.bean(BalanceCheckpointService.class).checkpoint(walletId, end.minusSeconds(9));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BigDecimal getHistoricalBalance() {
+        return walletService.getHistoricalBalance(walletId, timestamp);
+    }
+
+    @Benchmark
+    public BigDecimal entityScan() {
+        return transactionTemplate.execute(status -> transactionRepository.findByWalletIdAndTimestampBefore(walletId, timestamp)
+                .stream()
+                .map(Transaction::getAmount)
+                .reduce(Money.ZERO, Money::plus)
+                .toBigDecimal());
+    }
+}
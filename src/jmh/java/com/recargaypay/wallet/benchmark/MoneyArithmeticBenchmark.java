@@ -0,0 +1,69 @@
+package com.recargaypay.wallet.benchmark;
+
+import com.recargaypay.wallet.model.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic of a sharded transfer (sum of the shards, funds check, debit and credit) with {@link BigDecimal}
+ * and with {@link Money}. Run with {@code -prof gc} to compare the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final int SHARDS = 8;
+
+    private final BigDecimal[] decimalShards = new BigDecimal[SHARDS];
+    private final Money[] moneyShards = new Money[SHARDS];
+    private BigDecimal decimalBalance;
+    private BigDecimal decimalAmount;
+    private Money moneyBalance;
+    private Money moneyAmount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            decimalShards[shard] = new BigDecimal("1250.35");
+            moneyShards[shard] = Money.of(decimalShards[shard]);
+        }
+        decimalBalance = new BigDecimal("15000.75");
+        decimalAmount = new BigDecimal("10.50");
+        moneyBalance = Money.of(decimalBalance);
+        moneyAmount = Money.of(decimalAmount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = decimalBalance;
+        for (BigDecimal shard : decimalShards) {
+            total = total.add(shard);
+        }
+        if (total.compareTo(decimalAmount) < 0) {
+            throw new IllegalStateException();
+        }
+        BigDecimal remaining = decimalAmount.subtract(decimalBalance.min(decimalAmount));
+        BigDecimal debited = decimalBalance.subtract(decimalAmount.subtract(remaining));
+        return total.subtract(decimalAmount).add(debited.negate()).add(decimalAmount);
+    }
+
+    @Benchmark
+    public long money() {
+        Money total = moneyBalance;
+        for (Money shard : moneyShards) {
+            total = total.plus(shard);
+        }
+        if (total.isLessThan(moneyAmount)) {
+            throw new IllegalStateException();
+        }
+        Money remaining = moneyAmount.minus(moneyBalance.min(moneyAmount));
+        Money debited = moneyBalance.minus(moneyAmount.minus(remaining));
+        return total.minus(moneyAmount).plus(debited.negate()).plus(moneyAmount).minorUnits();
+    }
+}
@@ -0,0 +1,100 @@
+package com.recargaypay.wallet.benchmark;
+
+import com.recargaypay.wallet.WalletApplication;
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Wallet application running without web server on its own H2 database, with helpers to seed wallets and ledgers through plain JDBC.
+ */
+public final class WalletBenchmarkContext implements AutoCloseable {
+
+    private static final UUID BENCHMARK_USER_ID = UUID.fromString("1a4f7b78-e774-4e98-97d2-734dd06b2c58");
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    private WalletBenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * @param database   name of the in-memory H2 database
+     * @param properties extra application properties, as key=value
+     * @return the started context
+     */
+    public static WalletBenchmarkContext start(String database, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "--wallet.checkpoint.enabled=false"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new WalletBenchmarkContext(SpringApplication.run(WalletApplication.class, args.toArray(String[]::new)));
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * @param count   number of wallets
+     * @param balance initial balance of every wallet
+     * @return IDs of the created wallets
+     */
+    public List<UUID> createWallets(int count, BigDecimal balance) {
+        List<UUID> walletIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            walletIds.add(UUID.randomUUID());
+        }
+        for (int from = 0; from < count; from += INSERT_BATCH_SIZE) {
+            List<Object[]> rows = walletIds.subList(from, Math.min(count, from + INSERT_BATCH_SIZE)).stream()
+                    .map(walletId -> new Object[]{walletId, balance, BENCHMARK_USER_ID})
+                    .toList();
+            jdbcTemplate.batchUpdate("INSERT INTO WALLET (id, balance, user_uid, version, updated_at) VALUES (?, ?, ?, 0, CURRENT_TIMESTAMP)", rows);
+        }
+        // Wallets inserted behind the service are only known to the existence filter once it reloads
+        context.getBean(WalletExistenceFilter.class).refresh();
+        return walletIds;
+    }
+
+    /**
+     * Inserts a ledger of one transaction per second ending at {@code end}.
+     *
+     * @param walletId UUID
+     * @param size     number of transactions
+     * @param end      timestamp of the last transaction
+     */
+    public void createLedger(UUID walletId, int size, LocalDateTime end) {
+        for (int from = 0; from < size; from += INSERT_BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+            for (int i = from; i < Math.min(size, from + INSERT_BATCH_SIZE); i++) {
+                boolean deposit = i % 3 != 2;
+                rows.add(new Object[]{UUID.randomUUID(), walletId, deposit ? BigDecimal.TEN : BigDecimal.TEN.negate(),
+                        Timestamp.valueOf(end.minusSeconds(size - 1 - i)),
+                        (deposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL).name()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO TRANSACTION_RPAY (id, wallet_id, amount, timestamp, type) VALUES (?, ?, ?, ?, ?)", rows);
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.recargaypay.wallet.benchmark;
+
+import com.recargaypay.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every thread hits the same wallet, the worst case for row locks and {@code @Version} conflicts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class WalletContentionBenchmark {
+
+    @Param({"PESSIMISTIC", "OPTIMISTIC"})
+    public String concurrencyMode;
+
+    private WalletBenchmarkContext context;
+    private WalletService walletService;
+    private UUID walletId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = WalletBenchmarkContext.start("contention", "wallet.concurrency.mode=" + concurrencyMode);
+        walletService = context.bean(WalletService.class);
+        walletId = context.createWallets(1, BigDecimal.valueOf(10_000_000)).getFirst();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deposit(Blackhole blackhole, FailureCounters failureCounters) {
+        try {
+            blackhole.consume(walletService.deposit(walletId, BigDecimal.ONE));
+        } catch (RuntimeException e) {
+            failureCounters.failures++;
+        }
+    }
+
+    @Benchmark
+    public void withdraw(Blackhole blackhole, FailureCounters failureCounters) {
+        try {
+            blackhole.consume(walletService.withdraw(walletId, BigDecimal.ONE));
+        } catch (RuntimeException e) {
+            failureCounters.failures++;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal getBalance() {
+        return walletService.getBalance(walletId);
+    }
+}
@@ -0,0 +1,57 @@
+package com.recargaypay.wallet.benchmark;
+
+import com.recargaypay.wallet.service.WalletProvisioningService;
+import com.recargaypay.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wallets created per millisecond, one {@code createWallet} at a time versus the JDBC batches of bulk provisioning.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalletProvisioningBenchmark {
+
+    private static final UUID USER_ID = UUID.fromString("1a4f7b78-e774-4e98-97d2-734dd06b2c58");
+    private static final int WALLETS = 1_000;
+    private static final List<UUID> USER_IDS = Collections.nCopies(WALLETS, USER_ID);
+
+    private WalletBenchmarkContext context;
+    private WalletService walletService;
+    private WalletProvisioningService walletProvisioningService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = WalletBenchmarkContext.start("provisioning");
+        walletService = context.bean(WalletService.class);
+        walletProvisioningService = context.bean(WalletProvisioningService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WALLETS)
+    public void createWallet(Blackhole blackhole) {
+        for (int i = 0; i < WALLETS; i++) {
+            blackhole.consume(walletService.createWallet(USER_ID));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WALLETS)
+    public void provision(Blackhole blackhole) {
+        blackhole.consume(walletProvisioningService.provision(USER_IDS, blackhole::consume));
+    }
+}
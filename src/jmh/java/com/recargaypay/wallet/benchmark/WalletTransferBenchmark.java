@@ -0,0 +1,57 @@
+package com.recargaypay.wallet.benchmark;
+
+import com.recargaypay.wallet.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between uniformly random pairs out of 10k wallets, so contention is rare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class WalletTransferBenchmark {
+
+    private static final int WALLETS = 10_000;
+
+    @Param({"PESSIMISTIC", "OPTIMISTIC"})
+    public String concurrencyMode;
+
+    private WalletBenchmarkContext context;
+    private WalletService walletService;
+    private List<UUID> walletIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = WalletBenchmarkContext.start("transfers", "wallet.concurrency.mode=" + concurrencyMode);
+        walletService = context.bean(WalletService.class);
+        walletIds = context.createWallets(WALLETS, BigDecimal.valueOf(100_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void transfer(Blackhole blackhole, FailureCounters failureCounters) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(WALLETS);
+        int destination = (source + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+        try {
+            blackhole.consume(walletService.transfer(walletIds.get(source), walletIds.get(destination), BigDecimal.ONE));
+        } catch (RuntimeException e) {
+            failureCounters.failures++;
+        }
+    }
+}
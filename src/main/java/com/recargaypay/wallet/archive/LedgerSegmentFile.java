@@ -0,0 +1,271 @@
+package com.recargaypay.wallet.archive;
+
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import com.recargaypay.wallet.model.money.Money;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only file holding the transactions of a closed ledger period:
+ * <pre>
+ * header   magic, format version, period start and end
+ * records  GZIP stream of (transaction id, wallet id, timestamp, type, amount in cents), in timestamp order
+ * footer   summary of every wallet (wallet id, sum in cents, transaction count) and the record count
+ * trailer  footer offset, magic
+ * </pre>
+ * The footer is not compressed, so the wallet summaries are read from the end of the file without inflating the records.
+ */
+public final class LedgerSegmentFile {
+
+    static final int MAGIC = 0x574C5347;
+    static final short FORMAT_VERSION = 1;
+
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private LedgerSegmentFile() {
+    }
+
+    /**
+     * @param sumMinorUnits    sum of the wallet transactions in cents
+     * @param transactionCount number of wallet transactions
+     */
+    public record WalletSummary(long sumMinorUnits, long transactionCount) {
+    }
+
+    /**
+     * @param summaries   summary of every wallet with transactions in the period
+     * @param recordCount number of transactions in the segment
+     */
+    public record Footer(Map<UUID, WalletSummary> summaries, long recordCount) {
+    }
+
+    /**
+     * Writes the segment to a temporary file, syncs it and renames it to {@code file},
+     * so a segment file is either complete or missing.
+     *
+     * @param file         segment file, replaced if it exists
+     * @param periodStart  inclusive start of the period
+     * @param periodEnd    exclusive end of the period
+     * @param transactions transactions of the period, in timestamp order
+     * @return footer written to the segment
+     */
+    public static Footer write(Path file, LocalDateTime periodStart, LocalDateTime periodEnd,
+                               Iterator<TransactionResponse> transactions) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<UUID, long[]> totals = new TreeMap<>();
+        long recordCount = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new UnclosableOutputStream(Channels.newOutputStream(channel));
+
+            try (DataOutputStream header = new DataOutputStream(new BufferedOutputStream(out))) {
+                header.writeInt(MAGIC);
+                header.writeShort(FORMAT_VERSION);
+                header.writeLong(toEpochSecond(periodStart));
+                header.writeLong(toEpochSecond(periodEnd));
+            }
+
+            try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE))) {
+                while (transactions.hasNext()) {
+                    TransactionResponse transaction = transactions.next();
+                    long amount = Money.of(transaction.getAmount()).minorUnits();
+                    writeUuid(records, transaction.getId());
+                    writeUuid(records, transaction.getWalletId());
+                    records.writeLong(toEpochSecond(transaction.getTimestamp()));
+                    records.writeInt(transaction.getTimestamp().getNano());
+                    records.writeUTF(transaction.getType().name());
+                    records.writeLong(amount);
+
+                    long[] total = totals.computeIfAbsent(transaction.getWalletId(), walletId -> new long[2]);
+                    total[0] = Math.addExact(total[0], amount);
+                    total[1]++;
+                    recordCount++;
+                }
+            }
+
+            long footerOffset = channel.position();
+            try (DataOutputStream footer = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE))) {
+                footer.writeInt(totals.size());
+                for (Map.Entry<UUID, long[]> total : totals.entrySet()) {
+                    writeUuid(footer, total.getKey());
+                    footer.writeLong(total.getValue()[0]);
+                    footer.writeLong(total.getValue()[1]);
+                }
+                footer.writeLong(recordCount);
+                footer.writeLong(footerOffset);
+                footer.writeInt(MAGIC);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Map<UUID, WalletSummary> summaries = new HashMap<>();
+        totals.forEach((walletId, total) -> summaries.put(walletId, new WalletSummary(total[0], total[1])));
+        return new Footer(summaries, recordCount);
+    }
+
+    /**
+     * Reads the wallet summaries from the end of the segment, the records are not inflated.
+     */
+    public static Footer readFooter(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            long trailerOffset = channel.size() - TRAILER_SIZE;
+            while (trailer.hasRemaining()) {
+                if (trailerOffset < 0 || channel.read(trailer, trailerOffset + trailer.position()) < 0) {
+                    throw new IOException("Truncated ledger segment " + file);
+                }
+            }
+            trailer.flip();
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Not a ledger segment " + file);
+            }
+
+            DataInputStream footer = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(footerOffset)), BUFFER_SIZE));
+            int walletCount = footer.readInt();
+            Map<UUID, WalletSummary> summaries = HashMap.newHashMap(walletCount);
+            for (int index = 0; index < walletCount; index++) {
+                summaries.put(readUuid(footer), new WalletSummary(footer.readLong(), footer.readLong()));
+            }
+            return new Footer(summaries, footer.readLong());
+        }
+    }
+
+    /**
+     * Inflates the records up to the timestamp, the only way to resolve a balance in the middle of the period.
+     *
+     * @param file     segment file
+     * @param walletId UUID
+     * @param before   exclusive upper bound of the transaction timestamp
+     * @return sum and count of the wallet transactions of the segment before the timestamp
+     */
+    public static WalletSummary scan(Path file, UUID walletId, LocalDateTime before) throws IOException {
+        long recordCount = readFooter(file).recordCount();
+        long beforeSecond = toEpochSecond(before);
+        long sum = 0;
+        long count = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            DataInputStream records = openRecords(file, in);
+            for (long index = 0; index < recordCount; index++) {
+                readUuid(records);
+                UUID recordWalletId = readUuid(records);
+                long second = records.readLong();
+                int nano = records.readInt();
+                records.readUTF();
+                long amount = records.readLong();
+                if (!isBefore(second, nano, beforeSecond, before.getNano())) {
+                    break;
+                }
+                if (recordWalletId.equals(walletId)) {
+                    sum = Math.addExact(sum, amount);
+                    count++;
+                }
+            }
+        }
+        return new WalletSummary(sum, count);
+    }
+
+    /**
+     * Inflates the records up to the end of the range and hands over the ones of the wallet inside it.
+     *
+     * @param file     segment file
+     * @param walletId UUID
+     * @param from     inclusive lower bound of the transaction timestamp
+     * @param to       exclusive upper bound of the transaction timestamp
+     * @param consumer receives the wallet transactions of the range, in timestamp order
+     */
+    public static void read(Path file, UUID walletId, LocalDateTime from, LocalDateTime to,
+                            Consumer<TransactionResponse> consumer) throws IOException {
+        long recordCount = readFooter(file).recordCount();
+        long fromSecond = toEpochSecond(from);
+        long toSecond = toEpochSecond(to);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            DataInputStream records = openRecords(file, in);
+            for (long index = 0; index < recordCount; index++) {
+                UUID id = readUuid(records);
+                UUID recordWalletId = readUuid(records);
+                long second = records.readLong();
+                int nano = records.readInt();
+                String type = records.readUTF();
+                long amount = records.readLong();
+                if (!isBefore(second, nano, toSecond, to.getNano())) {
+                    break;
+                }
+                if (recordWalletId.equals(walletId) && !isBefore(second, nano, fromSecond, from.getNano())) {
+                    consumer.accept(new TransactionResponse(id, recordWalletId, TransactionType.valueOf(type),
+                            Money.ofMinor(amount).toBigDecimal(), LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the header and returns the inflated records that follow it.
+     */
+    private static DataInputStream openRecords(Path file, InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC || header.readShort() != FORMAT_VERSION) {
+            throw new IOException("Not a ledger segment " + file);
+        }
+        header.readLong();
+        header.readLong();
+        return new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+    }
+
+    private static boolean isBefore(long second, int nano, long boundSecond, int boundNano) {
+        return second < boundSecond || (second == boundSecond && nano < boundNano);
+    }
+
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    /**
+     * Lets every section close its own stream, flushing and ending the compressor, while the channel stays open.
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        private UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
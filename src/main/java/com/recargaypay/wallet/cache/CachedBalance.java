@@ -0,0 +1,9 @@
+package com.recargaypay.wallet.cache;
+
+import com.recargaypay.wallet.model.money.Money;
+
+/**
+ * Committed balance of a wallet along with the {@code @Version} it was read or written with.
+ */
+public record CachedBalance(Money balance, long version) {
+}
@@ -0,0 +1,60 @@
+package com.recargaypay.wallet.cache;
+
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.util.TransactionCallbacks;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of the wallets split into shards, so deposits can go straight to a shard without locking the wallet row.
+ * It only picks which row a credit locks: balances and funds checks use the {@code shard_count} of the wallet row read or
+ * locked. A wallet sharded by another instance since the last refresh is credited on its locked wallet row, which is
+ * correct but contended until then. Wallets are never unsharded, so the view is never ahead of the database.
+ */
+@Component
+public class ShardedWalletRegistry {
+
+    private final WalletRepository walletRepository;
+    private volatile Map<UUID, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    public ShardedWalletRegistry(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    /**
+     * Reloads the sharded wallets, picking up wallets sharded by other instances.
+     */
+    @Scheduled(fixedDelayString = "${wallet.sharding.refresh-interval-ms:60000}")
+    public void refresh() {
+        shardCounts = walletRepository.findByShardCountGreaterThan(0).stream()
+                .collect(Collectors.toConcurrentMap(Wallet::getId, Wallet::getShardCount));
+    }
+
+    /**
+     * @param walletId UUID
+     * @return number of shards of the wallet, 0 if it is not sharded
+     */
+    public int shardCount(UUID walletId) {
+        return shardCounts.getOrDefault(walletId, 0);
+    }
+
+    public boolean isSharded(UUID walletId) {
+        return shardCount(walletId) > 0;
+    }
+
+    /**
+     * Registers the wallet shards once the current transaction commits.
+     *
+     * @param walletId   UUID
+     * @param shardCount number of shards
+     */
+    public void register(UUID walletId, int shardCount) {
+        TransactionCallbacks.afterCommit(() -> shardCounts.put(walletId, shardCount));
+    }
+}
@@ -0,0 +1,105 @@
+package com.recargaypay.wallet.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.recargaypay.wallet.model.dto.CacheStatsResponse;
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.util.TransactionCallbacks;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Write-through cache of wallet balances.
+ * Entries are only replaced by a newer wallet version, so out of order commits never leave a stale balance behind.
+ */
+@Component
+public class WalletBalanceCache {
+
+    public static final String CACHE_NAME = "walletBalance";
+
+    private final Cache<UUID, CachedBalance> cache;
+
+    public WalletBalanceCache(Cache<UUID, CachedBalance> walletBalanceCaffeineCache) {
+        this.cache = walletBalanceCaffeineCache;
+    }
+
+    /**
+     * @param walletId UUID
+     * @return the cached balance, empty on a miss
+     */
+    public Optional<BigDecimal> get(UUID walletId) {
+        return Optional.ofNullable(cache.getIfPresent(walletId)).map(cached -> cached.balance().toBigDecimal());
+    }
+
+    /**
+     * @param walletIds UUIDs
+     * @return the cached balances of the wallets, misses are left out
+     */
+    public Map<UUID, BigDecimal> getAll(Collection<UUID> walletIds) {
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        cache.getAllPresent(walletIds).forEach((walletId, cached) -> balances.put(walletId, cached.balance().toBigDecimal()));
+        return balances;
+    }
+
+    /**
+     * Stores the wallet balance once the current transaction commits, or right away when there is no transaction.
+     *
+     * @param wallet Wallet entity
+     */
+    public void put(Wallet wallet) {
+        TransactionCallbacks.afterCommit(() -> putIfNewer(wallet));
+    }
+
+    /**
+     * Drops the wallet balance once the current transaction commits, or right away when there is no transaction.
+     *
+     * @param walletId UUID
+     */
+    public void evict(UUID walletId) {
+        TransactionCallbacks.afterCommit(() -> cache.invalidate(walletId));
+    }
+
+    /**
+     * Stores a balance read without loading the wallet entity, unless a newer version is already cached.
+     *
+     * @param walletId UUID
+     * @param balance  wallet balance
+     * @param version  wallet version the balance was read at
+     */
+    public void put(UUID walletId, Money balance, long version) {
+        putIfNewer(walletId, new CachedBalance(balance, version));
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setName(CACHE_NAME);
+        response.setSize(cache.estimatedSize());
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setEvictionCount(stats.evictionCount());
+        return response;
+    }
+
+    public Cache<UUID, CachedBalance> nativeCache() {
+        return cache;
+    }
+
+    private void putIfNewer(Wallet wallet) {
+        // The version is read here because Hibernate only increments it when the wallet is flushed
+        long version = wallet.getVersion() == null ? 0 : wallet.getVersion();
+        putIfNewer(wallet.getId(), new CachedBalance(wallet.getBalance(), version));
+    }
+
+    private void putIfNewer(UUID walletId, CachedBalance balance) {
+        cache.asMap().merge(walletId, balance,
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+}
@@ -0,0 +1,194 @@
+package com.recargaypay.wallet.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.datasource.ReplicaRoutingDataSource;
+import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Answers "does this wallet exist" before the wallet is read: a Bloom filter of every wallet ID, loaded on startup and
+ * fed by {@code createWallet} and bulk provisioning, plus a short lived negative cache of the IDs the filter lets
+ * through but the primary does not find. The filter is per instance, so the wallets created by other instances or
+ * written outside this service are added by an incremental reload every {@code wallet.existence.refresh-interval-ms},
+ * from the {@code created_at} of the newest wallet seen minus {@code wallet.existence.reload-overlap}, which covers
+ * inserts committed after a later one. Reads trust a filter miss, writes confirm it with a primary key lookup so a
+ * wallet created elsewhere since the last reload can be moved. Until the first load completes only the negative cache
+ * applies.
+ */
+@Slf4j
+@Component
+public class WalletExistenceFilter {
+
+    public static final String REJECTED_COUNTER = "wallet.existence.rejected";
+    public static final String STALE_COUNTER = "wallet.existence.stale";
+
+    private final WalletRepository walletRepository;
+    private final boolean enabled;
+    private final long expectedWallets;
+    private final Duration reloadOverlap;
+    private final UuidBloomFilter filter;
+    private final Cache<UUID, Boolean> missingWallets;
+    private final AtomicLong loadedWallets = new AtomicLong();
+    private final Counter filterRejected;
+    private final Counter negativeCacheRejected;
+    private final Counter stale;
+    private volatile boolean loaded;
+    private LocalDateTime watermark;
+
+    public WalletExistenceFilter(WalletRepository walletRepository, MeterRegistry meterRegistry,
+                                 @Value("${wallet.existence.enabled:true}") boolean enabled,
+                                 @Value("${wallet.existence.expected-wallets:1000000}") long expectedWallets,
+                                 @Value("${wallet.existence.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${wallet.existence.negative-cache.maximum-size:100000}") long negativeCacheSize,
+                                 @Value("${wallet.existence.negative-cache.ttl:10s}") Duration negativeCacheTtl,
+                                 @Value("${wallet.existence.reload-overlap:10s}") Duration reloadOverlap) {
+        this.walletRepository = walletRepository;
+        this.enabled = enabled;
+        this.expectedWallets = expectedWallets;
+        this.reloadOverlap = reloadOverlap;
+        this.filter = new UuidBloomFilter(expectedWallets, falsePositiveRate);
+        this.missingWallets = Caffeine.newBuilder()
+                .maximumSize(negativeCacheSize)
+                .expireAfterWrite(negativeCacheTtl)
+                .build();
+        this.filterRejected = meterRegistry.counter(REJECTED_COUNTER, "source", "filter");
+        this.negativeCacheRejected = meterRegistry.counter(REJECTED_COUNTER, "source", "negative-cache");
+        this.stale = meterRegistry.counter(STALE_COUNTER);
+    }
+
+    /**
+     * Adds every wallet ID of the database on the first run, then the IDs of the wallets created since the newest one
+     * seen, minus the overlap. IDs are never removed, wallets are not deleted, so reloading into the same filter is
+     * safe while lookups and {@link #add} run.
+     */
+    @Scheduled(fixedDelayString = "${wallet.existence.refresh-interval-ms:1000}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        // Read first, a wallet inserted while the IDs stream is picked up by the next run
+        LocalDateTime latest = walletRepository.findLatestCreatedAt();
+        if (latest == null) {
+            loaded = true;
+            return;
+        }
+        long added;
+        try (Stream<UUID> walletIds = watermark == null
+                ? walletRepository.streamAllIds()
+                : walletRepository.streamIdsCreatedSince(watermark.minus(reloadOverlap))) {
+            // IDs already in the filter, the overlap and the wallets created here, are not counted again
+            added = walletIds.mapToLong(walletId -> {
+                missingWallets.invalidate(walletId);
+                if (filter.mightContain(walletId)) {
+                    return 0;
+                }
+                filter.put(walletId);
+                return 1;
+            }).sum();
+        }
+        long count = loadedWallets.addAndGet(added);
+        if (count > expectedWallets && count - added <= expectedWallets) {
+            log.warn("{} wallets exceed the {} the existence filter is sized for, its false positive rate grows", count, expectedWallets);
+        }
+        watermark = latest;
+        loaded = true;
+    }
+
+    /**
+     * Read path check, a filter miss is trusted.
+     *
+     * @param walletId UUID
+     * @return false if the wallet is in the negative cache or missed by the filter, true if it has to be read
+     */
+    public boolean mightExist(UUID walletId) {
+        if (!enabled) {
+            return true;
+        }
+        if (missingWallets.getIfPresent(walletId) != null) {
+            negativeCacheRejected.increment();
+            return false;
+        }
+        if (!loaded || filter.mightContain(walletId)) {
+            return true;
+        }
+        filterRejected.increment();
+        return false;
+    }
+
+    /**
+     * Write path check, a filter miss is confirmed with a primary key lookup, which adds the wallet to the filter if
+     * it exists and to the negative cache if it does not. Writes run on the primary, so the lookup does too.
+     *
+     * @param walletId UUID
+     * @return false if the wallet is in the negative cache, or missed by the filter and not found by the lookup, true
+     * if it has to be read
+     */
+    public boolean mightExistForWrite(UUID walletId) {
+        if (!enabled) {
+            return true;
+        }
+        if (missingWallets.getIfPresent(walletId) != null) {
+            negativeCacheRejected.increment();
+            return false;
+        }
+        if (!loaded || filter.mightContain(walletId)) {
+            return true;
+        }
+        if (walletRepository.existsById(walletId)) {
+            // Created by another instance or outside this service since the last reload
+            filter.put(walletId);
+            stale.increment();
+            return true;
+        }
+        filterRejected.increment();
+        missingWallets.put(walletId, Boolean.TRUE);
+        return false;
+    }
+
+    /**
+     * Registers a wallet being created. The filter is updated right away, so the wallet is found as soon as its
+     * transaction commits, and any negative cache entry is dropped once it has.
+     */
+    public void add(UUID walletId) {
+        filter.put(walletId);
+        TransactionCallbacks.afterCommit(() -> missingWallets.invalidate(walletId));
+    }
+
+    /**
+     * Registers the wallets of a bulk insert, with a single commit callback for all of them.
+     */
+    public void addAll(Collection<UUID> walletIds) {
+        walletIds.forEach(filter::put);
+        TransactionCallbacks.afterCommit(() -> missingWallets.invalidateAll(walletIds));
+    }
+
+    /**
+     * Records a wallet let through by the filter but not found in the database. A miss of a replica read is not
+     * recorded, the replica may not have applied the insert yet.
+     */
+    public void recordMissing(UUID walletId) {
+        if (enabled && !ReplicaRoutingDataSource.isReplicaRead()) {
+            missingWallets.put(walletId, Boolean.TRUE);
+        }
+    }
+
+    public long loadedWallets() {
+        return loadedWallets.get();
+    }
+}
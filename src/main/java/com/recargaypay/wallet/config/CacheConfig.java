@@ -0,0 +1,37 @@
+package com.recargaypay.wallet.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.cache.CachedBalance;
+import com.recargaypay.wallet.cache.WalletBalanceCache;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public Cache<UUID, CachedBalance> walletBalanceCaffeineCache(@Value("${wallet.cache.balance.maximum-size:100000}") long maximumSize,
+                                                                 @Value("${wallet.cache.balance.ttl:5m}") Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Publishes size, hit, miss and eviction meters of the wallet balance cache.
+     */
+    @Bean
+    public MeterBinder walletBalanceCacheMetrics(Cache<UUID, CachedBalance> walletBalanceCaffeineCache) {
+        return new CaffeineCacheMetrics<>(walletBalanceCaffeineCache, WalletBalanceCache.CACHE_NAME, List.of());
+    }
+}
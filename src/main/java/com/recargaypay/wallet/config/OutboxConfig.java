@@ -0,0 +1,23 @@
+package com.recargaypay.wallet.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.outbox.FileWalletEventSink;
+import com.recargaypay.wallet.outbox.WalletEventSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(WalletEventSink.class)
+    public WalletEventSink fileWalletEventSink(ObjectMapper objectMapper,
+                                               @Value("${wallet.outbox.sink.file:outbox/wallet-events.ndjson}") Path file) throws IOException {
+        return new FileWalletEventSink(objectMapper, file);
+    }
+}
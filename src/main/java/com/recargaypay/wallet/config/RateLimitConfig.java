@@ -0,0 +1,36 @@
+package com.recargaypay.wallet.config;
+
+import com.recargaypay.wallet.ratelimit.LoadShedder;
+import com.recargaypay.wallet.ratelimit.RateLimitInterceptor;
+import com.recargaypay.wallet.ratelimit.RequestRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Limits the movement and bulk provisioning endpoints only, reads stay unlimited.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RequestRateLimiter requestRateLimiter;
+    private final LoadShedder loadShedder;
+    private final String clientHeader;
+
+    public RateLimitConfig(RequestRateLimiter requestRateLimiter, LoadShedder loadShedder,
+                           @Value("${wallet.ratelimit.client-header:}") String clientHeader) {
+        this.requestRateLimiter = requestRateLimiter;
+        this.loadShedder = loadShedder;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(requestRateLimiter, loadShedder, clientHeader))
+                .addPathPatterns("/api/v1/wallet/deposit", "/api/v1/wallet/withdraw", "/api/v1/wallet/transfer", "/api/v1/wallet/batch",
+                        "/api/v1/wallet/bulk");
+    }
+}
@@ -0,0 +1,66 @@
+package com.recargaypay.wallet.config;
+
+import com.recargaypay.wallet.datasource.ReplicaReadAspect;
+import com.recargaypay.wallet.datasource.ReplicaRoutingDataSource;
+import com.recargaypay.wallet.datasource.WalletWriteTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica routing, enabled with {@code wallet.datasource.replica.enabled}. Writes and every read inside a write
+ * transaction use the primary pool, balance and history reads use the replica pools.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               DataSourceProperties properties,
+                                               @Value("${wallet.datasource.replica.urls}") List<String> urls,
+                                               @Value("${wallet.datasource.replica.maximum-pool-size:20}") int maximumPoolSize) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int index = 0; index < urls.size(); index++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(ReplicaRoutingDataSource.REPLICA_PREFIX + index);
+            replica.setJdbcUrl(urls.get(index));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    public WalletWriteTracker walletWriteTracker(@Value("${wallet.datasource.replica.read-your-writes-window:2s}") Duration window,
+                                                 @Value("${wallet.datasource.replica.tracked-wallets:100000}") long trackedWallets) {
+        return new WalletWriteTracker(window, trackedWallets);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect(WalletWriteTracker walletWriteTracker) {
+        return new ReplicaReadAspect(walletWriteTracker);
+    }
+}
@@ -0,0 +1,13 @@
+package com.recargaypay.wallet.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/**
+ * The retry advice runs before the transaction interceptor, so every attempt gets a fresh transaction.
+ * Methods opt in with {@link RetryOnOptimisticLock}.
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
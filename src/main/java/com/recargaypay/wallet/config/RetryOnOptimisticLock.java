@@ -0,0 +1,26 @@
+package com.recargaypay.wallet.config;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries a method failing on a stale {@code @Version} up to {@code wallet.concurrency.max-attempts} times, with
+ * jittered exponential backoff between {@code wallet.concurrency.retry-delay-ms} and
+ * {@code wallet.concurrency.retry-max-delay-ms}. See {@link RetryConfig} for its order with the transaction.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(retryFor = OptimisticLockingFailureException.class,
+        maxAttemptsExpression = "${wallet.concurrency.max-attempts:5}",
+        backoff = @Backoff(delayExpression = "${wallet.concurrency.retry-delay-ms:5}",
+                maxDelayExpression = "${wallet.concurrency.retry-max-delay-ms:100}", multiplier = 2, random = true))
+public @interface RetryOnOptimisticLock {
+}
@@ -0,0 +1,22 @@
+package com.recargaypay.wallet.controller;
+
+import com.recargaypay.wallet.cache.WalletBalanceCache;
+import com.recargaypay.wallet.model.dto.CacheStatsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+public class CacheController {
+
+    @Autowired
+    private WalletBalanceCache walletBalanceCache;
+
+    @GetMapping("/wallet-balance/stats")
+    public ResponseEntity<CacheStatsResponse> getWalletBalanceStats() {
+        return ResponseEntity.ok(walletBalanceCache.stats());
+    }
+}
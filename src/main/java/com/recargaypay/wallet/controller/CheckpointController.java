@@ -0,0 +1,38 @@
+package com.recargaypay.wallet.controller;
+
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/checkpoints")
+public class CheckpointController {
+
+    public static final int MAX_VERIFY_SAMPLE_SIZE = 10_000;
+    public static final String INVALID_SAMPLE_SIZE_FORMAT = "Invalid sample size: %d, it must be between 1 and %d";
+
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
+    /**
+     * Recomputes the ledger of a random sample of wallets and compares it against their latest checkpoint.
+     *
+     * @param sampleSize number of wallets to check
+     * @return wallets whose latest checkpoint does not match the ledger
+     */
+    @PostMapping("/verify")
+    public ResponseEntity<List<UUID>> verify(@RequestParam(defaultValue = "100") int sampleSize) {
+        if (sampleSize < 1 || sampleSize > MAX_VERIFY_SAMPLE_SIZE) {
+            throw new InvalidRequestException(String.format(INVALID_SAMPLE_SIZE_FORMAT, sampleSize, MAX_VERIFY_SAMPLE_SIZE));
+        }
+        return ResponseEntity.ok(balanceCheckpointService.verifyLatestCheckpoints(sampleSize));
+    }
+}
@@ -1,34 +1,138 @@
 package com.recargaypay.wallet.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.exception.InvalidRequestException;
 import com.recargaypay.wallet.model.dto.*;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import com.recargaypay.wallet.provisioning.WalletImportFormat;
+import com.recargaypay.wallet.provisioning.WalletImportReader;
+import com.recargaypay.wallet.ratelimit.RequestRateLimiter;
+import com.recargaypay.wallet.service.DepositCoalescingService;
+import com.recargaypay.wallet.service.IdempotencyService;
+import com.recargaypay.wallet.service.TransactionHistoryService;
+import com.recargaypay.wallet.service.WalletProvisioningService;
 import com.recargaypay.wallet.service.WalletService;
+import com.recargaypay.wallet.stream.BalancePublisher;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/wallet")
 public class WalletController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String MISSING_LIST_FORMAT = "Missing %s list";
+    public static final String NULL_ELEMENT_FORMAT = "Null element in %s list";
+
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private DepositCoalescingService depositCoalescingService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private WalletProvisioningService walletProvisioningService;
+
+    @Autowired
+    private BalancePublisher balancePublisher;
+
+    @Autowired
+    private RequestRateLimiter requestRateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
     @PostMapping
     public ResponseEntity<CreateWalletResponse> createWallet(@RequestBody CreateWalletRequest request) {
         return ResponseEntity.ok(walletService.createWallet(request.getUserUid()));
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<WalletProvisioningResponse> provisionWallets(@RequestBody WalletProvisioningRequest request) {
+        List<UUID> userUids = requireList(request.getUserUids(), "userUids");
+        List<WalletProvisioningResult> results = new ArrayList<>(userUids.size());
+        WalletProvisioningResponse response = new WalletProvisioningResponse();
+        response.setSummary(walletProvisioningService.provision(userUids, results::add));
+        response.setResults(results);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Provisions the users of a CSV or NDJSON body, read while the results of the committed chunks are written,
+     * so neither side of a file of millions of users is held in memory.
+     */
+    @PostMapping(value = "/bulk", consumes = {WalletImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void provisionWalletsFromFile(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body,
+                                         HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        OutputStream outputStream = response.getOutputStream();
+        walletProvisioningService.provision(new WalletImportReader(reader, WalletImportFormat.of(contentType), objectMapper),
+                result -> writeLine(outputStream, result));
+        outputStream.flush();
+    }
+
     @GetMapping("/{walletId}/balance")
     public ResponseEntity<BigDecimal> getBalance(@PathVariable UUID walletId) {
         BigDecimal balance = walletService.getBalance(walletId);
         return ResponseEntity.ok(balance);
     }
 
+    @PostMapping(value = "/balances", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<WalletBalanceResponse>> getBalances(@RequestBody WalletBalancesRequest request) {
+        List<UUID> walletIds = requireList(request.getWalletIds(), "walletIds");
+        List<WalletBalanceResponse> balances = new ArrayList<>(walletIds.size());
+        walletService.streamBalances(walletIds, balances::add);
+        return ResponseEntity.ok(balances);
+    }
+
+    @PostMapping(value = "/balances", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBalances(@RequestBody WalletBalancesRequest request) {
+        // Checked before the response starts streaming, so a missing list still gets its 400
+        List<UUID> walletIds = requireList(request.getWalletIds(), "walletIds");
+        StreamingResponseBody body = outputStream -> walletService.streamBalances(walletIds,
+                balance -> writeLine(outputStream, balance));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping(value = "/{walletId}/balance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBalance(@PathVariable UUID walletId) {
+        // The current balance is read first, so an unknown wallet is answered with a 404 instead of an empty stream
+        BigDecimal balance = walletService.getBalance(walletId);
+        return balancePublisher.subscribe(walletId, balance);
+    }
+
     @GetMapping("/{walletId}/balance/historical")
     public ResponseEntity<BigDecimal> getHistoricalBalance(@PathVariable UUID walletId, @RequestParam String timestamp) {
         LocalDateTime time = LocalDateTime.parse(timestamp);
@@ -36,21 +140,121 @@ public class WalletController {
         return ResponseEntity.ok(balance);
     }
 
+    @GetMapping(value = "/{walletId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TransactionPageResponse> getTransactions(@PathVariable UUID walletId,
+                                                                   @RequestParam(required = false) TransactionType type,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "50") int limit) {
+        TransactionHistoryFilter filter = toHistoryFilter(walletId, type, from, to);
+        return ResponseEntity.ok(transactionHistoryService.getTransactions(filter, cursor, limit));
+    }
+
+    @GetMapping(value = "/{walletId}/transactions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@PathVariable UUID walletId,
+                                                                    @RequestParam(required = false) TransactionType type,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionHistoryFilter filter = toHistoryFilter(walletId, type, from, to);
+        StreamingResponseBody body = outputStream -> transactionHistoryService.streamTransactions(filter,
+                transaction -> writeLine(outputStream, transaction));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @PostMapping("/deposit")
-    public ResponseEntity<WalletTransactionResponse> deposit(@RequestBody WalletTransactionRequest request) {
-        WalletTransactionResponse walletDto = walletService.deposit(request.getToWalletId(), request.getAmount());
+    public ResponseEntity<WalletTransactionResponse> deposit(@RequestBody WalletTransactionRequest request,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        // Keyed deposits are not coalesced, their key is stored in the same transaction as the deposit
+        WalletTransactionResponse walletDto = idempotencyKey == null
+                ? depositCoalescingService.deposit(request.getToWalletId(), request.getAmount())
+                : idempotencyService.execute(idempotencyKey, "deposit", request,
+                () -> walletService.deposit(request.getToWalletId(), request.getAmount()));
         return ResponseEntity.ok(walletDto);
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<WalletTransactionResponse> withdraw(@RequestBody WalletTransactionRequest request) {
-        WalletTransactionResponse walletDto = walletService.withdraw(request.getToWalletId(), request.getAmount());
+    public ResponseEntity<WalletTransactionResponse> withdraw(@RequestBody WalletTransactionRequest request,
+                                                              @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        // Only debited wallets are limited, credits to a hot collection wallet from many clients are legitimate
+        requestRateLimiter.acquireWallet(request.getToWalletId());
+        WalletTransactionResponse walletDto = idempotencyService.execute(idempotencyKey, "withdraw", request,
+                () -> walletService.withdraw(request.getToWalletId(), request.getAmount()));
         return ResponseEntity.ok(walletDto);
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<WalletTransactionResponse> transfer(@RequestBody WalletTransferRequest request) {
-        WalletTransactionResponse walletDto = walletService.transfer(request.getFromWalletId(), request.getToWalletId(), request.getAmount());
+    public ResponseEntity<WalletTransactionResponse> transfer(@RequestBody WalletTransferRequest request,
+                                                              @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        requestRateLimiter.acquireWallet(request.getFromWalletId());
+        WalletTransactionResponse walletDto = idempotencyService.execute(idempotencyKey, "transfer", request,
+                () -> walletService.transfer(request.getFromWalletId(), request.getToWalletId(), request.getAmount()));
+        return ResponseEntity.ok(walletDto);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<WalletBatchResponse> batch(@RequestBody WalletBatchRequest request) {
+        List<WalletBatchMovement> movements = requireNonNullElements(requireList(request.getMovements(), "movements"), "movements");
+        movements.stream()
+                .map(WalletController::debitedWalletId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(requestRateLimiter::acquireWallet);
+        return ResponseEntity.ok(walletService.batch(movements, request.getMode()));
+    }
+
+    @PostMapping("/{walletId}/shards")
+    public ResponseEntity<WalletTransactionResponse> enableSharding(@PathVariable UUID walletId, @RequestParam int count) {
+        WalletTransactionResponse walletDto = walletService.enableSharding(walletId, count);
         return ResponseEntity.ok(walletDto);
     }
+
+    /**
+     * @return the list of the request body, rejected with a 400 when the field is missing or null
+     */
+    private static <T> List<T> requireList(List<T> list, String field) {
+        if (list == null) {
+            throw new InvalidRequestException(String.format(MISSING_LIST_FORMAT, field));
+        }
+        return list;
+    }
+
+    /**
+     * @return the list, rejected with a 400 when one of its elements is null
+     */
+    private static <T> List<T> requireNonNullElements(List<T> list, String field) {
+        if (list.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidRequestException(String.format(NULL_ELEMENT_FORMAT, field));
+        }
+        return list;
+    }
+
+    private static UUID debitedWalletId(WalletBatchMovement movement) {
+        if (movement == null || movement.getType() == null) {
+            return null;
+        }
+        return switch (movement.getType()) {
+            case DEPOSIT -> null;
+            case WITHDRAWAL -> movement.getToWalletId();
+            case TRANSFER -> movement.getFromWalletId();
+        };
+    }
+
+    private static TransactionHistoryFilter toHistoryFilter(UUID walletId, TransactionType type, LocalDateTime from, LocalDateTime to) {
+        TransactionHistoryFilter filter = new TransactionHistoryFilter();
+        filter.setWalletId(walletId);
+        filter.setType(type);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
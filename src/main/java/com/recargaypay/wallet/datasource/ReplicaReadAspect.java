@@ -0,0 +1,114 @@
+package com.recargaypay.wallet.datasource;
+
+import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.WalletBatchMovement;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Sends the balance and history reads to the replicas, unless the wallet was written by this instance within the
+ * read-your-writes window, and records the wallets every successful write touches.
+ * It runs right after the metrics advice and before the retry and transaction advices, so the transaction opened
+ * for the read gets its connection from the pool picked here.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReplicaReadAspect {
+
+    private final WalletWriteTracker writeTracker;
+
+    public ReplicaReadAspect(WalletWriteTracker writeTracker) {
+        this.writeTracker = writeTracker;
+    }
+
+    @Around("execution(* com.recargaypay.wallet.service.WalletService.getBalance(..))"
+            + " || execution(* com.recargaypay.wallet.service.WalletService.streamBalances(..))"
+            + " || execution(* com.recargaypay.wallet.service.WalletService.getHistoricalBalance(..))"
+            + " || execution(* com.recargaypay.wallet.service.TransactionHistoryService.*(..))")
+    public Object routeRead(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (readsRecentWrite(joinPoint.getArgs())) {
+            return joinPoint.proceed();
+        }
+        try {
+            return ReplicaRoutingDataSource.onReplica(() -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (Throwable e) {
+                    throw new ReadFailure(e);
+                }
+            });
+        } catch (ReadFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    @AfterReturning("execution(* com.recargaypay.wallet.service.WalletService.deposit(..))"
+            + " || execution(* com.recargaypay.wallet.service.WalletService.depositAll(..))"
+            + " || execution(* com.recargaypay.wallet.service.WalletService.withdraw(..))"
+            + " || execution(* com.recargaypay.wallet.service.WalletService.transfer(..))"
+            + " || execution(* com.recargaypay.wallet.service.WalletService.enableSharding(..))")
+    public void recordWrite(JoinPoint joinPoint) {
+        for (Object arg : joinPoint.getArgs()) {
+            if (arg instanceof UUID walletId) {
+                writeTracker.recordWrite(walletId);
+            }
+        }
+    }
+
+    @AfterReturning("execution(* com.recargaypay.wallet.service.WalletService.batch(..))")
+    public void recordBatchWrite(JoinPoint joinPoint) {
+        if (joinPoint.getArgs()[0] instanceof Collection<?> movements) {
+            for (Object movement : movements) {
+                if (movement instanceof WalletBatchMovement batchMovement) {
+                    recordIfPresent(batchMovement.getFromWalletId());
+                    recordIfPresent(batchMovement.getToWalletId());
+                }
+            }
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* com.recargaypay.wallet.service.WalletService.createWallet(..))", returning = "response")
+    public void recordCreate(CreateWalletResponse response) {
+        recordIfPresent(response.getWalletId());
+    }
+
+    private void recordIfPresent(UUID walletId) {
+        if (walletId != null) {
+            writeTracker.recordWrite(walletId);
+        }
+    }
+
+    private boolean readsRecentWrite(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof UUID walletId) {
+                return writeTracker.isRecentlyWritten(walletId);
+            }
+            if (arg instanceof TransactionHistoryFilter filter) {
+                return filter.getWalletId() != null && writeTracker.isRecentlyWritten(filter.getWalletId());
+            }
+            if (arg instanceof Collection<?> walletIds) {
+                // A single recently written wallet keeps the whole lookup on the primary
+                return walletIds.stream().anyMatch(walletId -> walletId instanceof UUID id && writeTracker.isRecentlyWritten(id));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Carries a checked exception of the read through {@link ReplicaRoutingDataSource#onReplica}
+     */
+    private static final class ReadFailure extends RuntimeException {
+        private ReadFailure(Throwable cause) {
+            super(cause, false, false);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.recargaypay.wallet.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of the primary pool, or of one of the replica pools, round robin, while the current thread
+ * runs a {@link #onReplica(Supplier) replica read}. The pool is picked when a connection is requested, so a read
+ * only reaches a replica if it is not joining a transaction that already holds a primary connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA_PREFIX = "replica-";
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas) {
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int index = 0; index < replicas.size(); index++) {
+            replicaKeys.add(REPLICA_PREFIX + index);
+            targets.put(REPLICA_PREFIX + index, replicas.get(index));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs the read with the connections it opens taken from the replicas.
+     *
+     * @param read read-only work
+     * @return the read result
+     */
+    public static <T> T onReplica(Supplier<T> read) {
+        boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            REPLICA_READ.set(previous);
+        }
+    }
+
+    /**
+     * @return true while the current thread runs a replica read
+     */
+    public static boolean isReplicaRead() {
+        return REPLICA_READ.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!REPLICA_READ.get() || replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+    }
+
+    /**
+     * Closes the replica pools, the primary pool is a bean of its own.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,38 @@
+package com.recargaypay.wallet.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Wallets written by this instance within the read-your-writes window. Reads of those wallets stay on the primary,
+ * as a replica may not have applied the write yet.
+ */
+public class WalletWriteTracker {
+
+    private final Cache<UUID, Boolean> recentWrites;
+
+    public WalletWriteTracker(Duration window, long maximumSize) {
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * @param walletId wallet whose write just committed
+     */
+    public void recordWrite(UUID walletId) {
+        recentWrites.put(walletId, Boolean.TRUE);
+    }
+
+    /**
+     * @param walletId UUID
+     * @return true if the wallet was written within the window, its reads must go to the primary
+     */
+    public boolean isRecentlyWritten(UUID walletId) {
+        return recentWrites.getIfPresent(walletId) != null;
+    }
+}
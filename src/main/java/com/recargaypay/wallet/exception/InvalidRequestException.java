@@ -0,0 +1,15 @@
+package com.recargaypay.wallet.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A malformed request is the client's mistake, not a failure of the service, so the exception neither logs at error
+ * level nor fills a stack trace.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message, null, false, false);
+    }
+}
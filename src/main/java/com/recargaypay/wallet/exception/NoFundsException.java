@@ -1,13 +1,15 @@
 package com.recargaypay.wallet.exception;
 
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-@Slf4j
+/**
+ * An expected outcome of withdrawals and transfers, thrown on the hot path and under contention, so it neither logs
+ * nor fills a stack trace.
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class NoFundsException extends RuntimeException {
     public NoFundsException(String message) {
-        log.error(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,15 @@
+package com.recargaypay.wallet.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for every request shed under load, without logging or a stack trace for the same reason as
+ * {@link TooManyRequestsException}.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,15 @@
+package com.recargaypay.wallet.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for every request over a rate limit, so it neither logs nor fills a stack trace: a client hammering an
+ * endpoint must not turn every rejection into log and allocation work. Rejections are counted as metrics instead.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,13 +1,15 @@
 package com.recargaypay.wallet.exception;
 
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-@Slf4j
+/**
+ * Unknown wallet IDs are mostly sent by scrapers and buggy clients, so the exception neither logs nor fills a stack
+ * trace: rejecting them must stay cheap. They are counted by the {@code wallet.operation.errors} meter instead.
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class WalletNotFoundException extends RuntimeException {
     public WalletNotFoundException(String message) {
-        log.error(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,97 @@
+package com.recargaypay.wallet.job;
+
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Periodically writes balance checkpoints so historical queries only sum the transactions after the nearest one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "wallet.checkpoint.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceCheckpointJob {
+
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final long minTransactions;
+    private final Duration maxAge;
+    private final Duration settleTime;
+    private final boolean backfillOnStartup;
+    private final int verifySampleSize;
+
+    public BalanceCheckpointJob(BalanceCheckpointService balanceCheckpointService,
+                                @Value("${wallet.checkpoint.min-transactions:100}") long minTransactions,
+                                @Value("${wallet.checkpoint.max-age:24h}") Duration maxAge,
+                                @Value("${wallet.checkpoint.settle-time:60s}") Duration settleTime,
+                                @Value("${wallet.checkpoint.backfill-on-startup:false}") boolean backfillOnStartup,
+                                @Value("${wallet.checkpoint.verify-sample-size:100}") int verifySampleSize) {
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.minTransactions = minTransactions;
+        this.maxAge = maxAge;
+        this.settleTime = settleTime;
+        this.backfillOnStartup = backfillOnStartup;
+        this.verifySampleSize = verifySampleSize;
+    }
+
+    /**
+     * Starts the backfill on a thread of its own once the application is ready, so startup does not wait for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (backfillOnStartup) {
+            Thread.ofVirtual().name("balance-checkpoint-backfill").start(this::backfill);
+        }
+    }
+
+    /**
+     * Backfills a checkpoint for every wallet with transactions not covered yet and validates a sample of the result.
+     */
+    void backfill() {
+        try {
+            LocalDateTime cutoff = cutoff();
+            int created = checkpointWallets(cutoff, 1, cutoff);
+            List<UUID> mismatches = balanceCheckpointService.verifyLatestCheckpoints(verifySampleSize);
+            log.info("Balance checkpoint backfill created {} checkpoints, {} mismatches in a sample of {}", created, mismatches.size(), verifySampleSize);
+        } catch (RuntimeException e) {
+            log.error("Balance checkpoint backfill failed", e);
+        }
+    }
+
+    /**
+     * Checkpoints wallets every N transactions, or once their oldest pending transaction exceeds the max age.
+     */
+    @Scheduled(initialDelayString = "${wallet.checkpoint.interval-ms:3600000}", fixedDelayString = "${wallet.checkpoint.interval-ms:3600000}")
+    public void checkpoint() {
+        LocalDateTime cutoff = cutoff();
+        int created = checkpointWallets(cutoff, minTransactions, cutoff.minus(maxAge));
+        log.debug("Balance checkpoint run created {} checkpoints", created);
+    }
+
+    private int checkpointWallets(LocalDateTime cutoff, long minTransactions, LocalDateTime staleBefore) {
+        int created = 0;
+        for (UUID walletId : balanceCheckpointService.findWalletsPendingCheckpoint(cutoff, minTransactions, staleBefore)) {
+            if (balanceCheckpointService.checkpoint(walletId, cutoff).isPresent()) {
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Transactions still in flight may carry a timestamp slightly in the past when they commit,
+     * so checkpoints never cover the most recent settle window.
+     */
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(settleTime);
+    }
+}
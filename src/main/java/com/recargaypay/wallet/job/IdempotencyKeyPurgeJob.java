@@ -0,0 +1,26 @@
+package com.recargaypay.wallet.job;
+
+import com.recargaypay.wallet.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes the idempotency keys once they expire.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyPurgeJob {
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyKeyPurgeJob(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.idempotency.purge-interval-ms:600000}")
+    public void purge() {
+        int purged = idempotencyService.purgeExpired();
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+}
@@ -0,0 +1,43 @@
+package com.recargaypay.wallet.job;
+
+import com.recargaypay.wallet.service.LedgerArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Moves the closed months of the ledger to segment files, oldest first, so {@code TRANSACTION_RPAY} only keeps
+ * the current month and the {@code wallet.archive.retained-months} before it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "wallet.archive.enabled", havingValue = "true")
+public class LedgerArchiveJob {
+
+    private final LedgerArchiveService ledgerArchiveService;
+    private final int retainedMonths;
+
+    public LedgerArchiveJob(LedgerArchiveService ledgerArchiveService,
+                            @Value("${wallet.archive.retained-months:3}") int retainedMonths) {
+        this.ledgerArchiveService = ledgerArchiveService;
+        // The current month is still being written
+        this.retainedMonths = Math.max(retainedMonths, 1);
+    }
+
+    @Scheduled(initialDelayString = "${wallet.archive.interval-ms:3600000}", fixedDelayString = "${wallet.archive.interval-ms:3600000}")
+    public void archive() {
+        YearMonth firstRetained = YearMonth.now().minusMonths(retainedMonths);
+        Optional<YearMonth> oldest;
+        while ((oldest = ledgerArchiveService.oldestLiveMonth()).isPresent() && oldest.get().isBefore(firstRetained)) {
+            if (ledgerArchiveService.archive(oldest.get()).isEmpty()) {
+                log.warn("Transactions of {} are left in the ledger, the month was already archived", oldest.get());
+                return;
+            }
+        }
+    }
+}
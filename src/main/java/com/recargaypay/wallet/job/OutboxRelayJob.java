@@ -0,0 +1,26 @@
+package com.recargaypay.wallet.job;
+
+import com.recargaypay.wallet.service.OutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the wallet event outbox into the configured sink.
+ */
+@Slf4j
+@Component
+public class OutboxRelayJob {
+
+    private final OutboxService outboxService;
+
+    public OutboxRelayJob(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.outbox.poll-interval-ms:200}")
+    public void relay() {
+        int relayed = outboxService.relay();
+        log.debug("Relayed {} wallet events", relayed);
+    }
+}
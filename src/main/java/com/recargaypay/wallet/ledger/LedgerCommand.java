@@ -0,0 +1,37 @@
+package com.recargaypay.wallet.ledger;
+
+import lombok.Getter;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Operation queued to the partition owning {@code walletId}, completed once it is durable.
+ */
+@Getter
+class LedgerCommand {
+
+    private final LedgerOperation operation;
+    private final UUID walletId;
+    private final UUID counterparty;
+    private final long amount;
+    private final CompletableFuture<LedgerResult> result = new CompletableFuture<>();
+
+    /**
+     * Journal record and result of the command, set by the partition thread once applied
+     */
+    private LedgerRecord record;
+    private LedgerResult applied;
+
+    LedgerCommand(LedgerOperation operation, UUID walletId, UUID counterparty, long amount) {
+        this.operation = operation;
+        this.walletId = walletId;
+        this.counterparty = counterparty;
+        this.amount = amount;
+    }
+
+    void applied(LedgerRecord record, LedgerResult applied) {
+        this.record = record;
+        this.applied = applied;
+    }
+}
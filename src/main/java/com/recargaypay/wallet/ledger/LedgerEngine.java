@@ -0,0 +1,265 @@
+package com.recargaypay.wallet.ledger;
+
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import com.recargaypay.wallet.ledger.LedgerProjector.ProjectedRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.WALLET_NOT_FOUND_FORMAT;
+
+/**
+ * In-memory ledger: wallets are spread by hash over single writer partitions, each one with its own journal.
+ * On startup every journal is replayed to rebuild the balances, the wallets of the database missing from the
+ * journals are opened with their database balance, and the database is brought in line with the journals.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.engine", havingValue = "LEDGER")
+public class LedgerEngine {
+
+    private static final Pattern JOURNAL_NAME = Pattern.compile("partition-(\\d+)\\.journal");
+    private static final int REPLAY_CHUNK_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerProjector projector;
+    private final Path journalDirectory;
+    private final int partitionCount;
+    private final long segmentSize;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+
+    private LedgerPartition[] partitions;
+    private Thread[] threads;
+
+    public LedgerEngine(JdbcTemplate jdbcTemplate, LedgerProjector projector,
+                        @Value("${wallet.ledger.journal-dir:ledger}") Path journalDirectory,
+                        @Value("${wallet.ledger.partitions:4}") int partitionCount,
+                        @Value("${wallet.ledger.segment-size:67108864}") long segmentSize,
+                        @Value("${wallet.ledger.queue-capacity:10000}") int queueCapacity,
+                        @Value("${wallet.ledger.max-batch-size:512}") int maxBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.projector = projector;
+        this.journalDirectory = journalDirectory;
+        this.partitionCount = partitionCount;
+        this.segmentSize = segmentSize;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(journalDirectory);
+        checkPartitionCount();
+
+        partitions = new LedgerPartition[partitionCount];
+        for (int index = 0; index < partitionCount; index++) {
+            LedgerJournal journal = new LedgerJournal(journalDirectory.resolve("partition-" + index + ".journal"), segmentSize);
+            partitions[index] = new LedgerPartition(index, journal, queueCapacity, maxBatchSize, this::acknowledge);
+        }
+
+        replay();
+        openDatabaseWallets();
+
+        threads = new Thread[partitionCount];
+        for (LedgerPartition partition : partitions) {
+            threads[partition.getIndex()] = Thread.ofPlatform().name("ledger-partition-" + partition.getIndex()).start(partition);
+        }
+        log.info("Ledger started with {} partitions in {}", partitionCount, journalDirectory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        for (LedgerPartition partition : partitions) {
+            partition.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.getJournal().close();
+        }
+    }
+
+    public CompletableFuture<LedgerResult> open(UUID walletId, UUID userId) {
+        return submit(new LedgerCommand(LedgerOperation.OPEN, walletId, userId, 0));
+    }
+
+    public CompletableFuture<LedgerResult> deposit(UUID walletId, long amount) {
+        return submit(new LedgerCommand(LedgerOperation.DEPOSIT, walletId, null, amount));
+    }
+
+    public CompletableFuture<LedgerResult> withdraw(UUID walletId, long amount) {
+        return submit(new LedgerCommand(LedgerOperation.WITHDRAWAL, walletId, null, amount));
+    }
+
+    /**
+     * The source partition debits and journals the transfer, the destination partition then applies the credit.
+     *
+     * @return the result of the destination wallet, once the transfer is durable and credited
+     */
+    public CompletableFuture<LedgerResult> transfer(UUID sourceWalletId, UUID destinationWalletId, long amount) {
+        // Wallets are never removed, so the destination checked here still exists when the credit is applied
+        partitionOf(destinationWalletId).account(destinationWalletId);
+        return submit(new LedgerCommand(LedgerOperation.TRANSFER, sourceWalletId, destinationWalletId, amount));
+    }
+
+    /**
+     * @param walletId UUID
+     * @return the balance of the wallet in cents, including every acknowledged operation
+     */
+    public long balance(UUID walletId) {
+        LedgerPartition partition = partitionOf(walletId);
+        return partition.balance(partition.account(walletId));
+    }
+
+    private CompletableFuture<LedgerResult> submit(LedgerCommand command) {
+        partitionOf(command.getWalletId()).submit(command);
+        return command.getResult();
+    }
+
+    /**
+     * Runs on the partition thread once the command is durable.
+     */
+    private void acknowledge(LedgerCommand command, LedgerPartition partition) {
+        projector.publish(partition.getIndex(), command.getRecord());
+        if (command.getOperation() != LedgerOperation.TRANSFER) {
+            command.getResult().complete(command.getApplied());
+            return;
+        }
+        LedgerCommand credit = new LedgerCommand(LedgerOperation.CREDIT, command.getCounterparty(), null, command.getAmount());
+        credit.getResult().whenComplete((result, error) -> {
+            if (error != null) {
+                command.getResult().completeExceptionally(error);
+            } else {
+                command.getResult().complete(result);
+            }
+        });
+        try {
+            partitionOf(command.getCounterparty()).submit(credit);
+        } catch (RuntimeException e) {
+            // The transfer is journaled, so the credit is applied when the journals are replayed on the next startup
+            log.error("Credit of transfer from {} to {} could not be queued", command.getWalletId(), command.getCounterparty(), e);
+            command.getResult().completeExceptionally(e);
+        }
+    }
+
+    private LedgerPartition partitionOf(UUID walletId) {
+        if (walletId == null) {
+            throw new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+        }
+        return partitions[Math.floorMod(walletId.hashCode(), partitionCount)];
+    }
+
+    /**
+     * Records name wallets by partition index, so journals written with more partitions cannot be replayed with fewer.
+     */
+    private void checkPartitionCount() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            files.map(file -> JOURNAL_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .mapToInt(matcher -> Integer.parseInt(matcher.group(1)))
+                    .filter(index -> index >= partitionCount)
+                    .findAny()
+                    .ifPresent(index -> {
+                        throw new IllegalStateException("Journal of partition " + index + " found in " + journalDirectory
+                                + ", wallet.ledger.partitions cannot be lower than " + (index + 1));
+                    });
+        }
+    }
+
+    /**
+     * Two passes over the journals: opens first, so transfers to wallets of other partitions find their destination.
+     */
+    private void replay() throws IOException {
+        Set<UUID> databaseWalletIds = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM WALLET", UUID.class));
+        for (LedgerPartition partition : partitions) {
+            partition.getJournal().scan(record -> {
+                if (record.operation() == LedgerOperation.OPEN) {
+                    partitionOf(record.walletId()).restore(record.walletId(), record.counterparty(), record.amount());
+                }
+            });
+        }
+        long replayed = 0;
+        for (LedgerPartition partition : partitions) {
+            List<ProjectedRecord> chunk = new ArrayList<>();
+            replayed += partition.getJournal().scan(record -> {
+                switch (record.operation()) {
+                    case DEPOSIT -> partitionOf(record.walletId()).restore(record.walletId(), null, record.amount());
+                    case WITHDRAWAL -> partitionOf(record.walletId()).restore(record.walletId(), null, -record.amount());
+                    case TRANSFER -> {
+                        partitionOf(record.walletId()).restore(record.walletId(), null, -record.amount());
+                        partitionOf(record.counterparty()).restore(record.counterparty(), null, record.amount());
+                    }
+                    default -> {
+                    }
+                }
+                chunk.add(new ProjectedRecord(partition.getIndex(), record));
+                if (chunk.size() == REPLAY_CHUNK_SIZE) {
+                    projector.replay(chunk, databaseWalletIds);
+                    chunk.clear();
+                }
+            }) / LedgerRecord.SIZE;
+            projector.replay(chunk, databaseWalletIds);
+            partition.getJournal().startAppending();
+        }
+
+        Map<UUID, Long> balances = new HashMap<>();
+        for (LedgerPartition partition : partitions) {
+            partition.accounts().forEach((walletId, account) -> {
+                if (databaseWalletIds.contains(walletId)) {
+                    balances.put(walletId, partition.balance(account));
+                } else {
+                    log.warn("Wallet {} of the ledger journals is missing from the database, it is not projected", walletId);
+                }
+            });
+        }
+        projector.syncBalances(balances);
+        log.info("Replayed {} ledger records of {} wallets", replayed, balances.size());
+    }
+
+    /**
+     * Wallets of the database unknown to the ledger, e.g. on the first start, are opened with their current balance.
+     */
+    private void openDatabaseWallets() {
+        List<LedgerCommand> opens = jdbcTemplate.query("SELECT id, user_uid, balance FROM WALLET", (resultSet, row) ->
+                new LedgerCommand(LedgerOperation.OPEN, resultSet.getObject("id", UUID.class), resultSet.getObject("user_uid", UUID.class),
+                        resultSet.getBigDecimal("balance").movePointRight(2).longValueExact()));
+        for (LedgerCommand open : opens) {
+            LedgerPartition partition = partitionOf(open.getWalletId());
+            if (!partition.contains(open.getWalletId())) {
+                try {
+                    LedgerRecord record = partition.getJournal().append(LedgerOperation.OPEN, open.getWalletId(), open.getCounterparty(),
+                            open.getAmount(), LedgerRecord.toTimestamp(LocalDateTime.now()));
+                    partition.restore(record.walletId(), record.counterparty(), record.amount());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.getJournal().commit();
+        }
+    }
+}
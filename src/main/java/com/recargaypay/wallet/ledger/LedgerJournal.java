@@ -0,0 +1,119 @@
+package com.recargaypay.wallet.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Append only journal of a ledger partition, written through a memory mapped segment of the file.
+ * Appends only reach the page cache, {@link #commit()} forces every record appended since the previous
+ * commit to disk at once, so a whole batch of operations is made durable with a single sync.
+ * Not thread safe: each journal has a single writer, its partition thread.
+ */
+public class LedgerJournal implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long segmentSize;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(LedgerRecord.SIZE);
+
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private int committedPosition;
+    private long nextSequence = 1;
+    private long end;
+
+    public LedgerJournal(Path path, long segmentSize) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segmentSize = segmentSize - segmentSize % LedgerRecord.SIZE;
+        this.end = scan(record -> { });
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Reads every record of the journal, in order, up to the first missing or torn one.
+     *
+     * @param consumer receives every record
+     * @return the file position right after the last valid record
+     */
+    public long scan(Consumer<LedgerRecord> consumer) throws IOException {
+        long position = 0;
+        long sequence = 1;
+        ByteBuffer buffer = ByteBuffer.allocate(LedgerRecord.SIZE);
+        while (true) {
+            buffer.clear();
+            if (channel.read(buffer, position) < LedgerRecord.SIZE) {
+                break;
+            }
+            buffer.flip();
+            LedgerRecord record = LedgerRecord.decode(buffer);
+            if (record == null || record.sequence() != sequence) {
+                break;
+            }
+            consumer.accept(record);
+            sequence++;
+            position += LedgerRecord.SIZE;
+        }
+        nextSequence = sequence;
+        return position;
+    }
+
+    /**
+     * Drops whatever follows the last valid record, a write torn by a crash, and maps the segment new records go to.
+     */
+    public void startAppending() throws IOException {
+        channel.truncate(end);
+        channel.force(true);
+        map(end);
+    }
+
+    public LedgerRecord append(LedgerOperation operation, UUID walletId, UUID counterparty, long amount, long timestamp) throws IOException {
+        if (segment.remaining() < LedgerRecord.SIZE) {
+            commit();
+            map(segmentStart + segment.position());
+        }
+        LedgerRecord record = new LedgerRecord(nextSequence++, operation, walletId, counterparty, amount, timestamp);
+        recordBuffer.clear();
+        record.encode(recordBuffer);
+        recordBuffer.flip();
+        segment.put(recordBuffer);
+        return record;
+    }
+
+    /**
+     * Forces the records appended since the previous commit to disk.
+     */
+    public void commit() {
+        int position = segment.position();
+        if (position > committedPosition) {
+            segment.force(committedPosition, position - committedPosition);
+            committedPosition = position;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (segment != null) {
+            commit();
+            // The mapping grows the file by a whole segment, the unused tail is dropped
+            channel.truncate(segmentStart + segment.position());
+        }
+        channel.close();
+    }
+
+    private void map(long position) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentSize);
+        segmentStart = position;
+        committedPosition = 0;
+    }
+}
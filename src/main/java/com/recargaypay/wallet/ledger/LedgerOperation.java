@@ -0,0 +1,13 @@
+package com.recargaypay.wallet.ledger;
+
+/**
+ * Operations handled by the ledger partitions. Every operation but {@code CREDIT} is written to the journal,
+ * the credit side of a transfer is replayed from the {@code TRANSFER} record of the source wallet.
+ */
+public enum LedgerOperation {
+    OPEN,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER,
+    CREDIT
+}
@@ -0,0 +1,268 @@
+package com.recargaypay.wallet.ledger;
+
+import com.recargaypay.wallet.exception.NoFundsException;
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.NO_FUNDS_FORMAT;
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.WALLET_NOT_FOUND_FORMAT;
+
+/**
+ * Wallets of a hash partition, owned by a single writer thread. Balances are kept in cents in a primitive
+ * {@code long[]} indexed by a per-wallet slot, so no lock is ever taken: commands are queued, applied in order by
+ * the partition thread, appended to its journal and acknowledged after a single group commit per batch.
+ * Other threads only read balances, with acquire semantics.
+ */
+@Slf4j
+class LedgerPartition implements Runnable {
+
+    private static final VarHandle BALANCES = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final int index;
+    private final LedgerJournal journal;
+    private final BlockingQueue<LedgerCommand> commands = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final int maxBatchSize;
+    private final BiConsumer<LedgerCommand, LedgerPartition> acknowledger;
+
+    private final Map<UUID, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private volatile long[] balances = new long[INITIAL_SLOTS];
+    private int slots;
+    private volatile boolean running = true;
+    private volatile Exception failure;
+
+    /**
+     * @param acknowledger called with every durable command, it completes the command or forwards its credit
+     */
+    LedgerPartition(int index, LedgerJournal journal, int queueCapacity, int maxBatchSize,
+                    BiConsumer<LedgerCommand, LedgerPartition> acknowledger) {
+        this.index = index;
+        this.journal = journal;
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.acknowledger = acknowledger;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    LedgerJournal getJournal() {
+        return journal;
+    }
+
+    boolean contains(UUID walletId) {
+        return accounts.containsKey(walletId);
+    }
+
+    LedgerAccount account(UUID walletId) {
+        LedgerAccount account = accounts.get(walletId);
+        if (account == null) {
+            throw new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+        }
+        return account;
+    }
+
+    long balance(LedgerAccount account) {
+        return (long) BALANCES.getAcquire(balances, account.slot());
+    }
+
+    Map<UUID, LedgerAccount> accounts() {
+        return accounts;
+    }
+
+    void submit(LedgerCommand command) {
+        if (failure != null) {
+            throw new IllegalStateException("Ledger partition " + index + " stopped after a failure", failure);
+        }
+        try {
+            // Credits forwarded by other partition threads never wait, or two full partitions could block each other
+            if (command.getOperation() != LedgerOperation.CREDIT) {
+                capacity.acquire();
+            }
+            commands.add(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queuing a ledger command", e);
+        }
+        // The partition thread may have stopped between the check above and the add, nothing would ever take the command
+        if (failure != null) {
+            rejectQueued();
+        }
+    }
+
+    /**
+     * Opens or adjusts a wallet while replaying the journals, before the partition thread starts.
+     */
+    void restore(UUID walletId, UUID userId, long delta) {
+        LedgerAccount account = accounts.get(walletId);
+        if (account == null) {
+            open(walletId, userId, delta);
+        } else {
+            setBalance(account, balance(account) + delta);
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<LedgerCommand> batch = new ArrayList<>(maxBatchSize);
+        while (running || !commands.isEmpty()) {
+            try {
+                LedgerCommand first = commands.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                commands.drainTo(batch, maxBatchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("Ledger partition " + index + " interrupted", e);
+                batch.forEach(command -> command.getResult().completeExceptionally(failure));
+                rejectQueued();
+                return;
+            } catch (RuntimeException e) {
+                // The thread is kept alive, a dead partition would leave every queued and later command waiting forever
+                log.error("Ledger partition {} failed to process a batch", index, e);
+                batch.forEach(command -> command.getResult().completeExceptionally(e));
+            } finally {
+                capacity.release((int) batch.stream().filter(command -> command.getOperation() != LedgerOperation.CREDIT).count());
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<LedgerCommand> batch) {
+        List<LedgerCommand> durable = new ArrayList<>(batch.size());
+        for (LedgerCommand command : batch) {
+            if (failure != null) {
+                command.getResult().completeExceptionally(new IllegalStateException("Ledger partition " + index + " stopped", failure));
+                continue;
+            }
+            try {
+                apply(command);
+                durable.add(command);
+            } catch (IOException e) {
+                // Memory and journal can no longer be trusted to match, the partition stops accepting commands
+                log.error("Ledger partition {} failed to append to {}", index, journal.getPath(), e);
+                failure = e;
+                command.getResult().completeExceptionally(e);
+            } catch (RuntimeException e) {
+                command.getResult().completeExceptionally(e);
+            }
+        }
+
+        // Group commit: a single sync makes the whole batch durable
+        try {
+            journal.commit();
+        } catch (RuntimeException e) {
+            log.error("Ledger partition {} failed to commit {}", index, journal.getPath(), e);
+            failure = e;
+            durable.forEach(command -> command.getResult().completeExceptionally(e));
+            return;
+        }
+        for (LedgerCommand command : durable) {
+            try {
+                acknowledger.accept(command, this);
+            } catch (RuntimeException e) {
+                log.error("Ledger partition {} failed to acknowledge a durable {}", index, command.getOperation(), e);
+                command.getResult().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Fails the commands still queued once the partition has stopped.
+     */
+    private void rejectQueued() {
+        LedgerCommand command;
+        while ((command = commands.poll()) != null) {
+            command.getResult().completeExceptionally(new IllegalStateException("Ledger partition " + index + " stopped", failure));
+            if (command.getOperation() != LedgerOperation.CREDIT) {
+                capacity.release();
+            }
+        }
+    }
+
+    private void apply(LedgerCommand command) throws IOException {
+        long timestamp = LedgerRecord.toTimestamp(LocalDateTime.now());
+        UUID walletId = command.getWalletId();
+        switch (command.getOperation()) {
+            case OPEN -> {
+                LedgerAccount account = accounts.get(walletId);
+                LedgerRecord record = null;
+                if (account == null) {
+                    record = journal.append(LedgerOperation.OPEN, walletId, command.getCounterparty(), command.getAmount(), timestamp);
+                    account = open(walletId, command.getCounterparty(), command.getAmount());
+                }
+                command.applied(record, result(walletId, account, timestamp));
+            }
+            case DEPOSIT, CREDIT -> {
+                LedgerAccount account = account(walletId);
+                long balance = Math.addExact(balance(account), command.getAmount());
+                LedgerRecord record = command.getOperation() == LedgerOperation.DEPOSIT
+                        ? journal.append(LedgerOperation.DEPOSIT, walletId, null, command.getAmount(), timestamp)
+                        : null;
+                setBalance(account, balance);
+                command.applied(record, result(walletId, account, timestamp));
+            }
+            case WITHDRAWAL, TRANSFER -> {
+                LedgerAccount account = account(walletId);
+                long balance = balance(account) - command.getAmount();
+                if (balance < 0) {
+                    throw new NoFundsException(String.format(NO_FUNDS_FORMAT, walletId));
+                }
+                LedgerRecord record = journal.append(command.getOperation(), walletId, command.getCounterparty(), command.getAmount(), timestamp);
+                setBalance(account, balance);
+                command.applied(record, result(walletId, account, timestamp));
+            }
+        }
+    }
+
+    private LedgerAccount open(UUID walletId, UUID userId, long balance) {
+        if (slots == balances.length) {
+            balances = Arrays.copyOf(balances, slots * 2);
+        }
+        LedgerAccount account = new LedgerAccount(slots++, userId);
+        setBalance(account, balance);
+        // Publishing the account after its balance makes the slot visible to readers already initialized
+        accounts.put(walletId, account);
+        return account;
+    }
+
+    private void setBalance(LedgerAccount account, long balance) {
+        BALANCES.setRelease(balances, account.slot(), balance);
+    }
+
+    private LedgerResult result(UUID walletId, LedgerAccount account, long timestamp) {
+        return new LedgerResult(walletId, account.userId(), balance(account), LedgerRecord.toTime(timestamp));
+    }
+
+    /**
+     * @param slot   index of the wallet balance in the partition array
+     * @param userId owner of the wallet
+     */
+    record LedgerAccount(int slot, UUID userId) {
+    }
+}
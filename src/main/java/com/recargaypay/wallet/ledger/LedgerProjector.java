@@ -0,0 +1,188 @@
+package com.recargaypay.wallet.ledger;
+
+import com.recargaypay.wallet.model.entity.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills {@code TRANSACTION_RPAY} and {@code WALLET.balance} from the ledger journals, off the write path.
+ * Transaction ids are derived from the journal and partition of each record, so projecting a record
+ * twice, as happens on every startup, does not duplicate it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.engine", havingValue = "LEDGER")
+public class LedgerProjector implements Runnable {
+
+    private static final String MERGE_TRANSACTION = "MERGE INTO TRANSACTION_RPAY (id, wallet_id, amount, timestamp, type) KEY (id) VALUES (?, ?, ?, ?, ?)";
+    private static final String ADD_BALANCE = "UPDATE WALLET SET balance = balance + ?, updated_at = ? WHERE id = ?";
+    private static final String SET_BALANCE = "UPDATE WALLET SET balance = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long retryDelayMs;
+    private final BlockingQueue<ProjectedRecord> queue = new LinkedBlockingQueue<>();
+
+    private Thread thread;
+    private volatile boolean running = true;
+
+    public LedgerProjector(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           @Value("${wallet.ledger.projection.batch-size:500}") int batchSize,
+                           @Value("${wallet.ledger.projection.retry-delay-ms:1000}") long retryDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        thread = Thread.ofPlatform().name("ledger-projector").daemon().start(this);
+    }
+
+    /**
+     * Waits for the queued records to be projected.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        thread.join();
+    }
+
+    /**
+     * Queues a durable record to be projected, {@code OPEN} records have nothing to project.
+     */
+    void publish(int partition, LedgerRecord record) {
+        if (record != null && record.operation() != LedgerOperation.OPEN) {
+            queue.add(new ProjectedRecord(partition, record));
+        }
+    }
+
+    /**
+     * Projects the transactions of replayed records, skipping the ones of wallets missing from the database.
+     */
+    void replay(List<ProjectedRecord> records, Set<UUID> walletIds) {
+        List<Object[]> transactions = new ArrayList<>();
+        for (ProjectedRecord projected : records) {
+            addTransactions(projected, transactions);
+        }
+        transactions.removeIf(row -> !walletIds.contains((UUID) row[1]));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(MERGE_TRANSACTION, transactions));
+    }
+
+    /**
+     * Overwrites the database balances with the ledger ones after a replay.
+     */
+    void syncBalances(Map<UUID, Long> balances) {
+        List<Object[]> rows = new ArrayList<>(balances.size());
+        balances.forEach((walletId, balance) -> rows.add(new Object[]{toAmount(balance), walletId}));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SET_BALANCE, rows));
+    }
+
+    @Override
+    public void run() {
+        List<ProjectedRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ProjectedRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                project(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void project(List<ProjectedRecord> batch) throws InterruptedException {
+        List<Object[]> transactions = new ArrayList<>();
+        List<Object[]> balances = new ArrayList<>();
+        for (ProjectedRecord projected : batch) {
+            addTransactions(projected, transactions);
+            for (Object[] transaction : transactions.subList(transactions.size() - rowCount(projected.record()), transactions.size())) {
+                balances.add(new Object[]{transaction[2], transaction[3], transaction[1]});
+            }
+        }
+        // The journal is durable, a failed batch is retried until the database is back
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(MERGE_TRANSACTION, transactions);
+                    jdbcTemplate.batchUpdate(ADD_BALANCE, balances);
+                });
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to project {} ledger records, retrying in {} ms", batch.size(), retryDelayMs, e);
+                Thread.sleep(retryDelayMs);
+            }
+        }
+    }
+
+    private static void addTransactions(ProjectedRecord projected, List<Object[]> transactions) {
+        LedgerRecord record = projected.record();
+        Timestamp timestamp = Timestamp.valueOf(record.time());
+        BigDecimal amount = toAmount(record.amount());
+        switch (record.operation()) {
+            case DEPOSIT -> transactions.add(new Object[]{transactionId(projected, 0), record.walletId(), amount, timestamp,
+                    TransactionType.DEPOSIT.name()});
+            case WITHDRAWAL -> transactions.add(new Object[]{transactionId(projected, 0), record.walletId(), amount.negate(), timestamp,
+                    TransactionType.WITHDRAWAL.name()});
+            case TRANSFER -> {
+                transactions.add(new Object[]{transactionId(projected, 0), record.walletId(), amount.negate(), timestamp,
+                        TransactionType.TRANSFER.name()});
+                transactions.add(new Object[]{transactionId(projected, 1), record.counterparty(), amount, timestamp,
+                        TransactionType.DEPOSIT.name()});
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static int rowCount(LedgerRecord record) {
+        return switch (record.operation()) {
+            case DEPOSIT, WITHDRAWAL -> 1;
+            case TRANSFER -> 2;
+            default -> 0;
+        };
+    }
+
+    private static UUID transactionId(ProjectedRecord projected, int side) {
+        return new UUID(((long) projected.partition() << 1) | side, projected.record().sequence());
+    }
+
+    static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * @param partition index of the journal the record comes from
+     * @param record    journal record
+     */
+    record ProjectedRecord(int partition, LedgerRecord record) {
+    }
+}
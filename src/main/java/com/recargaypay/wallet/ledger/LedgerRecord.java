@@ -0,0 +1,83 @@
+package com.recargaypay.wallet.ledger;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal entry, stored as a fixed size binary record:
+ * sequence, operation, wallet, counterparty, amount in cents, timestamp and a CRC32C of all the previous fields.
+ * The counterparty is the owner user of an {@code OPEN} and the destination wallet of a {@code TRANSFER}.
+ *
+ * @param sequence     position of the record in its journal, starting at 1
+ * @param operation    journaled operation
+ * @param walletId     opened, credited or debited wallet
+ * @param counterparty user or destination wallet, null otherwise
+ * @param amount       amount in cents, the initial balance of an {@code OPEN}
+ * @param timestamp    epoch milliseconds of the operation, in UTC
+ */
+public record LedgerRecord(long sequence, LedgerOperation operation, UUID walletId, UUID counterparty, long amount, long timestamp) {
+
+    public static final int SIZE = 64;
+    private static final int CHECKSUM_OFFSET = SIZE - Integer.BYTES;
+    private static final LedgerOperation[] OPERATIONS = LedgerOperation.values();
+
+    public LocalDateTime time() {
+        return toTime(timestamp);
+    }
+
+    public static LocalDateTime toTime(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+    }
+
+    public static long toTimestamp(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * @param buffer buffer with at least {@link #SIZE} bytes remaining, its position is moved past the record
+     */
+    public void encode(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(sequence);
+        buffer.putInt(operation.ordinal());
+        buffer.putLong(walletId.getMostSignificantBits());
+        buffer.putLong(walletId.getLeastSignificantBits());
+        buffer.putLong(counterparty == null ? 0 : counterparty.getMostSignificantBits());
+        buffer.putLong(counterparty == null ? 0 : counterparty.getLeastSignificantBits());
+        buffer.putLong(amount);
+        buffer.putLong(timestamp);
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * @param buffer buffer with at least {@link #SIZE} bytes remaining, its position is moved past the record
+     * @return the record, or null if the bytes are not a complete record: zeroed or torn by a crash
+     */
+    public static LedgerRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        long sequence = buffer.getLong();
+        int operation = buffer.getInt();
+        UUID walletId = new UUID(buffer.getLong(), buffer.getLong());
+        long counterpartyMsb = buffer.getLong();
+        long counterpartyLsb = buffer.getLong();
+        long amount = buffer.getLong();
+        long timestamp = buffer.getLong();
+        int checksum = buffer.getInt();
+
+        if (sequence <= 0 || operation < 0 || operation >= OPERATIONS.length || checksum != checksum(buffer, start)) {
+            return null;
+        }
+        UUID counterparty = counterpartyMsb == 0 && counterpartyLsb == 0 ? null : new UUID(counterpartyMsb, counterpartyLsb);
+        return new LedgerRecord(sequence, OPERATIONS[operation], walletId, counterparty, amount, timestamp);
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,15 @@
+package com.recargaypay.wallet.ledger;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outcome of a ledger operation, once it is durable.
+ *
+ * @param walletId  wallet the result refers to, the destination one for a transfer
+ * @param userId    owner of the wallet
+ * @param balance   balance of the wallet in cents right after the operation
+ * @param timestamp time of the operation
+ */
+public record LedgerResult(UUID walletId, UUID userId, long balance, LocalDateTime timestamp) {
+}
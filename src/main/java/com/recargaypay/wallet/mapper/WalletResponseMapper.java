@@ -1,24 +1,36 @@
 package com.recargaypay.wallet.mapper;
 
 import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
 import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.Transaction;
 import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.money.Money;
 
 public class WalletResponseMapper {
 
     public static CreateWalletResponse toWalletDto(Wallet wallet) {
         CreateWalletResponse response = new CreateWalletResponse();
         response.setWalletId(wallet.getId());
-        response.setUserId(wallet.getUser().getId());
+        response.setUserId(wallet.getUserId());
         return response;
     }
 
     public static WalletTransactionResponse toWalletTransactionResponse(Wallet wallet) {
+        return toWalletTransactionResponse(wallet, wallet.getBalance());
+    }
+
+    public static WalletTransactionResponse toWalletTransactionResponse(Wallet wallet, Money balance) {
         WalletTransactionResponse response = new WalletTransactionResponse();
         response.setId(wallet.getId());
-        response.setUserId(wallet.getUser().getId());
-        response.setBalance(wallet.getBalance());
+        response.setUserId(wallet.getUserId());
+        response.setBalance(balance.toBigDecimal());
         response.setLastUpdated(wallet.getUpdatedAt());
         return response;
     }
+
+    public static TransactionResponse toTransactionResponse(Transaction transaction) {
+        return new TransactionResponse(transaction.getId(), transaction.getWallet().getId(), transaction.getType(),
+                transaction.getAmount().toBigDecimal(), transaction.getTimestamp());
+    }
 }
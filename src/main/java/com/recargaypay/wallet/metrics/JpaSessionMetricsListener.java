@@ -0,0 +1,68 @@
+package com.recargaypay.wallet.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate session listener splitting the time of a wallet operation between waiting for a pooled
+ * connection, flushing the persistence context and executing JDBC statements. Hibernate creates one
+ * instance per session from {@code hibernate.session.events.auto}, so the meters are registered on the
+ * global registry, to which Spring Boot adds its own.
+ */
+public class JpaSessionMetricsListener implements SessionEventListener {
+
+    public static final String CONNECTION_ACQUIRE_TIMER = "wallet.jpa.connection.acquire";
+    public static final String FLUSH_TIMER = "wallet.jpa.flush";
+    public static final String STATEMENT_TIMER = "wallet.jpa.statement";
+
+    private long connectionAcquireStart;
+    private long flushStart;
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        connectionAcquireStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        record(CONNECTION_ACQUIRE_TIMER, connectionAcquireStart);
+    }
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        record(FLUSH_TIMER, flushStart);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(STATEMENT_TIMER, statementStart, "kind", "single");
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(STATEMENT_TIMER, batchStart, "kind", "batch");
+    }
+
+    private static void record(String name, long start, String... tags) {
+        Metrics.timer(name, tags).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
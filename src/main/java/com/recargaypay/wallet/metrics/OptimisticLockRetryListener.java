@@ -0,0 +1,32 @@
+package com.recargaypay.wallet.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts every attempt of a {@code @Retryable} method failing on a stale {@code @Version},
+ * including the ones hidden by a successful retry.
+ */
+@Component
+public class OptimisticLockRetryListener implements RetryListener {
+
+    public static final String OPTIMISTIC_LOCK_FAILURES = "wallet.optimistic.lock.failures";
+
+    private final Counter failures;
+
+    public OptimisticLockRetryListener(MeterRegistry meterRegistry) {
+        this.failures = meterRegistry.counter(OPTIMISTIC_LOCK_FAILURES);
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (throwable instanceof OptimisticLockingFailureException) {
+            failures.increment();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.recargaypay.wallet.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every {@code WalletService} call and counts the exceptions it ends with.
+ * It runs before the retry and transaction advices, so the time includes retries and the commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WalletServiceMetricsAspect {
+
+    public static final String OPERATION_TIMER = "wallet.operation";
+    public static final String OPERATION_ERRORS = "wallet.operation.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    public WalletServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.recargaypay.wallet.service.WalletService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            meterRegistry.counter(OPERATION_ERRORS, "operation", operation, "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(OPERATION_TIMER, "operation", operation, "outcome", outcome));
+        }
+    }
+}
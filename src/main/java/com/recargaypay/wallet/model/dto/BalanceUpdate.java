@@ -0,0 +1,19 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceUpdate {
+
+    private UUID walletId;
+    private BigDecimal balance;
+    private LocalDateTime timestamp;
+}
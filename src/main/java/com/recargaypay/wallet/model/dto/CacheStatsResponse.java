@@ -0,0 +1,13 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsResponse {
+
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+}
@@ -0,0 +1,19 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of the amounts and number of a range of transactions, aggregated by the database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerSum {
+
+    private BigDecimal amount;
+    private Long transactionCount;
+}
@@ -0,0 +1,25 @@
+package com.recargaypay.wallet.model.dto;
+
+import com.recargaypay.wallet.model.entity.TransactionType;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class TransactionHistoryFilter {
+
+    private UUID walletId;
+    /**
+     * Only transactions of this type, all types if null
+     */
+    private TransactionType type;
+    /**
+     * Inclusive lower bound of the transaction timestamp, unbounded if null
+     */
+    private LocalDateTime from;
+    /**
+     * Exclusive upper bound of the transaction timestamp, unbounded if null
+     */
+    private LocalDateTime to;
+}
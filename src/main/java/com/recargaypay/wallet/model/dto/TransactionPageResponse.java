@@ -0,0 +1,21 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class TransactionPageResponse {
+
+    private List<TransactionResponse> transactions;
+    /**
+     * Cursor to request the next page, null on the last page
+     */
+    private String nextCursor;
+    /**
+     * End of the ledger archive, set when the requested range starts before it: pages only list the live months, the
+     * archived transactions are only returned by the NDJSON stream
+     */
+    private LocalDateTime archivedUntil;
+}
@@ -0,0 +1,30 @@
+package com.recargaypay.wallet.model.dto;
+
+import com.recargaypay.wallet.model.entity.TransactionType;
+import com.recargaypay.wallet.model.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResponse {
+
+    private UUID id;
+    private UUID walletId;
+    private TransactionType type;
+    private BigDecimal amount;
+    private LocalDateTime timestamp;
+
+    /**
+     * Used by the JPQL projections, which read the amount through the {@link Money} converter.
+     */
+    public TransactionResponse(UUID id, UUID walletId, TransactionType type, Money amount, LocalDateTime timestamp) {
+        this(id, walletId, type, amount.toBigDecimal(), timestamp);
+    }
+}
@@ -0,0 +1,21 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Balance of a single wallet of a bulk lookup, with the error instead of the balance if it could not be resolved.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceResponse {
+
+    private UUID walletId;
+    private BigDecimal balance;
+    private String error;
+}
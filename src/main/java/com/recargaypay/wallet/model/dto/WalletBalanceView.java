@@ -0,0 +1,22 @@
+package com.recargaypay.wallet.model.dto;
+
+import com.recargaypay.wallet.model.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Balance columns of a wallet row, read by a projection query without loading the entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceView {
+
+    private UUID walletId;
+    private Money balance;
+    private Long version;
+    private int shardCount;
+}
@@ -0,0 +1,13 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class WalletBalancesRequest {
+
+    private List<UUID> walletIds = new ArrayList<>();
+}
@@ -0,0 +1,11 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+@Data
+public class WalletBatchItemResponse {
+
+    private int index;
+    private boolean success;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.recargaypay.wallet.model.dto;
+
+/**
+ * How a batch of movements is committed
+ */
+public enum WalletBatchMode {
+    /**
+     * Nothing is applied if any movement fails
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Valid movements are applied, failed ones are reported and skipped
+     */
+    BEST_EFFORT
+}
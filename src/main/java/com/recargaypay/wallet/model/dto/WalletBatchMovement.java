@@ -0,0 +1,14 @@
+package com.recargaypay.wallet.model.dto;
+
+import com.recargaypay.wallet.model.entity.TransactionType;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Single movement of a batch. As in the single movement endpoints, deposits and withdrawals use {@code toWalletId}.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class WalletBatchMovement extends WalletTransferRequest {
+    private TransactionType type;
+}
@@ -0,0 +1,13 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class WalletBatchRequest {
+
+    private WalletBatchMode mode = WalletBatchMode.ALL_OR_NOTHING;
+    private List<WalletBatchMovement> movements = new ArrayList<>();
+}
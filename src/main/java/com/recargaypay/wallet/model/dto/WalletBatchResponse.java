@@ -0,0 +1,12 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class WalletBatchResponse {
+
+    private boolean committed;
+    private List<WalletBatchItemResponse> results;
+}
@@ -0,0 +1,22 @@
+package com.recargaypay.wallet.model.dto;
+
+import com.recargaypay.wallet.model.entity.TransactionType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class WalletEvent {
+
+    /**
+     * Increasing id, delivery is at least once so consumers can use it to drop duplicates
+     */
+    private Long id;
+    private UUID walletId;
+    private TransactionType type;
+    private BigDecimal amount;
+    private BigDecimal balance;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,12 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class WalletProvisioningRequest {
+
+    private List<UUID> userUids;
+}
@@ -0,0 +1,21 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Wallet created for a single row of a bulk provisioning, with the error instead of the wallet if it was not created.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletProvisioningResult {
+
+    private long row;
+    private UUID userUid;
+    private UUID walletId;
+    private String error;
+}
@@ -0,0 +1,13 @@
+package com.recargaypay.wallet.model.dto;
+
+import java.util.UUID;
+
+/**
+ * User of a bulk provisioning input, with the parse error instead of the user if its line could not be read.
+ *
+ * @param row     1-based position in the input, the line number for files
+ * @param userUid user to create a wallet for
+ * @param error   why the line could not be read, null if it was
+ */
+public record WalletProvisioningRow(long row, UUID userUid, String error) {
+}
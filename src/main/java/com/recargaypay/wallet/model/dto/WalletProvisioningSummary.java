@@ -0,0 +1,16 @@
+package com.recargaypay.wallet.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletProvisioningSummary {
+
+    private long rows;
+    private long created;
+    private long failed;
+    private long elapsedMillis;
+}
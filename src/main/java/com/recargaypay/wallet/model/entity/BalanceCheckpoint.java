@@ -0,0 +1,35 @@
+package com.recargaypay.wallet.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Snapshot of a wallet ledger: the sum of every transaction of the wallet with a timestamp
+ * strictly before {@code checkpointAt}.
+ */
+@Entity
+@Data
+@Table(name = "BALANCE_CHECKPOINT")
+public class BalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private UUID walletId;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private LocalDateTime checkpointAt;
+
+}
@@ -0,0 +1,15 @@
+package com.recargaypay.wallet.model.entity;
+
+/**
+ * How wallet mutations deal with concurrent updates of the same wallet
+ */
+public enum ConcurrencyMode {
+    /**
+     * Wallets are read with SELECT ... FOR UPDATE, transfers lock both wallets in UUID order
+     */
+    PESSIMISTIC,
+    /**
+     * Wallets are read without locks and the {@code @Version} check is retried with jittered backoff
+     */
+    OPTIMISTIC
+}
@@ -0,0 +1,51 @@
+package com.recargaypay.wallet.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of a wallet movement stored under the {@code Idempotency-Key} the client sent with it.
+ * The key is assigned by the client, so a new key is always inserted: {@code save} would otherwise merge it,
+ * overwriting a key committed concurrently by another instance instead of failing on the primary key.
+ */
+@Entity
+@Data
+@Table(name = "IDEMPOTENCY_KEY")
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    private String operation;
+
+    private String requestHash;
+
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.recargaypay.wallet.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Closed month of {@code TRANSACTION_RPAY} moved to a compressed segment file. The rows of
+ * {@code [periodStart, periodEnd)} are deleted in the same transaction that records the segment.
+ */
+@Entity
+@Data
+@Table(name = "LEDGER_SEGMENT")
+public class LedgerSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, unique = true)
+    private LocalDateTime periodStart;
+
+    @Column(nullable = false)
+    private LocalDateTime periodEnd;
+
+    /**
+     * Name of the segment file, relative to {@code wallet.archive.dir}
+     */
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private int walletCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,43 @@
+package com.recargaypay.wallet.model.entity;
+
+import com.recargaypay.wallet.model.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Wallet movement waiting to be published, written in the same transaction as the movement itself.
+ * The id gives the order events are relayed in. It comes from a pooled sequence, each instance taking a block of
+ * {@code hibernate.jdbc.batch_size} ids at a time so the events of a movement are inserted in one JDBC batch, so the
+ * events of different instances are only roughly in time order.
+ */
+@Entity
+@Data
+@Table(name = "OUTBOX_EVENT")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "OUTBOX_EVENT_SEQ", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private UUID walletId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @Column(precision = 19, scale = 2)
+    private Money amount;
+
+    /**
+     * Balance of the wallet once the transaction of the movement commits
+     */
+    @Column(precision = 19, scale = 2)
+    private Money balance;
+
+    private LocalDateTime occurredAt;
+
+}
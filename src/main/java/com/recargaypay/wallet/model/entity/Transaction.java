@@ -1,11 +1,11 @@
 package com.recargaypay.wallet.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.recargaypay.wallet.model.money.Money;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.springframework.data.annotation.LastModifiedDate;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -18,7 +18,7 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "wallet_id")
     @JsonBackReference
     private Wallet wallet;
@@ -26,7 +26,8 @@ public class Transaction {
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
-    private BigDecimal amount;
+    @Column(precision = 19, scale = 2)
+    private Money amount;
 
     @LastModifiedDate
     private LocalDateTime timestamp;
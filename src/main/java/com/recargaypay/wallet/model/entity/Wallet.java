@@ -3,12 +3,14 @@ package com.recargaypay.wallet.model.entity;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.recargaypay.wallet.model.money.Money;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -21,18 +23,42 @@ public class Wallet {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    private BigDecimal balance;
+    @Column(precision = 19, scale = 2)
+    private Money balance;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_uid", nullable = false)
     @JsonBackReference
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
+    /**
+     * Foreign key of {@link #user}, read without loading the user row
+     */
+    @Column(name = "user_uid", insertable = false, updatable = false)
+    private UUID userId;
+
     @Version
     private Long version;
 
+    /**
+     * Number of {@link WalletShard} sub-balances receiving the credits of the wallet, 0 if it is not sharded
+     */
+    private int shardCount;
+
+    /**
+     * Set by the database on insert, whichever way the wallet is created
+     */
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    public void setUser(User user) {
+        this.user = user;
+        this.userId = user == null ? null : user.getId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.recargaypay.wallet.model.entity;
+
+import com.recargaypay.wallet.model.money.Money;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Sub-balance of a sharded wallet. The wallet balance is the {@code WALLET} row balance plus the balance of all its shards.
+ */
+@Entity
+@Data
+@Table(name = "WALLET_SHARD")
+public class WalletShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private UUID walletId;
+
+    @Column(nullable = false)
+    private int shardIndex;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money balance;
+
+    @Version
+    private Long version;
+
+}
@@ -0,0 +1,77 @@
+package com.recargaypay.wallet.model.money;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount of money as a count of cents. Arithmetic stays on a primitive {@code long} and fails with an
+ * {@link ArithmeticException} on overflow instead of wrapping around, and the record is small enough for the
+ * JIT to keep the intermediate values of a calculation off the heap.
+ * {@link BigDecimal} is only used at the boundaries: request and response DTOs and the {@code DECIMAL(19, 2)} columns.
+ *
+ * @param minorUnits amount in cents
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    /**
+     * Decimal digits of the currency minor unit
+     */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * @param amount amount with at most {@link #SCALE} decimals, trailing zeros aside
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount has more decimals than the currency or does not fit in a long
+     */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.movePointRight(SCALE).longValueExact());
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public Money min(Money other) {
+        return minorUnits <= other.minorUnits ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.recargaypay.wallet.outbox;
+
+import com.recargaypay.wallet.model.dto.WalletEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the wallet events relayed from the outbox. Declaring a bean of this type replaces the default file sink.
+ */
+public interface WalletEventSink {
+    /**
+     * Publishes a batch of events, in order. Returning acknowledges the whole batch, throwing makes the relay
+     * retry it later, so an event can be delivered more than once. Blocking slows the relay down.
+     *
+     * @param events events ordered by id
+     */
+    void publish(List<WalletEvent> events);
+}
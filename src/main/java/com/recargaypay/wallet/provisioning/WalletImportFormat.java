@@ -0,0 +1,30 @@
+package com.recargaypay.wallet.provisioning;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+
+/**
+ * Formats of a bulk provisioning file, one user per line.
+ */
+public enum WalletImportFormat {
+    /**
+     * User ID in the first column, with an optional header line
+     */
+    CSV,
+    /**
+     * One {@code {"userUid": "..."}} object per line, the body of {@code POST /api/v1/wallet}
+     */
+    NDJSON;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static WalletImportFormat of(MediaType contentType) {
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? NDJSON : CSV;
+    }
+
+    public static WalletImportFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+}
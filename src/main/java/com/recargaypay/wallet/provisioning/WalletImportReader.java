@@ -0,0 +1,123 @@
+package com.recargaypay.wallet.provisioning;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.model.dto.WalletProvisioningRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Reads the users of a bulk provisioning file lazily, a line at a time, so a file of millions of users is never held
+ * in memory. Blank lines are skipped, a line that cannot be read becomes a row with its error and the line number.
+ */
+public class WalletImportReader implements Iterator<WalletProvisioningRow> {
+
+    public static final String INVALID_USER_FORMAT = "Invalid user ID: %s";
+    public static final String INVALID_JSON = "Invalid JSON line";
+    public static final String USER_FIELD = "userUid";
+
+    private static final int UUID_LENGTH = 36;
+
+    private final BufferedReader reader;
+    private final WalletImportFormat format;
+    private final ObjectMapper objectMapper;
+    private long lineNumber;
+    private WalletProvisioningRow next;
+
+    public WalletImportReader(BufferedReader reader, WalletImportFormat format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public WalletProvisioningRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        WalletProvisioningRow row = next;
+        next = null;
+        return row;
+    }
+
+    private WalletProvisioningRow readRow() {
+        String line;
+        while ((line = readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == WalletImportFormat.NDJSON) {
+                return parseJson(line);
+            }
+            String field = firstColumn(line);
+            UUID userUid = parseUuid(field);
+            if (userUid != null) {
+                return new WalletProvisioningRow(lineNumber, userUid, null);
+            }
+            // A first line that is not an ID is the header
+            if (lineNumber > 1) {
+                return new WalletProvisioningRow(lineNumber, null, String.format(INVALID_USER_FORMAT, field));
+            }
+        }
+        return null;
+    }
+
+    private WalletProvisioningRow parseJson(String line) {
+        JsonNode field;
+        try {
+            field = objectMapper.readTree(line).path(USER_FIELD);
+        } catch (JsonProcessingException e) {
+            return new WalletProvisioningRow(lineNumber, null, INVALID_JSON);
+        }
+        UUID userUid = parseUuid(field.asText());
+        return userUid != null
+                ? new WalletProvisioningRow(lineNumber, userUid, null)
+                : new WalletProvisioningRow(lineNumber, null, String.format(INVALID_USER_FORMAT, field.asText()));
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String firstColumn(String line) {
+        int separator = line.indexOf(',');
+        String field = (separator < 0 ? line : line.substring(0, separator)).strip();
+        if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+            field = field.substring(1, field.length() - 1).strip();
+        }
+        return field;
+    }
+
+    /**
+     * @return the UUID, or null if the text is not one in its canonical 36 character form
+     */
+    private static UUID parseUuid(String text) {
+        if (text == null || text.length() != UUID_LENGTH) {
+            return null;
+        }
+        try {
+            return UUID.fromString(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
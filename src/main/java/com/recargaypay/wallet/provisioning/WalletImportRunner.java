@@ -0,0 +1,81 @@
+package com.recargaypay.wallet.provisioning;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.model.dto.WalletProvisioningResult;
+import com.recargaypay.wallet.model.dto.WalletProvisioningSummary;
+import com.recargaypay.wallet.service.WalletProvisioningService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Import mode of the bulk provisioning, for migrations that would rather not go through HTTP:
+ * {@code java -jar wallet-1.0.0.jar --wallet.provisioning.import.file=users.csv --spring.main.web-application-type=none}
+ * provisions the users of the file on startup and writes the result of every line to {@code users.csv.results.ndjson}.
+ * Unless {@code wallet.provisioning.import.exit=false}, the application then stops, with exit code 1 if any line failed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("wallet.provisioning.import.file")
+public class WalletImportRunner implements ApplicationRunner {
+
+    public static final String RESULTS_SUFFIX = ".results.ndjson";
+
+    private final WalletProvisioningService walletProvisioningService;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext applicationContext;
+    private final Path file;
+    private final boolean exit;
+
+    public WalletImportRunner(WalletProvisioningService walletProvisioningService, ObjectMapper objectMapper,
+                              ConfigurableApplicationContext applicationContext,
+                              @Value("${wallet.provisioning.import.file}") String file,
+                              @Value("${wallet.provisioning.import.exit:true}") boolean exit) {
+        this.walletProvisioningService = walletProvisioningService;
+        this.objectMapper = objectMapper;
+        this.applicationContext = applicationContext;
+        this.file = Path.of(file);
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        WalletProvisioningSummary summary = importFile();
+        if (exit) {
+            int exitCode = summary.getFailed() == 0 ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+
+    public WalletProvisioningSummary importFile() throws IOException {
+        WalletImportFormat format = WalletImportFormat.of(file);
+        Path resultsFile = file.resolveSibling(file.getFileName() + RESULTS_SUFFIX);
+        log.info("Provisioning the wallets of {} as {}, results in {}", file, format, resultsFile);
+        try (BufferedReader reader = Files.newBufferedReader(file);
+             BufferedWriter writer = Files.newBufferedWriter(resultsFile)) {
+            return walletProvisioningService.provision(new WalletImportReader(reader, format, objectMapper),
+                    result -> writeLine(writer, result));
+        }
+    }
+
+    private void writeLine(BufferedWriter writer, WalletProvisioningResult result) {
+        try {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
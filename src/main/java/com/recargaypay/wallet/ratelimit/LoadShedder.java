@@ -0,0 +1,124 @@
+package com.recargaypay.wallet.ratelimit;
+
+import com.recargaypay.wallet.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit of the movements in flight. Every interval the mean time requests waited for a pooled connection
+ * is compared with the target: above it the limit shrinks by a quarter, below it the limit grows by a twentieth.
+ * Once the limit is reached further movements are shed with a 503 instead of queueing on the connection pool,
+ * which keeps the latency of the admitted ones bounded.
+ */
+@Slf4j
+@Component
+public class LoadShedder {
+
+    public static final String LIMIT_GAUGE = "wallet.ratelimit.shed.limit";
+    public static final String IN_FLIGHT_GAUGE = "wallet.ratelimit.shed.in-flight";
+    public static final String SHED_FORMAT = "Service overloaded, %d movements in flight";
+    /**
+     * Hikari connection acquire timer, one per pool, bound by Spring Boot
+     */
+    public static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetAcquireNanos;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter shed;
+    private long lastAcquireCount;
+    private double lastAcquireNanos;
+
+    public LoadShedder(MeterRegistry meterRegistry,
+                       @Value("${wallet.ratelimit.enabled:true}") boolean enabled,
+                       @Value("${wallet.ratelimit.shed.initial-limit:200}") int initialLimit,
+                       @Value("${wallet.ratelimit.shed.min-limit:20}") int minLimit,
+                       @Value("${wallet.ratelimit.shed.max-limit:1000}") int maxLimit,
+                       @Value("${wallet.ratelimit.shed.target-acquire-time:20ms}") Duration targetAcquireTime) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetAcquireNanos = targetAcquireTime.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.limit = new AtomicInteger(Math.clamp(initialLimit, minLimit, maxLimit));
+        this.shed = meterRegistry.counter(RequestRateLimiter.REJECTED_COUNTER, "scope", "shed");
+        meterRegistry.gauge(LIMIT_GAUGE, limit);
+        meterRegistry.gauge(IN_FLIGHT_GAUGE, inFlight);
+    }
+
+    /**
+     * Admits a movement, which must be followed by {@link #release()} once it completes.
+     *
+     * @throws ServiceOverloadedException if the limit of movements in flight is reached
+     */
+    public void acquire() {
+        if (!enabled) {
+            return;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit.get()) {
+                shed.increment();
+                throw new ServiceOverloadedException(String.format(SHED_FORMAT, current));
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+    }
+
+    public void release() {
+        if (enabled) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Adapts the limit to the connection acquire time since the previous call. Intervals without any acquisition
+     * count as healthy, so the limit recovers once the load is gone.
+     */
+    @Scheduled(fixedDelayString = "${wallet.ratelimit.shed.interval-ms:500}")
+    public void adjust() {
+        if (!enabled) {
+            return;
+        }
+        long acquireCount = 0;
+        double acquireNanos = 0;
+        for (Timer timer : meterRegistry.find(ACQUIRE_TIMER).timers()) {
+            acquireCount += timer.count();
+            acquireNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        long intervalCount = acquireCount - lastAcquireCount;
+        double meanAcquireNanos = intervalCount > 0 ? (acquireNanos - lastAcquireNanos) / intervalCount : 0;
+        lastAcquireCount = acquireCount;
+        lastAcquireNanos = acquireNanos;
+
+        int current = limit.get();
+        int next = meanAcquireNanos > targetAcquireNanos
+                ? Math.max(minLimit, current - Math.max(1, current / 4))
+                : Math.min(maxLimit, current + Math.max(1, current / 20));
+        if (next != current) {
+            limit.set(next);
+            log.debug("Movement limit {} -> {}, mean connection acquire time {} ms", current, next, meanAcquireNanos / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.recargaypay.wallet.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Applies the client rate limit and the load shedding to the movement endpoints before their body is read.
+ * The per wallet limit needs the body, so {@code WalletController} applies it.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".admitted";
+
+    private final RequestRateLimiter requestRateLimiter;
+    private final LoadShedder loadShedder;
+    private final String clientHeader;
+
+    public RateLimitInterceptor(RequestRateLimiter requestRateLimiter, LoadShedder loadShedder, String clientHeader) {
+        this.requestRateLimiter = requestRateLimiter;
+        this.loadShedder = loadShedder;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        requestRateLimiter.acquireClient(clientId(request));
+        loadShedder.acquire();
+        request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED_ATTRIBUTE) != null) {
+            request.removeAttribute(ADMITTED_ATTRIBUTE);
+            loadShedder.release();
+        }
+    }
+
+    /**
+     * Keys the client bucket on an identity the client cannot pick: the authenticated principal, else the header set
+     * by the trusted proxy when one is configured, else the remote address. A client choosing its own key could spread
+     * its requests over as many buckets as it likes.
+     *
+     * @return the client identity
+     */
+    private String clientId(HttpServletRequest request) {
+        if (request.getUserPrincipal() != null) {
+            return request.getUserPrincipal().getName();
+        }
+        String clientId = clientHeader.isEmpty() ? null : request.getHeader(clientHeader);
+        return clientId == null || clientId.isBlank() ? request.getRemoteAddr() : clientId;
+    }
+}
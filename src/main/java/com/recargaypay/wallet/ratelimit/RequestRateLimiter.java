@@ -0,0 +1,95 @@
+package com.recargaypay.wallet.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client and per wallet, checked before a movement reaches the service so rejected requests never
+ * take a database connection. The buckets live in bounded Caffeine caches: a bucket idle for longer than it takes
+ * to refill is full anyway, so expiring it loses nothing, and a flood of distinct keys only evicts buckets.
+ */
+@Component
+public class RequestRateLimiter {
+
+    public static final String REJECTED_COUNTER = "wallet.ratelimit.rejected";
+    public static final String BUCKETS_GAUGE = "wallet.ratelimit.buckets";
+    public static final String CLIENT_LIMIT_FORMAT = "Too many requests from client %s";
+    public static final String WALLET_LIMIT_FORMAT = "Too many requests on wallet %s";
+
+    private final boolean enabled;
+    private final double clientRate;
+    private final int clientBurst;
+    private final double walletRate;
+    private final int walletBurst;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Cache<UUID, TokenBucket> walletBuckets;
+    private final Counter clientRejected;
+    private final Counter walletRejected;
+    private final LongSupplier clock;
+
+    @Autowired
+    public RequestRateLimiter(MeterRegistry meterRegistry,
+                              @Value("${wallet.ratelimit.enabled:true}") boolean enabled,
+                              @Value("${wallet.ratelimit.client.rate:1000}") double clientRate,
+                              @Value("${wallet.ratelimit.client.burst:2000}") int clientBurst,
+                              @Value("${wallet.ratelimit.wallet.rate:20}") double walletRate,
+                              @Value("${wallet.ratelimit.wallet.burst:40}") int walletBurst,
+                              @Value("${wallet.ratelimit.max-keys:100000}") long maxKeys,
+                              @Value("${wallet.ratelimit.idle-expiry:1m}") Duration idleExpiry) {
+        this(meterRegistry, enabled, clientRate, clientBurst, walletRate, walletBurst, maxKeys, idleExpiry, System::nanoTime);
+    }
+
+    public RequestRateLimiter(MeterRegistry meterRegistry, boolean enabled, double clientRate, int clientBurst,
+                              double walletRate, int walletBurst, long maxKeys, Duration idleExpiry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.walletRate = walletRate;
+        this.walletBurst = walletBurst;
+        this.clientBuckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleExpiry).build();
+        this.walletBuckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleExpiry).build();
+        this.clientRejected = meterRegistry.counter(REJECTED_COUNTER, "scope", "client");
+        this.walletRejected = meterRegistry.counter(REJECTED_COUNTER, "scope", "wallet");
+        this.clock = clock;
+        meterRegistry.gauge(BUCKETS_GAUGE, Tags.of("scope", "client"), clientBuckets, Cache::estimatedSize);
+        meterRegistry.gauge(BUCKETS_GAUGE, Tags.of("scope", "wallet"), walletBuckets, Cache::estimatedSize);
+    }
+
+    /**
+     * @param clientId client identifier, see {@code RateLimitInterceptor}
+     * @throws TooManyRequestsException if the client has no token left
+     */
+    public void acquireClient(String clientId) {
+        if (enabled && !tryAcquire(clientBuckets.get(clientId, id -> new TokenBucket(clientRate, clientBurst, clock.getAsLong())))) {
+            clientRejected.increment();
+            throw new TooManyRequestsException(String.format(CLIENT_LIMIT_FORMAT, clientId));
+        }
+    }
+
+    /**
+     * @param walletId wallet debited by the movement
+     * @throws TooManyRequestsException if the wallet has no token left
+     */
+    public void acquireWallet(UUID walletId) {
+        if (enabled && walletId != null
+                && !tryAcquire(walletBuckets.get(walletId, id -> new TokenBucket(walletRate, walletBurst, clock.getAsLong())))) {
+            walletRejected.increment();
+            throw new TooManyRequestsException(String.format(WALLET_LIMIT_FORMAT, walletId));
+        }
+    }
+
+    private boolean tryAcquire(TokenBucket bucket) {
+        return bucket.tryAcquire(clock.getAsLong());
+    }
+}
@@ -0,0 +1,56 @@
+package com.recargaypay.wallet.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as the generic cell rate algorithm: instead of a token count refilled over time
+ * it keeps the single instant at which the bucket will be full again, so acquiring a token is one compare-and-set.
+ */
+public final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * Time a token takes to refill
+     */
+    private final long refillNanos;
+    /**
+     * Time an empty bucket takes to refill completely
+     */
+    private final long capacityNanos;
+    /**
+     * Instant at which the bucket is full again, in {@link System#nanoTime()} units
+     */
+    private final AtomicLong fullAt;
+
+    /**
+     * @param ratePerSecond tokens refilled per second
+     * @param burst         capacity of the bucket, the bucket starts full
+     * @param now           current {@link System#nanoTime()}
+     */
+    public TokenBucket(double ratePerSecond, int burst, long now) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive, got " + ratePerSecond + " and " + burst);
+        }
+        this.refillNanos = Math.max(1, (long) (NANOS_PER_SECOND / ratePerSecond));
+        this.capacityNanos = refillNanos * burst;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * @param now current {@link System#nanoTime()}
+     * @return true if a token was taken, false if the bucket is empty
+     */
+    public boolean tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + refillNanos;
+            if (next - now > capacityNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.recargaypay.wallet.repository;
+
+import com.recargaypay.wallet.model.entity.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, UUID> {
+
+    Optional<BalanceCheckpoint> findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(UUID walletId, LocalDateTime timestamp);
+
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.checkpointAt = " +
+            "(SELECT MAX(c2.checkpointAt) FROM BalanceCheckpoint c2 WHERE c2.walletId = c.walletId)")
+    List<BalanceCheckpoint> findLatestPerWallet();
+}
@@ -0,0 +1,22 @@
+package com.recargaypay.wallet.repository;
+
+import com.recargaypay.wallet.model.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :timestamp")
+    int deleteExpiredBefore(@Param("timestamp") LocalDateTime timestamp);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key = :key AND k.expiresAt < :timestamp")
+    int deleteExpired(@Param("key") String key, @Param("timestamp") LocalDateTime timestamp);
+}
@@ -0,0 +1,28 @@
+package com.recargaypay.wallet.repository;
+
+import com.recargaypay.wallet.model.entity.LedgerSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LedgerSegmentRepository extends JpaRepository<LedgerSegment, UUID> {
+
+    /**
+     * Segments covering any time before the timestamp, oldest first.
+     */
+    List<LedgerSegment> findByPeriodStartLessThanOrderByPeriodStartAsc(LocalDateTime timestamp);
+
+    boolean existsByPeriodStart(LocalDateTime periodStart);
+
+    /**
+     * Exclusive end of the archived periods, every transaction before it lives in a segment file.
+     */
+    @Query("SELECT MAX(s.periodEnd) FROM LedgerSegment s")
+    Optional<LocalDateTime> findArchivedUntil();
+}
@@ -0,0 +1,14 @@
+package com.recargaypay.wallet.repository;
+
+import com.recargaypay.wallet.model.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByOrderByIdAsc(Limit limit);
+}
@@ -1,14 +1,80 @@
 package com.recargaypay.wallet.repository;
 
+import com.recargaypay.wallet.model.dto.LedgerSum;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
 import com.recargaypay.wallet.model.entity.Transaction;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
     List<Transaction> findByWalletIdAndTimestampBefore(UUID walletId, LocalDateTime timestamp);
-}
\ No newline at end of file
+
+    /**
+     * Sum and count of the transactions of a wallet before {@code to}, resolved by the
+     * {@code (wallet_id, timestamp, amount)} index without loading any entity.
+     */
+    @Query("SELECT new com.recargaypay.wallet.model.dto.LedgerSum(COALESCE(SUM(t.amount), 0), COUNT(t)) " +
+            "FROM Transaction t WHERE t.wallet.id = :walletId AND t.timestamp < :to")
+    LedgerSum sumByWalletIdBefore(@Param("walletId") UUID walletId, @Param("to") LocalDateTime to);
+
+    /**
+     * Sum and count of the transactions of a wallet in {@code [from, to)}.
+     */
+    @Query("SELECT new com.recargaypay.wallet.model.dto.LedgerSum(COALESCE(SUM(t.amount), 0), COUNT(t)) " +
+            "FROM Transaction t WHERE t.wallet.id = :walletId AND t.timestamp >= :from AND t.timestamp < :to")
+    LedgerSum sumByWalletIdBetween(@Param("walletId") UUID walletId, @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    /**
+     * Wallets whose transactions not yet covered by a checkpoint (up to the cutoff) are either
+     * at least {@code minTransactions} or started before {@code staleBefore}.
+     */
+    @Query("SELECT t.wallet.id FROM Transaction t WHERE t.timestamp < :cutoff AND (" +
+            "NOT EXISTS (SELECT c FROM BalanceCheckpoint c WHERE c.walletId = t.wallet.id) OR " +
+            "t.timestamp >= (SELECT MAX(c.checkpointAt) FROM BalanceCheckpoint c WHERE c.walletId = t.wallet.id)) " +
+            "GROUP BY t.wallet.id HAVING COUNT(t) >= :minTransactions OR MIN(t.timestamp) < :staleBefore")
+    List<UUID> findWalletIdsPendingCheckpoint(@Param("cutoff") LocalDateTime cutoff,
+                                              @Param("minTransactions") long minTransactions,
+                                              @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Transactions as unmanaged projections read through a JDBC cursor, so the memory used does not grow with the ledger.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.recargaypay.wallet.model.dto.TransactionResponse(t.id, t.wallet.id, t.type, t.amount, t.timestamp) " +
+            "FROM Transaction t WHERE t.wallet.id = :walletId AND (:type IS NULL OR t.type = :type) " +
+            "AND (:from IS NULL OR t.timestamp >= :from) AND (:to IS NULL OR t.timestamp < :to) " +
+            "ORDER BY t.timestamp, t.id")
+    Stream<TransactionResponse> streamHistory(@Param("walletId") UUID walletId, @Param("type") TransactionType type,
+                                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Every transaction of {@code [from, to)} as unmanaged projections read through a JDBC cursor, in timestamp order.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.recargaypay.wallet.model.dto.TransactionResponse(t.id, t.wallet.id, t.type, t.amount, t.timestamp) " +
+            "FROM Transaction t WHERE t.timestamp >= :from AND t.timestamp < :to ORDER BY t.timestamp, t.id")
+    Stream<TransactionResponse> streamPeriod(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.timestamp >= :from AND t.timestamp < :to")
+    int deletePeriod(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(t.timestamp) FROM Transaction t")
+    Optional<LocalDateTime> findOldestTimestamp();
+}
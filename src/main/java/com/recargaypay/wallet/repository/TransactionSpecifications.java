@@ -0,0 +1,32 @@
+package com.recargaypay.wallet.repository;
+
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.entity.Transaction;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> matching(TransactionHistoryFilter filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.equal(root.get("wallet").get("id"), filter.getWalletId()));
+            if (filter.getType() != null) {
+                predicates.add(builder.equal(root.get("type"), filter.getType()));
+            }
+            if (filter.getFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("timestamp"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(builder.lessThan(root.get("timestamp"), filter.getTo()));
+            }
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
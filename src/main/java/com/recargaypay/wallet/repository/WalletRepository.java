@@ -1,12 +1,69 @@
 package com.recargaypay.wallet.repository;
 
+import com.recargaypay.wallet.model.dto.WalletBalanceView;
 import com.recargaypay.wallet.model.entity.Wallet;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, UUID> {
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id = :id")
+    Optional<Wallet> findByIdForUpdate(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :ids ORDER BY w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    List<Wallet> findByShardCountGreaterThan(int shardCount);
+
+    /**
+     * Reads only the balance columns of the wallet, without loading the entity.
+     */
+    @Query("SELECT new com.recargaypay.wallet.model.dto.WalletBalanceView(w.id, w.balance, w.version, w.shardCount) " +
+            "FROM Wallet w WHERE w.id = :id")
+    Optional<WalletBalanceView> findBalanceById(@Param("id") UUID id);
+
+    /**
+     * Reads only the balance columns of the wallets, unknown IDs are left out.
+     */
+    @Query("SELECT new com.recargaypay.wallet.model.dto.WalletBalanceView(w.id, w.balance, w.version, w.shardCount) " +
+            "FROM Wallet w WHERE w.id IN :ids")
+    List<WalletBalanceView> findBalancesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * IDs of every wallet, read through a JDBC cursor. Must run inside a transaction and be closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT w.id FROM Wallet w")
+    Stream<UUID> streamAllIds();
+
+    /**
+     * IDs of the wallets created at or after the given time, read through a JDBC cursor. Must run inside a transaction
+     * and be closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT w.id FROM Wallet w WHERE w.createdAt >= :since")
+    Stream<UUID> streamIdsCreatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * @return creation time of the newest wallet, null if there is none
+     */
+    @Query("SELECT MAX(w.createdAt) FROM Wallet w")
+    LocalDateTime findLatestCreatedAt();
 }
@@ -0,0 +1,36 @@
+package com.recargaypay.wallet.repository;
+
+import com.recargaypay.wallet.model.entity.WalletShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface WalletShardRepository extends JpaRepository<WalletShard, UUID> {
+
+    List<WalletShard> findByWalletIdOrderByShardIndex(UUID walletId);
+
+    List<WalletShard> findByWalletIdIn(Collection<UUID> walletIds);
+
+    Optional<WalletShard> findByWalletIdAndShardIndex(UUID walletId, int shardIndex);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletShard s WHERE s.walletId = :walletId ORDER BY s.shardIndex")
+    List<WalletShard> findByWalletIdForUpdate(@Param("walletId") UUID walletId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletShard s WHERE s.walletId = :walletId AND s.shardIndex = :shardIndex")
+    Optional<WalletShard> findByWalletIdAndShardIndexForUpdate(@Param("walletId") UUID walletId, @Param("shardIndex") int shardIndex);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM WalletShard s WHERE s.walletId = :walletId")
+    BigDecimal sumBalanceByWalletId(@Param("walletId") UUID walletId);
+}
@@ -0,0 +1,55 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.entity.BalanceCheckpoint;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BalanceCheckpointService {
+    /**
+     * Resolves the balance from the nearest earlier checkpoint plus the transactions recorded after it.
+     *
+     * @param walletId  UUID
+     * @param timestamp Timestamp
+     * @return the sum of the wallet transactions before the timestamp
+     */
+    BigDecimal getBalanceAt(UUID walletId, LocalDateTime timestamp);
+
+    /**
+     * Full ledger scan, used to validate checkpoints.
+     *
+     * @param walletId  UUID
+     * @param timestamp Timestamp
+     * @return the sum of the wallet transactions before the timestamp
+     */
+    BigDecimal recomputeBalanceAt(UUID walletId, LocalDateTime timestamp);
+
+    /**
+     * @param cutoff          transactions at or after the cutoff are not taken into account
+     * @param minTransactions pending transactions needed to take a new checkpoint
+     * @param staleBefore     wallets with pending transactions older than this are checkpointed regardless of the count
+     * @return wallets that need a new checkpoint
+     */
+    List<UUID> findWalletsPendingCheckpoint(LocalDateTime cutoff, long minTransactions, LocalDateTime staleBefore);
+
+    /**
+     * Writes a new checkpoint covering every transaction of the wallet before the cutoff.
+     *
+     * @param walletId UUID
+     * @param cutoff   Timestamp
+     * @return the created checkpoint, empty if there were no transactions since the previous one
+     */
+    Optional<BalanceCheckpoint> checkpoint(UUID walletId, LocalDateTime cutoff);
+
+    /**
+     * Compares the latest checkpoint of a random sample of wallets against a full recompute of their ledger, each
+     * recompute scans the whole history of the wallet.
+     *
+     * @param sampleSize number of wallets to check
+     * @return wallets whose latest checkpoint does not match the ledger
+     */
+    List<UUID> verifyLatestCheckpoints(int sampleSize);
+}
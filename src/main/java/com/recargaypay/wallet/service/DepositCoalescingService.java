@@ -0,0 +1,18 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface DepositCoalescingService {
+    /**
+     * Deposits into a wallet, grouped with the other deposits to the same wallet arriving within the coalescing window
+     * so they are all applied in a single transaction. Behaves as a plain deposit when coalescing is disabled.
+     *
+     * @param walletId UUID
+     * @param amount   to deposit
+     * @return deposit transaction data, with the balance right after this deposit
+     */
+    WalletTransactionResponse deposit(UUID walletId, BigDecimal amount);
+}
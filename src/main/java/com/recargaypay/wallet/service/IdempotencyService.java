@@ -0,0 +1,26 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    /**
+     * Runs the movement once per idempotency key. A repeated key gets the stored response back without running it again,
+     * and a duplicate arriving while the first one is running waits for its result.
+     *
+     * @param key       Idempotency-Key header, the movement always runs when it is null
+     * @param operation name of the movement
+     * @param request   request body, a key cannot be reused for a different request
+     * @param movement  wallet movement to run
+     * @return the response of the first execution for the key
+     */
+    WalletTransactionResponse execute(String key, String operation, Object request, Supplier<WalletTransactionResponse> movement);
+
+    /**
+     * Deletes the expired idempotency keys.
+     *
+     * @return number of deleted keys
+     */
+    int purgeExpired();
+}
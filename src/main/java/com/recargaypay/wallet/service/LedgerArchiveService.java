@@ -0,0 +1,53 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.dto.LedgerSum;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.entity.LedgerSegment;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface LedgerArchiveService {
+    /**
+     * @return exclusive end of the archived months, empty if nothing was archived yet
+     */
+    Optional<LocalDateTime> archivedUntil();
+
+    /**
+     * Sums the segment summaries of the months archived before the timestamp, and the records of the wallet
+     * in the archived month containing it, if any.
+     *
+     * @param walletId  UUID
+     * @param timestamp Timestamp
+     * @return sum and count of the archived transactions of the wallet before the timestamp
+     */
+    LedgerSum sumArchivedBefore(UUID walletId, LocalDateTime timestamp);
+
+    /**
+     * Inflates the records of the archived months overlapping the range, skipping the months whose footer has no
+     * transaction of the wallet.
+     *
+     * @param walletId UUID
+     * @param from     inclusive lower bound of the transaction timestamp, unbounded if null
+     * @param to       exclusive upper bound of the transaction timestamp, unbounded if null
+     * @param consumer receives the archived transactions of the wallet in the range, in timestamp order
+     */
+    void streamArchived(UUID walletId, LocalDateTime from, LocalDateTime to, Consumer<TransactionResponse> consumer);
+
+    /**
+     * @return month of the oldest transaction still in {@code TRANSACTION_RPAY}, empty if there are none
+     */
+    Optional<YearMonth> oldestLiveMonth();
+
+    /**
+     * Writes the transactions of a closed month to a segment file and deletes them from {@code TRANSACTION_RPAY},
+     * in a single transaction.
+     *
+     * @param month closed month
+     * @return the created segment, empty if the month was already archived
+     */
+    Optional<LedgerSegment> archive(YearMonth month);
+}
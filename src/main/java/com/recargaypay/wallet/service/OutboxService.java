@@ -0,0 +1,22 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.entity.Transaction;
+import com.recargaypay.wallet.model.money.Money;
+
+public interface OutboxService {
+    /**
+     * Writes the event of a wallet movement to the outbox, in the transaction of the movement.
+     *
+     * @param transaction transaction recorded for the movement
+     * @param balance     balance of the wallet once the movement commits
+     */
+    void append(Transaction transaction, Money balance);
+
+    /**
+     * Publishes the pending events to the sink in batches, oldest first, and deletes them once the sink accepts them.
+     * Does nothing while backing off after a sink failure.
+     *
+     * @return number of published events
+     */
+    int relay();
+}
@@ -0,0 +1,28 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.TransactionPageResponse;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+
+import java.util.function.Consumer;
+
+public interface TransactionHistoryService {
+    /**
+     * Keyset paginated transactions of a wallet, ordered by timestamp and id. Only the live months are listed.
+     *
+     * @param filter wallet and optional type and time range
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param limit  page size
+     * @return the page and the cursor of the next one
+     */
+    TransactionPageResponse getTransactions(TransactionHistoryFilter filter, String cursor, int limit);
+
+    /**
+     * Streams every transaction matching the filter, archived months included, ordered by timestamp and id, without
+     * loading them all in memory.
+     *
+     * @param filter   wallet and optional type and time range
+     * @param consumer receives every transaction
+     */
+    void streamTransactions(TransactionHistoryFilter filter, Consumer<TransactionResponse> consumer);
+}
@@ -0,0 +1,31 @@
+package com.recargaypay.wallet.service;
+
+import com.recargaypay.wallet.model.dto.WalletProvisioningResult;
+import com.recargaypay.wallet.model.dto.WalletProvisioningRow;
+import com.recargaypay.wallet.model.dto.WalletProvisioningSummary;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface WalletProvisioningService {
+
+    /**
+     * Create an empty wallet for every user, a chunk at a time. The users of a chunk are validated with a single
+     * query and its wallets inserted with a single JDBC batch, in their own transaction, so a failed chunk never
+     * undoes the ones before it. Rows with an unknown user or a parse error are reported instead of failing their chunk.
+     *
+     * @param rows     users to provision, only a chunk of them is read at a time
+     * @param consumer receives the result of every row, in order, once its chunk is committed
+     * @return number of rows, created wallets and failed rows
+     */
+    WalletProvisioningSummary provision(Iterator<WalletProvisioningRow> rows, Consumer<WalletProvisioningResult> consumer);
+
+    /**
+     * @param userUids users to provision, up to {@code wallet.provisioning.max-request-size}
+     * @param consumer receives the result of every user, in order
+     * @return number of rows, created wallets and failed rows
+     */
+    WalletProvisioningSummary provision(List<UUID> userUids, Consumer<WalletProvisioningResult> consumer);
+}
@@ -1,12 +1,18 @@
 package com.recargaypay.wallet.service;
 
 import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.WalletBatchMode;
+import com.recargaypay.wallet.model.dto.WalletBatchMovement;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletBatchResponse;
 import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
 import jakarta.transaction.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface WalletService {
     /**
@@ -22,6 +28,15 @@ public interface WalletService {
      */
     BigDecimal getBalance(UUID walletId);
 
+    /**
+     * Resolve the current balance of many wallets, a chunk of them at a time.
+     * Unknown wallets are reported in their own response instead of failing the whole lookup.
+     *
+     * @param walletIds UUIDs of the wallets
+     * @param consumer  receives the balance of every wallet, in the order of the IDs
+     */
+    void streamBalances(List<UUID> walletIds, Consumer<WalletBalanceResponse> consumer);
+
     /**
      * @param walletId  UUID
      * @param timestamp Timestamp
@@ -36,6 +51,16 @@ public interface WalletService {
      */
     WalletTransactionResponse deposit(UUID walletId, BigDecimal amount);
 
+    /**
+     * Deposit several amounts into the same wallet in a single transaction: one transaction row per amount
+     * and a single balance update.
+     *
+     * @param walletId UUID
+     * @param amounts  amounts to deposit, in order
+     * @return the transaction data of every deposit, each one with the balance right after it
+     */
+    List<WalletTransactionResponse> depositAll(UUID walletId, List<BigDecimal> amounts);
+
     /**
      * @param walletId UUID
      * @param amount to withdraw
@@ -52,4 +77,22 @@ public interface WalletService {
      * @return WalletTransactionResponse containing the updated details of the destination wallet, including the updated balance and the associated user
      */
     WalletTransactionResponse transfer(UUID sourceWalletId, UUID destinationWalletId, BigDecimal amount);
+
+    /**
+     * Apply a list of deposits, withdrawals and transfers in a single transaction.
+     *
+     * @param movements movements to apply, in order
+     * @param mode whether a failed movement aborts the whole batch or is just skipped
+     * @return the result of every movement and whether the batch was committed
+     */
+    WalletBatchResponse batch(List<WalletBatchMovement> movements, WalletBatchMode mode);
+
+    /**
+     * Split a hot wallet into shards, so concurrent credits to it lock different rows.
+     *
+     * @param walletId UUID
+     * @param shardCount number of shards, it can only grow
+     * @return WalletTransactionResponse containing the wallet details
+     */
+    WalletTransactionResponse enableSharding(UUID walletId, int shardCount);
 }
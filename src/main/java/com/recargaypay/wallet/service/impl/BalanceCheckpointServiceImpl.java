@@ -0,0 +1,114 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.recargaypay.wallet.model.dto.LedgerSum;
+import com.recargaypay.wallet.model.entity.BalanceCheckpoint;
+import com.recargaypay.wallet.repository.BalanceCheckpointRepository;
+import com.recargaypay.wallet.repository.TransactionRepository;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import com.recargaypay.wallet.service.LedgerArchiveService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class BalanceCheckpointServiceImpl implements BalanceCheckpointService {
+
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerArchiveService ledgerArchiveService;
+
+    public BalanceCheckpointServiceImpl(BalanceCheckpointRepository balanceCheckpointRepository, TransactionRepository transactionRepository,
+                                        LedgerArchiveService ledgerArchiveService) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerArchiveService = ledgerArchiveService;
+    }
+
+    @Override
+    public BigDecimal getBalanceAt(UUID walletId, LocalDateTime timestamp) {
+        Optional<LocalDateTime> archivedUntil = ledgerArchiveService.archivedUntil();
+        return balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, timestamp)
+                .filter(checkpoint -> isAfterArchive(checkpoint, archivedUntil))
+                .map(checkpoint -> checkpoint.getBalance().add(transactionRepository
+                        .sumByWalletIdBetween(walletId, checkpoint.getCheckpointAt(), timestamp).getAmount()))
+                .orElseGet(() -> recomputeBalanceAt(walletId, timestamp));
+    }
+
+    @Override
+    public BigDecimal recomputeBalanceAt(UUID walletId, LocalDateTime timestamp) {
+        BigDecimal live = transactionRepository.sumByWalletIdBefore(walletId, timestamp).getAmount();
+        if (ledgerArchiveService.archivedUntil().isEmpty()) {
+            return live;
+        }
+        return live.add(ledgerArchiveService.sumArchivedBefore(walletId, timestamp).getAmount());
+    }
+
+    @Override
+    public List<UUID> findWalletsPendingCheckpoint(LocalDateTime cutoff, long minTransactions, LocalDateTime staleBefore) {
+        return transactionRepository.findWalletIdsPendingCheckpoint(cutoff, minTransactions, staleBefore);
+    }
+
+    @Override
+    @Transactional
+    public Optional<BalanceCheckpoint> checkpoint(UUID walletId, LocalDateTime cutoff) {
+        Optional<LocalDateTime> archivedUntil = ledgerArchiveService.archivedUntil();
+        Optional<BalanceCheckpoint> previous = balanceCheckpointRepository
+                .findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, cutoff)
+                .filter(checkpoint -> isAfterArchive(checkpoint, archivedUntil));
+
+        // Only the transactions after the previous checkpoint are aggregated
+        LedgerSum delta = previous
+                .map(checkpoint -> transactionRepository.sumByWalletIdBetween(walletId, checkpoint.getCheckpointAt(), cutoff))
+                .orElseGet(() -> transactionRepository.sumByWalletIdBefore(walletId, cutoff));
+        if (delta.getTransactionCount() == 0) {
+            return Optional.empty();
+        }
+
+        // Without a previous checkpoint the archived months are the base, taken from the segment summaries
+        LedgerSum base = previous
+                .map(checkpoint -> new LedgerSum(checkpoint.getBalance(), checkpoint.getTransactionCount()))
+                .or(() -> archivedUntil.map(until -> ledgerArchiveService.sumArchivedBefore(walletId, until)))
+                .orElseGet(() -> new LedgerSum(BigDecimal.ZERO, 0L));
+
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setWalletId(walletId);
+        checkpoint.setCheckpointAt(cutoff);
+        checkpoint.setBalance(base.getAmount().add(delta.getAmount()));
+        checkpoint.setTransactionCount(base.getTransactionCount() + delta.getTransactionCount());
+
+        return Optional.of(balanceCheckpointRepository.save(checkpoint));
+    }
+
+    @Override
+    public List<UUID> verifyLatestCheckpoints(int sampleSize) {
+        List<BalanceCheckpoint> checkpoints = new ArrayList<>(balanceCheckpointRepository.findLatestPerWallet());
+        Collections.shuffle(checkpoints);
+        List<UUID> mismatches = new ArrayList<>();
+        for (BalanceCheckpoint checkpoint : checkpoints.subList(0, Math.min(sampleSize, checkpoints.size()))) {
+            BigDecimal recomputed = recomputeBalanceAt(checkpoint.getWalletId(), checkpoint.getCheckpointAt());
+            if (recomputed.compareTo(checkpoint.getBalance()) != 0) {
+                log.warn("Checkpoint {} of wallet {} holds {} but the ledger sums {}",
+                        checkpoint.getId(), checkpoint.getWalletId(), checkpoint.getBalance(), recomputed);
+                mismatches.add(checkpoint.getWalletId());
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * The transactions after a checkpoint are summed from {@code TRANSACTION_RPAY}, which no longer holds the archived
+     * months, so a checkpoint taken before the end of the archive cannot be used.
+     */
+    private static boolean isAfterArchive(BalanceCheckpoint checkpoint, Optional<LocalDateTime> archivedUntil) {
+        return archivedUntil.map(until -> !checkpoint.getCheckpointAt().isBefore(until)).orElse(true);
+    }
+}
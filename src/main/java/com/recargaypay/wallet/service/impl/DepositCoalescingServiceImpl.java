@@ -0,0 +1,121 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.service.DepositCoalescingService;
+import com.recargaypay.wallet.service.WalletService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class DepositCoalescingServiceImpl implements DepositCoalescingService {
+
+    private final WalletService walletService;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+
+    private final ConcurrentHashMap<UUID, PendingBatch> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("deposit-coalescer").daemon().factory());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public DepositCoalescingServiceImpl(WalletService walletService,
+                                        @Value("${wallet.coalescing.enabled:false}") boolean enabled,
+                                        @Value("${wallet.coalescing.window-micros:2000}") long windowMicros,
+                                        @Value("${wallet.coalescing.max-batch-size:100}") int maxBatchSize) {
+        this.walletService = walletService;
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public WalletTransactionResponse deposit(UUID walletId, BigDecimal amount) {
+        if (!enabled) {
+            return walletService.deposit(walletId, amount);
+        }
+
+        // Rejected in the caller's thread, a batch can then only fail for reasons shared by all of its deposits
+        Money money = WalletServiceImpl.toMoney(amount);
+        PendingDeposit deposit = new PendingDeposit(money.toBigDecimal(), new CompletableFuture<>());
+        PendingBatch[] full = new PendingBatch[1];
+        pending.compute(walletId, (id, batch) -> {
+            if (batch == null) {
+                PendingBatch created = new PendingBatch();
+                timer.schedule(() -> flush(id, created), windowMicros, TimeUnit.MICROSECONDS);
+                batch = created;
+            }
+            batch.deposits.add(deposit);
+            if (batch.deposits.size() >= maxBatchSize) {
+                // A full batch leaves the map right away, its timer then finds nothing to flush
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            executor.execute(() -> apply(walletId, full[0]));
+        }
+
+        try {
+            return deposit.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+        executor.shutdown();
+    }
+
+    private void flush(UUID walletId, PendingBatch batch) {
+        // Only removed, and so applied, once: either here or when it got full
+        if (pending.remove(walletId, batch)) {
+            executor.execute(() -> apply(walletId, batch));
+        }
+    }
+
+    private void apply(UUID walletId, PendingBatch batch) {
+        List<PendingDeposit> deposits = batch.deposits;
+        try {
+            List<WalletTransactionResponse> responses = walletService.depositAll(walletId,
+                    deposits.stream().map(PendingDeposit::amount).toList());
+            for (int index = 0; index < deposits.size(); index++) {
+                deposits.get(index).result().complete(responses.get(index));
+            }
+        } catch (RuntimeException e) {
+            // Amounts are validated before joining the batch, what is left is a failure of the wallet, shared by all of them
+            deposits.forEach(deposit -> deposit.result().completeExceptionally(e));
+        }
+    }
+
+    private record PendingDeposit(BigDecimal amount, CompletableFuture<WalletTransactionResponse> result) {
+    }
+
+    /**
+     * Deposits collected for a wallet, only modified inside {@code pending.compute} until the batch leaves the map.
+     * Compared by identity, so a flushed batch is never mistaken for the next one of the same wallet.
+     */
+    private static final class PendingBatch {
+        private final List<PendingDeposit> deposits = new ArrayList<>();
+    }
+}
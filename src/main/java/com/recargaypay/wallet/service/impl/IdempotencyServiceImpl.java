@@ -0,0 +1,144 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.config.RetryOnOptimisticLock;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.IdempotencyKey;
+import com.recargaypay.wallet.repository.IdempotencyKeyRepository;
+import com.recargaypay.wallet.service.IdempotencyService;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    public static final String KEY_REUSED_FORMAT = "Idempotency key %s was already used for a different request";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, IdempotencyKey> cache;
+    private final Lock[] locks;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository, PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${wallet.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${wallet.idempotency.cache-size:10000}") long cacheSize,
+                                  @Value("${wallet.idempotency.lock-stripes:256}") int lockStripes) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.locks = new Lock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    @RetryOnOptimisticLock
+    public WalletTransactionResponse execute(String key, String operation, Object request, Supplier<WalletTransactionResponse> movement) {
+        if (key == null) {
+            return movement.get();
+        }
+        String requestHash = UUID.nameUUIDFromBytes((operation + request).getBytes(StandardCharsets.UTF_8)).toString();
+
+        IdempotencyKey cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        // Duplicates of the same key land on the same stripe, so they wait for the first execution to finish
+        Lock lock = locks[Math.floorMod(key.hashCode(), locks.length)];
+        lock.lock();
+        try {
+            Optional<IdempotencyKey> stored = Optional.ofNullable(cache.getIfPresent(key)).or(() -> findValid(key));
+            if (stored.isPresent()) {
+                cache.put(key, stored.get());
+                return replay(stored.get(), requestHash);
+            }
+
+            try {
+                // The key is stored in the same transaction as the movement, so either both are committed or none.
+                // It is inserted and flushed, a key stored meanwhile by another instance fails here instead of being overwritten
+                IdempotencyKey idempotencyKey = transactionTemplate.execute(status -> {
+                    idempotencyKeyRepository.deleteExpired(key, LocalDateTime.now());
+                    return idempotencyKeyRepository.saveAndFlush(newIdempotencyKey(key, operation, requestHash, movement.get()));
+                });
+                cache.put(key, idempotencyKey);
+                return deserialize(idempotencyKey);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored the key first, its movement is the one that was applied
+                IdempotencyKey winner = findValid(key).orElseThrow(() -> e);
+                cache.put(key, winner);
+                return replay(winner, requestHash);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired() {
+        return idempotencyKeyRepository.deleteExpiredBefore(LocalDateTime.now());
+    }
+
+    private Optional<IdempotencyKey> findValid(String key) {
+        return idempotencyKeyRepository.findById(key)
+                .filter(idempotencyKey -> idempotencyKey.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    private WalletTransactionResponse replay(IdempotencyKey idempotencyKey, String requestHash) {
+        if (!idempotencyKey.getRequestHash().equals(requestHash)) {
+            throw new InvalidRequestException(String.format(KEY_REUSED_FORMAT, idempotencyKey.getKey()));
+        }
+        return deserialize(idempotencyKey);
+    }
+
+    private IdempotencyKey newIdempotencyKey(String key, String operation, String requestHash, WalletTransactionResponse response) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyKey idempotencyKey = new IdempotencyKey();
+        idempotencyKey.setKey(key);
+        idempotencyKey.setOperation(operation);
+        idempotencyKey.setRequestHash(requestHash);
+        idempotencyKey.setCreatedAt(now);
+        idempotencyKey.setExpiresAt(now.plus(ttl));
+        try {
+            idempotencyKey.setResponse(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return idempotencyKey;
+    }
+
+    private WalletTransactionResponse deserialize(IdempotencyKey idempotencyKey) {
+        try {
+            return objectMapper.readValue(idempotencyKey.getResponse(), WalletTransactionResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
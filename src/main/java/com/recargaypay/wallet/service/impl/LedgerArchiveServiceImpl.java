@@ -0,0 +1,153 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.archive.LedgerSegmentFile;
+import com.recargaypay.wallet.archive.LedgerSegmentFile.Footer;
+import com.recargaypay.wallet.archive.LedgerSegmentFile.WalletSummary;
+import com.recargaypay.wallet.model.dto.LedgerSum;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.entity.LedgerSegment;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.repository.LedgerSegmentRepository;
+import com.recargaypay.wallet.repository.TransactionRepository;
+import com.recargaypay.wallet.service.LedgerArchiveService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class LedgerArchiveServiceImpl implements LedgerArchiveService {
+
+    public static final String SEGMENT_FILE_FORMAT = "ledger-%s.seg";
+
+    private final LedgerSegmentRepository ledgerSegmentRepository;
+    private final TransactionRepository transactionRepository;
+    private final Path directory;
+    private final Cache<String, Footer> footers;
+
+    public LedgerArchiveServiceImpl(LedgerSegmentRepository ledgerSegmentRepository, TransactionRepository transactionRepository,
+                                    @Value("${wallet.archive.dir:archive}") Path directory,
+                                    @Value("${wallet.archive.cached-segments:24}") long cachedSegments) {
+        this.ledgerSegmentRepository = ledgerSegmentRepository;
+        this.transactionRepository = transactionRepository;
+        this.directory = directory;
+        this.footers = Caffeine.newBuilder().maximumSize(cachedSegments).build();
+    }
+
+    @Override
+    public Optional<LocalDateTime> archivedUntil() {
+        return ledgerSegmentRepository.findArchivedUntil();
+    }
+
+    @Override
+    public LedgerSum sumArchivedBefore(UUID walletId, LocalDateTime timestamp) {
+        long sum = 0;
+        long count = 0;
+        for (LedgerSegment segment : ledgerSegmentRepository.findByPeriodStartLessThanOrderByPeriodStartAsc(timestamp)) {
+            WalletSummary summary = segment.getPeriodEnd().isAfter(timestamp)
+                    ? scan(segment, walletId, timestamp)
+                    : footer(segment).summaries().get(walletId);
+            if (summary != null) {
+                sum = Math.addExact(sum, summary.sumMinorUnits());
+                count += summary.transactionCount();
+            }
+        }
+        return new LedgerSum(Money.ofMinor(sum).toBigDecimal(), count);
+    }
+
+    @Override
+    public void streamArchived(UUID walletId, LocalDateTime from, LocalDateTime to, Consumer<TransactionResponse> consumer) {
+        Optional<LocalDateTime> archivedUntil = archivedUntil();
+        if (archivedUntil.isEmpty() || (from != null && !from.isBefore(archivedUntil.get()))) {
+            return;
+        }
+        LocalDateTime end = to == null || to.isAfter(archivedUntil.get()) ? archivedUntil.get() : to;
+        for (LedgerSegment segment : ledgerSegmentRepository.findByPeriodStartLessThanOrderByPeriodStartAsc(end)) {
+            if ((from != null && !segment.getPeriodEnd().isAfter(from)) || !footer(segment).summaries().containsKey(walletId)) {
+                continue;
+            }
+            try {
+                LedgerSegmentFile.read(directory.resolve(segment.getFileName()), walletId,
+                        from == null ? segment.getPeriodStart() : from, end, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public Optional<YearMonth> oldestLiveMonth() {
+        return transactionRepository.findOldestTimestamp().map(YearMonth::from);
+    }
+
+    @Override
+    @Transactional
+    public Optional<LedgerSegment> archive(YearMonth month) {
+        LocalDateTime periodStart = month.atDay(1).atStartOfDay();
+        LocalDateTime periodEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+        if (ledgerSegmentRepository.existsByPeriodStart(periodStart)) {
+            return Optional.empty();
+        }
+
+        String fileName = String.format(SEGMENT_FILE_FORMAT, month);
+        Footer footer;
+        try (Stream<TransactionResponse> transactions = transactionRepository.streamPeriod(periodStart, periodEnd)) {
+            Files.createDirectories(directory);
+            footer = LedgerSegmentFile.write(directory.resolve(fileName), periodStart, periodEnd, transactions.iterator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // A failed run leaves the rows in place and its file is overwritten by the next one
+        int deleted = transactionRepository.deletePeriod(periodStart, periodEnd);
+        if (deleted != footer.recordCount()) {
+            throw new IllegalStateException(String.format("Archived %d transactions of %s but deleted %d",
+                    footer.recordCount(), month, deleted));
+        }
+
+        LedgerSegment segment = new LedgerSegment();
+        segment.setPeriodStart(periodStart);
+        segment.setPeriodEnd(periodEnd);
+        segment.setFileName(fileName);
+        segment.setTransactionCount(footer.recordCount());
+        segment.setWalletCount(footer.summaries().size());
+        segment.setCreatedAt(LocalDateTime.now());
+        LedgerSegment saved = ledgerSegmentRepository.save(segment);
+        footers.put(fileName, footer);
+
+        log.info("Archived {} transactions of {} wallets of {} to {}", footer.recordCount(), footer.summaries().size(), month, fileName);
+        return Optional.of(saved);
+    }
+
+    private Footer footer(LedgerSegment segment) {
+        return footers.get(segment.getFileName(), fileName -> {
+            try {
+                return LedgerSegmentFile.readFooter(directory.resolve(fileName));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private WalletSummary scan(LedgerSegment segment, UUID walletId, LocalDateTime timestamp) {
+        try {
+            return LedgerSegmentFile.scan(directory.resolve(segment.getFileName()), walletId, timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.exception.UserNotFoundException;
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import com.recargaypay.wallet.ledger.LedgerEngine;
+import com.recargaypay.wallet.ledger.LedgerResult;
+import com.recargaypay.wallet.mapper.WalletResponseMapper;
+import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletBatchItemResponse;
+import com.recargaypay.wallet.model.dto.WalletBatchMode;
+import com.recargaypay.wallet.model.dto.WalletBatchMovement;
+import com.recargaypay.wallet.model.dto.WalletBatchResponse;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.User;
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.repository.UserRepository;
+import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import com.recargaypay.wallet.service.WalletService;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.USER_NOT_FOUND_FORMAT;
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.WALLET_NOT_FOUND_FORMAT;
+
+/**
+ * {@link WalletService} backed by the in-memory {@link LedgerEngine}, enabled with {@code wallet.engine=LEDGER}.
+ * Movements are acknowledged once written to the ledger journal, {@code TRANSACTION_RPAY} and the wallet
+ * balances of the database follow asynchronously, so historical balances may lag behind the latest movements.
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.engine", havingValue = "LEDGER")
+public class LedgerWalletServiceImpl implements WalletService {
+
+    public static final String INVALID_AMOUNT_FORMAT = "Invalid amount: %s, it must be positive with at most 2 decimals";
+    public static final String UNSUPPORTED_FORMAT = "%s is not supported by the ledger engine";
+
+    private final LedgerEngine ledgerEngine;
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final WalletExistenceFilter walletExistenceFilter;
+
+    public LedgerWalletServiceImpl(LedgerEngine ledgerEngine, UserRepository userRepository, WalletRepository walletRepository,
+                                   BalanceCheckpointService balanceCheckpointService, WalletExistenceFilter walletExistenceFilter) {
+        this.ledgerEngine = ledgerEngine;
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.walletExistenceFilter = walletExistenceFilter;
+    }
+
+    @Override
+    @Transactional
+    public CreateWalletResponse createWallet(UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(String.format(USER_NOT_FOUND_FORMAT, userId)));
+
+        Wallet wallet = new Wallet();
+        wallet.setUser(user);
+        wallet.setBalance(Money.ZERO);
+        Wallet savedWallet = walletRepository.saveAndFlush(wallet);
+        // The ledger keeps its own wallets, the filter still serves the transaction history
+        walletExistenceFilter.add(savedWallet.getId());
+
+        // Opened before the commit so the wallet can be used as soon as it is returned,
+        // a rolled back wallet is left in the ledger with no balance and no way to reach it
+        await(ledgerEngine.open(savedWallet.getId(), userId));
+
+        return WalletResponseMapper.toWalletDto(savedWallet);
+    }
+
+    @Override
+    public BigDecimal getBalance(UUID walletId) {
+        return toAmount(ledgerEngine.balance(walletId));
+    }
+
+    /**
+     * Balances are read from the partitions memory, there is nothing to batch.
+     */
+    @Override
+    public void streamBalances(List<UUID> walletIds, Consumer<WalletBalanceResponse> consumer) {
+        for (UUID walletId : walletIds) {
+            WalletBalanceResponse notFound = new WalletBalanceResponse(walletId, null, String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+            if (walletId == null) {
+                consumer.accept(notFound);
+                continue;
+            }
+            try {
+                consumer.accept(new WalletBalanceResponse(walletId, toAmount(ledgerEngine.balance(walletId)), null));
+            } catch (WalletNotFoundException e) {
+                consumer.accept(notFound);
+            }
+        }
+    }
+
+    @Override
+    public BigDecimal getHistoricalBalance(UUID walletId, LocalDateTime timestamp) {
+        return balanceCheckpointService.getBalanceAt(walletId, timestamp);
+    }
+
+    @Override
+    public WalletTransactionResponse deposit(UUID walletId, BigDecimal amount) {
+        return toResponse(await(ledgerEngine.deposit(walletId, toCents(amount))));
+    }
+
+    /**
+     * Partition batches already group commit concurrent deposits, they are just queued one after the other.
+     */
+    @Override
+    public List<WalletTransactionResponse> depositAll(UUID walletId, List<BigDecimal> amounts) {
+        List<Long> cents = amounts.stream().map(LedgerWalletServiceImpl::toCents).toList();
+        List<CompletableFuture<LedgerResult>> results = new ArrayList<>(cents.size());
+        for (long amount : cents) {
+            results.add(ledgerEngine.deposit(walletId, amount));
+        }
+        return results.stream()
+                .map(result -> toResponse(await(result)))
+                .toList();
+    }
+
+    @Override
+    public WalletTransactionResponse withdraw(UUID walletId, BigDecimal amount) {
+        return toResponse(await(ledgerEngine.withdraw(walletId, toCents(amount))));
+    }
+
+    @Override
+    public WalletTransactionResponse transfer(UUID sourceWalletId, UUID destinationWalletId, BigDecimal amount) {
+        return toResponse(await(ledgerEngine.transfer(sourceWalletId, destinationWalletId, toCents(amount))));
+    }
+
+    /**
+     * Partitions have no cross-partition transaction, so only {@code BEST_EFFORT} batches are supported,
+     * applied movement by movement.
+     */
+    @Override
+    public WalletBatchResponse batch(List<WalletBatchMovement> movements, WalletBatchMode mode) {
+        if (mode != WalletBatchMode.BEST_EFFORT) {
+            throw new InvalidRequestException(String.format(UNSUPPORTED_FORMAT, mode + " batch"));
+        }
+
+        List<WalletBatchItemResponse> results = new ArrayList<>();
+        for (int index = 0; index < movements.size(); index++) {
+            WalletBatchMovement movement = movements.get(index);
+            WalletBatchItemResponse result = new WalletBatchItemResponse();
+            result.setIndex(index);
+            try {
+                if (movement.getType() == null) {
+                    throw new InvalidRequestException(String.format(WalletServiceImpl.INVALID_MOVEMENT_FORMAT, movement));
+                }
+                switch (movement.getType()) {
+                    case DEPOSIT -> deposit(movement.getToWalletId(), movement.getAmount());
+                    case WITHDRAWAL -> withdraw(movement.getToWalletId(), movement.getAmount());
+                    case TRANSFER -> transfer(movement.getFromWalletId(), movement.getToWalletId(), movement.getAmount());
+                }
+                result.setSuccess(true);
+            } catch (RuntimeException e) {
+                result.setError(e.getMessage());
+            }
+            results.add(result);
+        }
+
+        WalletBatchResponse response = new WalletBatchResponse();
+        response.setCommitted(true);
+        response.setResults(results);
+        return response;
+    }
+
+    /**
+     * A single writer per wallet has no row contention to spread, so wallets are never sharded.
+     */
+    @Override
+    public WalletTransactionResponse enableSharding(UUID walletId, int shardCount) {
+        throw new InvalidRequestException(String.format(UNSUPPORTED_FORMAT, "Sharding"));
+    }
+
+    private static WalletTransactionResponse toResponse(LedgerResult result) {
+        WalletTransactionResponse response = new WalletTransactionResponse();
+        response.setId(result.walletId());
+        response.setUserId(result.userId());
+        response.setBalance(toAmount(result.balance()));
+        response.setLastUpdated(result.timestamp());
+        return response;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidRequestException(String.format(INVALID_AMOUNT_FORMAT, amount));
+        }
+        try {
+            return Money.of(amount).minorUnits();
+        } catch (ArithmeticException e) {
+            throw new InvalidRequestException(String.format(INVALID_AMOUNT_FORMAT, amount));
+        }
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return Money.ofMinor(cents).toBigDecimal();
+    }
+
+    /**
+     * Waits for a ledger operation, rethrowing the wallet exceptions raised by the partition thread as they are.
+     */
+    private static LedgerResult await(CompletableFuture<LedgerResult> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
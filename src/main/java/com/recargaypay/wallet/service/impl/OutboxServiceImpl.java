@@ -0,0 +1,155 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.recargaypay.wallet.model.dto.WalletEvent;
+import com.recargaypay.wallet.model.entity.OutboxEvent;
+import com.recargaypay.wallet.model.entity.Transaction;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.outbox.WalletEventSink;
+import com.recargaypay.wallet.repository.OutboxEventRepository;
+import com.recargaypay.wallet.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    public static final String PENDING_GAUGE = "wallet.outbox.pending";
+    public static final String LAG_GAUGE = "wallet.outbox.lag.seconds";
+    public static final String PUBLISHED_COUNTER = "wallet.outbox.published";
+    public static final String FAILURES_COUNTER = "wallet.outbox.publish.failures";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final WalletEventSink walletEventSink;
+    private final int batchSize;
+    private final int maxBatchesPerRelay;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration pendingSampleInterval;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter published;
+    private final Counter failures;
+
+    private Duration backoff = Duration.ZERO;
+    private LocalDateTime retryAt = LocalDateTime.MIN;
+    private LocalDateTime pendingSampledAt = LocalDateTime.MIN;
+
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository, WalletEventSink walletEventSink, MeterRegistry meterRegistry,
+                             @Value("${wallet.outbox.batch-size:500}") int batchSize,
+                             @Value("${wallet.outbox.max-batches-per-relay:20}") int maxBatchesPerRelay,
+                             @Value("${wallet.outbox.initial-backoff:1s}") Duration initialBackoff,
+                             @Value("${wallet.outbox.max-backoff:1m}") Duration maxBackoff,
+                             @Value("${wallet.outbox.pending-sample-interval:10s}") Duration pendingSampleInterval) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.walletEventSink = walletEventSink;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRelay = maxBatchesPerRelay;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.pendingSampleInterval = pendingSampleInterval;
+        meterRegistry.gauge(PENDING_GAUGE, pending);
+        meterRegistry.gauge(LAG_GAUGE, lagMillis, lag -> lag.get() / 1000.0);
+        this.published = meterRegistry.counter(PUBLISHED_COUNTER);
+        this.failures = meterRegistry.counter(FAILURES_COUNTER);
+    }
+
+    @Override
+    public void append(Transaction transaction, Money balance) {
+        OutboxEvent event = new OutboxEvent();
+        event.setWalletId(transaction.getWallet().getId());
+        event.setType(transaction.getType());
+        event.setAmount(transaction.getAmount());
+        event.setBalance(balance);
+        event.setOccurredAt(transaction.getTimestamp());
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * Only called by the relay job, whose runs never overlap.
+     */
+    @Override
+    public int relay() {
+        if (LocalDateTime.now().isBefore(retryAt)) {
+            return 0;
+        }
+
+        int relayed = 0;
+        boolean drained = false;
+        try {
+            // At most maxBatchesPerRelay batches of batchSize events are in flight per run, the rest waits in the table
+            for (int batch = 0; batch < maxBatchesPerRelay; batch++) {
+                List<OutboxEvent> events = outboxEventRepository.findByOrderByIdAsc(Limit.of(batchSize));
+                updateLag(events);
+                if (events.isEmpty()) {
+                    drained = true;
+                    break;
+                }
+
+                // At least once: events are only deleted after the sink accepted them
+                walletEventSink.publish(events.stream().map(OutboxServiceImpl::toWalletEvent).toList());
+                outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+                published.increment(events.size());
+                relayed += events.size();
+
+                if (events.size() < batchSize) {
+                    drained = true;
+                    break;
+                }
+            }
+            backoff = Duration.ZERO;
+        } catch (RuntimeException e) {
+            failures.increment();
+            backoff = backoff.isZero() ? initialBackoff : min(backoff.multipliedBy(2), maxBackoff);
+            retryAt = LocalDateTime.now().plus(backoff);
+            log.error("Failed to relay wallet events, retrying in {}", backoff, e);
+        }
+        updatePending(drained);
+        return relayed;
+    }
+
+    /**
+     * A short batch means the table was empty when it was read. Otherwise events are left behind, and they are only
+     * counted every pendingSampleInterval, not on every poll of a backlog.
+     */
+    private void updatePending(boolean drained) {
+        if (drained) {
+            pending.set(0);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!now.isBefore(pendingSampledAt.plus(pendingSampleInterval))) {
+            pending.set(outboxEventRepository.count());
+            pendingSampledAt = now;
+        }
+    }
+
+    private void updateLag(List<OutboxEvent> events) {
+        lagMillis.set(events.isEmpty() ? 0 : Math.max(0, Duration.between(events.getFirst().getOccurredAt(), LocalDateTime.now()).toMillis()));
+    }
+
+    private static Duration min(Duration first, Duration second) {
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+
+    private static WalletEvent toWalletEvent(OutboxEvent outboxEvent) {
+        WalletEvent event = new WalletEvent();
+        event.setId(outboxEvent.getId());
+        event.setWalletId(outboxEvent.getWalletId());
+        event.setType(outboxEvent.getType());
+        event.setAmount(outboxEvent.getAmount().toBigDecimal());
+        event.setBalance(outboxEvent.getBalance().toBigDecimal());
+        event.setOccurredAt(outboxEvent.getOccurredAt());
+        return event;
+    }
+}
@@ -0,0 +1,130 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import com.recargaypay.wallet.mapper.WalletResponseMapper;
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.TransactionPageResponse;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.entity.Transaction;
+import com.recargaypay.wallet.repository.TransactionRepository;
+import com.recargaypay.wallet.repository.TransactionSpecifications;
+import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.service.LedgerArchiveService;
+import com.recargaypay.wallet.service.TransactionHistoryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+    public static final String INVALID_CURSOR_FORMAT = "Invalid cursor: %s";
+    public static final String INVALID_LIMIT_FORMAT = "Page size must be between 1 and %d";
+
+    private static final Sort HISTORY_ORDER = Sort.by("timestamp", "id");
+    private static final String CURSOR_SEPARATOR = "|";
+
+    private final TransactionRepository transactionRepository;
+    private final WalletRepository walletRepository;
+    private final WalletExistenceFilter walletExistenceFilter;
+    private final LedgerArchiveService ledgerArchiveService;
+    private final int maxPageSize;
+
+    public TransactionHistoryServiceImpl(TransactionRepository transactionRepository, WalletRepository walletRepository,
+                                         WalletExistenceFilter walletExistenceFilter, LedgerArchiveService ledgerArchiveService,
+                                         @Value("${wallet.history.max-page-size:500}") int maxPageSize) {
+        this.transactionRepository = transactionRepository;
+        this.walletRepository = walletRepository;
+        this.walletExistenceFilter = walletExistenceFilter;
+        this.ledgerArchiveService = ledgerArchiveService;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getTransactions(TransactionHistoryFilter filter, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new InvalidRequestException(String.format(INVALID_LIMIT_FORMAT, maxPageSize));
+        }
+        ScrollPosition position = decodeCursor(cursor);
+        ensureWalletExists(filter);
+
+        // Seek pagination: the next page starts right after the (timestamp, id) of the last row, whatever the page number
+        Window<Transaction> window = transactionRepository.findBy(TransactionSpecifications.matching(filter),
+                query -> query.sortBy(HISTORY_ORDER).limit(limit).scroll(position));
+
+        TransactionPageResponse response = new TransactionPageResponse();
+        response.setTransactions(window.getContent().stream().map(WalletResponseMapper::toTransactionResponse).toList());
+        if (window.hasNext() && !window.isEmpty()) {
+            response.setNextCursor(encodeCursor((KeysetScrollPosition) window.positionAt(window.size() - 1)));
+        }
+        // Seeking through the compressed segments would inflate a whole month per page, the client is told instead
+        ledgerArchiveService.archivedUntil()
+                .filter(archivedUntil -> filter.getFrom() == null || filter.getFrom().isBefore(archivedUntil))
+                .ifPresent(response::setArchivedUntil);
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTransactions(TransactionHistoryFilter filter, Consumer<TransactionResponse> consumer) {
+        ensureWalletExists(filter);
+        // The archived months all precede the live ones, so the order holds
+        ledgerArchiveService.streamArchived(filter.getWalletId(), filter.getFrom(), filter.getTo(), transaction -> {
+            if (filter.getType() == null || filter.getType() == transaction.getType()) {
+                consumer.accept(transaction);
+            }
+        });
+        try (Stream<TransactionResponse> transactions = transactionRepository.streamHistory(filter.getWalletId(), filter.getType(),
+                filter.getFrom(), filter.getTo())) {
+            transactions.forEach(consumer);
+        }
+    }
+
+    private void ensureWalletExists(TransactionHistoryFilter filter) {
+        UUID walletId = filter.getWalletId();
+        if (!walletExistenceFilter.mightExist(walletId)) {
+            throw new WalletNotFoundException(String.format(WalletServiceImpl.WALLET_NOT_FOUND_FORMAT, walletId));
+        }
+        if (!walletRepository.existsById(walletId)) {
+            walletExistenceFilter.recordMissing(walletId);
+            throw new WalletNotFoundException(String.format(WalletServiceImpl.WALLET_NOT_FOUND_FORMAT, walletId));
+        }
+    }
+
+    private static String encodeCursor(KeysetScrollPosition position) {
+        String keys = position.getKeys().get("timestamp") + CURSOR_SEPARATOR + position.getKeys().get("id");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ScrollPosition decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = keys.indexOf(CURSOR_SEPARATOR);
+            Map<String, Object> position = new LinkedHashMap<>();
+            position.put("timestamp", LocalDateTime.parse(keys.substring(0, separator)));
+            position.put("id", UUID.fromString(keys.substring(separator + 1)));
+            return ScrollPosition.forward(position);
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException(String.format(INVALID_CURSOR_FORMAT, cursor));
+        }
+    }
+}
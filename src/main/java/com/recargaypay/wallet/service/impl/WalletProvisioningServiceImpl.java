@@ -0,0 +1,200 @@
+package com.recargaypay.wallet.service.impl;
+
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.ledger.LedgerEngine;
+import com.recargaypay.wallet.model.dto.WalletProvisioningResult;
+import com.recargaypay.wallet.model.dto.WalletProvisioningRow;
+import com.recargaypay.wallet.model.dto.WalletProvisioningSummary;
+import com.recargaypay.wallet.repository.UserRepository;
+import com.recargaypay.wallet.service.WalletProvisioningService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.USER_NOT_FOUND_FORMAT;
+
+/**
+ * Inserts wallets with plain JDBC batches instead of one {@code findById} and one {@code save} per wallet: wallet IDs
+ * are generated here, time ordered so consecutive inserts land on the same primary key index pages, and nothing is
+ * read back. Works with both engines, with {@code wallet.engine=LEDGER} every wallet is also opened in the ledger.
+ */
+@Slf4j
+@Service
+public class WalletProvisioningServiceImpl implements WalletProvisioningService {
+
+    public static final String INSERT_WALLET = "INSERT INTO WALLET (id, balance, user_uid, version, updated_at, shard_count) VALUES (?, 0, ?, 0, ?, 0)";
+    public static final String ROWS_COUNTER = "wallet.provisioning.rows";
+    public static final String REQUEST_TOO_LARGE_FORMAT = "Provisioning of %d users exceeds the maximum of %d, send them as a CSV or NDJSON file";
+    public static final String MISSING_USER = "Missing user ID";
+
+    /**
+     * Rows between two progress log lines
+     */
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletExistenceFilter walletExistenceFilter;
+    private final ObjectProvider<LedgerEngine> ledgerEngine;
+    private final Counter createdRows;
+    private final Counter failedRows;
+    private final int chunkSize;
+    private final int maxRequestSize;
+
+    public WalletProvisioningServiceImpl(UserRepository userRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                         WalletExistenceFilter walletExistenceFilter, ObjectProvider<LedgerEngine> ledgerEngine,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${wallet.provisioning.chunk-size:1000}") int chunkSize,
+                                         @Value("${wallet.provisioning.max-request-size:100000}") int maxRequestSize) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.walletExistenceFilter = walletExistenceFilter;
+        this.ledgerEngine = ledgerEngine;
+        this.createdRows = meterRegistry.counter(ROWS_COUNTER, "result", "created");
+        this.failedRows = meterRegistry.counter(ROWS_COUNTER, "result", "failed");
+        this.chunkSize = chunkSize;
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    @Override
+    public WalletProvisioningSummary provision(List<UUID> userUids, Consumer<WalletProvisioningResult> consumer) {
+        if (userUids.size() > maxRequestSize) {
+            throw new InvalidRequestException(String.format(REQUEST_TOO_LARGE_FORMAT, userUids.size(), maxRequestSize));
+        }
+        Iterator<WalletProvisioningRow> rows = IntStream.range(0, userUids.size())
+                .mapToObj(index -> new WalletProvisioningRow(index + 1, userUids.get(index), null))
+                .iterator();
+        return provision(rows, consumer);
+    }
+
+    @Override
+    public WalletProvisioningSummary provision(Iterator<WalletProvisioningRow> rows, Consumer<WalletProvisioningResult> consumer) {
+        long start = System.nanoTime();
+        WalletProvisioningSummary summary = new WalletProvisioningSummary();
+        List<WalletProvisioningRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize || !rows.hasNext()) {
+                long previousRows = summary.getRows();
+                provisionChunk(chunk, consumer, summary);
+                chunk.clear();
+                if (summary.getRows() / PROGRESS_INTERVAL > previousRows / PROGRESS_INTERVAL) {
+                    log.info("Provisioning: {} rows, {} wallets created, {} rows failed", summary.getRows(), summary.getCreated(), summary.getFailed());
+                }
+            }
+        }
+        summary.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("Provisioned {} wallets out of {} rows in {} ms, {} rows failed",
+                summary.getCreated(), summary.getRows(), summary.getElapsedMillis(), summary.getFailed());
+        return summary;
+    }
+
+    private void provisionChunk(List<WalletProvisioningRow> chunk, Consumer<WalletProvisioningResult> consumer,
+                                WalletProvisioningSummary summary) {
+        Set<UUID> userUids = new HashSet<>();
+        for (WalletProvisioningRow row : chunk) {
+            if (row.error() == null && row.userUid() != null) {
+                userUids.add(row.userUid());
+            }
+        }
+        Set<UUID> existingUsers = userUids.isEmpty() ? Set.of() : userRepository.findExistingIds(userUids);
+
+        List<WalletProvisioningResult> results = new ArrayList<>(chunk.size());
+        List<WalletProvisioningResult> wallets = new ArrayList<>(chunk.size());
+        for (WalletProvisioningRow row : chunk) {
+            WalletProvisioningResult result = new WalletProvisioningResult(row.row(), row.userUid(), null, row.error());
+            if (result.getError() == null && row.userUid() == null) {
+                result.setError(MISSING_USER);
+            } else if (result.getError() == null && !existingUsers.contains(row.userUid())) {
+                result.setError(String.format(USER_NOT_FOUND_FORMAT, row.userUid()));
+            } else if (result.getError() == null) {
+                result.setWalletId(newWalletId());
+                wallets.add(result);
+            }
+            results.add(result);
+        }
+        if (!wallets.isEmpty()) {
+            insert(wallets);
+        }
+
+        for (WalletProvisioningResult result : results) {
+            if (result.getWalletId() != null) {
+                summary.setCreated(summary.getCreated() + 1);
+                createdRows.increment();
+            } else {
+                summary.setFailed(summary.getFailed() + 1);
+                failedRows.increment();
+            }
+            consumer.accept(result);
+        }
+        summary.setRows(summary.getRows() + chunk.size());
+    }
+
+    private void insert(List<WalletProvisioningResult> wallets) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertAll(wallets));
+        } catch (DataIntegrityViolationException e) {
+            // A user deleted since the validation fails the whole batch, its rows are retried one at a time to find it
+            log.warn("Provisioning batch of {} wallets failed, retrying its rows one by one: {}", wallets.size(), e.getMessage());
+            for (WalletProvisioningResult wallet : wallets) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertAll(List.of(wallet)));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    wallet.setWalletId(null);
+                    wallet.setError(String.format(USER_NOT_FOUND_FORMAT, wallet.getUserUid()));
+                }
+            }
+        }
+    }
+
+    private void insertAll(List<WalletProvisioningResult> wallets) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_WALLET, wallets, wallets.size(), (statement, wallet) -> {
+            statement.setObject(1, wallet.getWalletId());
+            statement.setObject(2, wallet.getUserUid());
+            statement.setTimestamp(3, now);
+        });
+        walletExistenceFilter.addAll(wallets.stream().map(WalletProvisioningResult::getWalletId).toList());
+
+        LedgerEngine engine = ledgerEngine.getIfAvailable();
+        if (engine != null) {
+            // Opened before the commit, as createWallet does, a rolled back batch leaves unreachable wallets in the ledger
+            CompletableFuture.allOf(wallets.stream()
+                    .map(wallet -> engine.open(wallet.getWalletId(), wallet.getUserUid()))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+    }
+
+    /**
+     * Version 7 UUID: a millisecond timestamp followed by random bits, so IDs generated together sort together.
+     */
+    private static UUID newWalletId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificantBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long leastSignificantBits = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
@@ -1,45 +1,105 @@
 package com.recargaypay.wallet.service.impl;
 
+import com.recargaypay.wallet.cache.ShardedWalletRegistry;
+import com.recargaypay.wallet.cache.WalletBalanceCache;
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.config.RetryOnOptimisticLock;
+import com.recargaypay.wallet.exception.InvalidRequestException;
 import com.recargaypay.wallet.exception.NoFundsException;
 import com.recargaypay.wallet.exception.UserNotFoundException;
 import com.recargaypay.wallet.exception.WalletNotFoundException;
 import com.recargaypay.wallet.mapper.WalletResponseMapper;
 import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceView;
+import com.recargaypay.wallet.model.dto.WalletBatchItemResponse;
+import com.recargaypay.wallet.model.dto.WalletBatchMode;
+import com.recargaypay.wallet.model.dto.WalletBatchMovement;
+import com.recargaypay.wallet.model.dto.WalletBatchResponse;
 import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.ConcurrencyMode;
 import com.recargaypay.wallet.model.entity.Transaction;
 import com.recargaypay.wallet.model.entity.TransactionType;
 import com.recargaypay.wallet.model.entity.User;
 import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.entity.WalletShard;
+import com.recargaypay.wallet.model.money.Money;
 import com.recargaypay.wallet.repository.TransactionRepository;
 import com.recargaypay.wallet.repository.UserRepository;
 import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.repository.WalletShardRepository;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import com.recargaypay.wallet.service.OutboxService;
 import com.recargaypay.wallet.service.WalletService;
+import com.recargaypay.wallet.stream.BalancePublisher;
 import jakarta.transaction.Transactional;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 @Service
+@ConditionalOnProperty(name = "wallet.engine", havingValue = "JPA", matchIfMissing = true)
 public class WalletServiceImpl implements WalletService {
 
     public static final String WALLET_NOT_FOUND_FORMAT = "Wallet %s not found";
     public static final String USER_NOT_FOUND_FORMAT = "User %s not found";
     public static final String NO_FUNDS_FORMAT = "Insufficient funds in wallet: %s";
+    public static final String INVALID_SHARD_COUNT_FORMAT = "Wallet %s has %d shards, it cannot be split into %d";
+    public static final String INVALID_MOVEMENT_FORMAT = "Invalid movement: %s";
+    public static final String BATCH_TOO_LARGE_FORMAT = "Batch of %d movements exceeds the maximum of %d";
+    public static final String TOO_MANY_WALLETS_FORMAT = "Lookup of %d wallets exceeds the maximum of %d";
+    public static final String INVALID_AMOUNT_FORMAT = "Invalid amount: %s, it must be positive with at most 2 decimals";
+
+    /**
+     * Wallets resolved per query by {@link #streamBalances}, so the first balances are sent before the last ones are read
+     */
+    private static final int BALANCE_LOOKUP_CHUNK_SIZE = 500;
 
     private final WalletRepository walletRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final WalletBalanceCache walletBalanceCache;
+    private final WalletShardRepository walletShardRepository;
+    private final ShardedWalletRegistry shardedWalletRegistry;
+    private final WalletExistenceFilter walletExistenceFilter;
+    private final OutboxService outboxService;
+    private final BalancePublisher balancePublisher;
+    private final ConcurrencyMode concurrencyMode;
+    private final int maxBatchSize;
 
 
-    public WalletServiceImpl(WalletRepository walletRepository, UserRepository userRepository, TransactionRepository transactionRepository) {
+    public WalletServiceImpl(WalletRepository walletRepository, UserRepository userRepository, TransactionRepository transactionRepository,
+                             BalanceCheckpointService balanceCheckpointService, WalletBalanceCache walletBalanceCache,
+                             WalletShardRepository walletShardRepository, ShardedWalletRegistry shardedWalletRegistry,
+                             WalletExistenceFilter walletExistenceFilter, OutboxService outboxService, BalancePublisher balancePublisher,
+                             @Value("${wallet.concurrency.mode:PESSIMISTIC}") ConcurrencyMode concurrencyMode,
+                             @Value("${wallet.batch.max-size:1000}") int maxBatchSize) {
         this.walletRepository = walletRepository;
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.walletBalanceCache = walletBalanceCache;
+        this.walletShardRepository = walletShardRepository;
+        this.shardedWalletRegistry = shardedWalletRegistry;
+        this.walletExistenceFilter = walletExistenceFilter;
+        this.outboxService = outboxService;
+        this.balancePublisher = balancePublisher;
+        this.concurrencyMode = concurrencyMode;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @Override
@@ -50,97 +110,577 @@ public class WalletServiceImpl implements WalletService {
 
         Wallet wallet = new Wallet();
         wallet.setUser(user);
-        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setBalance(Money.ZERO);
 
         Wallet savedWallet = walletRepository.save(wallet);
+        walletExistenceFilter.add(savedWallet.getId());
+        walletBalanceCache.put(savedWallet);
 
         return WalletResponseMapper.toWalletDto(savedWallet);
     }
 
     @Override
-    @Cacheable(value = "walletBalance", key = "#walletUUID")
     public BigDecimal getBalance(UUID walletId) {
-        Wallet wallet = findWalletById(walletId);
-        return wallet.getBalance();
+        return walletBalanceCache.get(walletId).orElseGet(() -> {
+            WalletBalanceView view = findBalanceById(walletId);
+            // Credits to sharded wallets do not bump the wallet version, so their balance is never cached
+            if (view.getShardCount() > 0) {
+                return view.getBalance().plus(Money.of(walletShardRepository.sumBalanceByWalletId(walletId))).toBigDecimal();
+            }
+            walletBalanceCache.put(walletId, view.getBalance(), view.getVersion() == null ? 0 : view.getVersion());
+            return view.getBalance().toBigDecimal();
+        });
+    }
+
+    /**
+     * Cached balances are served first, the rest of every chunk is read with a single projection query,
+     * plus a single shard query if any of them is sharded. Read balances are cached on the way.
+     */
+    @Override
+    public void streamBalances(List<UUID> walletIds, Consumer<WalletBalanceResponse> consumer) {
+        if (walletIds.size() > maxBatchSize) {
+            throw new InvalidRequestException(String.format(TOO_MANY_WALLETS_FORMAT, walletIds.size(), maxBatchSize));
+        }
+        for (int start = 0; start < walletIds.size(); start += BALANCE_LOOKUP_CHUNK_SIZE) {
+            List<UUID> chunk = walletIds.subList(start, Math.min(start + BALANCE_LOOKUP_CHUNK_SIZE, walletIds.size()));
+            Map<UUID, BigDecimal> balances = findBalances(chunk);
+            for (UUID walletId : chunk) {
+                BigDecimal balance = balances.get(walletId);
+                consumer.accept(balance != null
+                        ? new WalletBalanceResponse(walletId, balance, null)
+                        : new WalletBalanceResponse(walletId, null, String.format(WALLET_NOT_FOUND_FORMAT, walletId)));
+            }
+        }
     }
 
     @Override
     public BigDecimal getHistoricalBalance(UUID walletId, LocalDateTime timestamp) {
-        List<Transaction> transactions = transactionRepository.findByWalletIdAndTimestampBefore(walletId, timestamp);
-        return transactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return balanceCheckpointService.getBalanceAt(walletId, timestamp);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "walletBalance", key = "#walletUUID")
+    @RetryOnOptimisticLock
     public WalletTransactionResponse deposit(UUID walletId, BigDecimal amount) {
-        Wallet wallet = findWalletById(walletId);
-        wallet.setBalance(wallet.getBalance().add(amount));
+        Money money = toMoney(amount);
+        if (shardedWalletRegistry.isSharded(walletId)) {
+            // Only the picked shard row is locked, the wallet row is just read
+            Wallet wallet = findWalletById(walletId);
+            creditShard(wallet, money);
+            Transaction transaction = createTransaction(wallet, money, TransactionType.DEPOSIT);
+            Money balance = totalBalance(wallet);
+            recordMovement(transaction, balance);
 
-        Transaction transaction = createTransaction(wallet, amount, TransactionType.DEPOSIT);
+            return WalletResponseMapper.toWalletTransactionResponse(wallet, balance);
+        }
+
+        // A wallet sharded by another instance since the last registry refresh is credited on its locked row
+        Wallet wallet = findWalletForUpdate(walletId);
+        wallet.setBalance(wallet.getBalance().plus(money));
+
+        Transaction transaction = createTransaction(wallet, money, TransactionType.DEPOSIT);
         Wallet savedWallet = walletRepository.save(wallet);
+        cacheBalance(savedWallet);
+        Money balance = totalBalance(savedWallet);
+        recordMovement(transaction, balance);
 
-        return WalletResponseMapper.toWalletTransactionResponse(savedWallet);
+        return WalletResponseMapper.toWalletTransactionResponse(savedWallet, balance);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "walletBalance", key = "#walletUUID")
-    public WalletTransactionResponse withdraw(UUID walletId, BigDecimal amount) {
-        Wallet wallet = findWalletById(walletId);
+    @RetryOnOptimisticLock
+    public List<WalletTransactionResponse> depositAll(UUID walletId, List<BigDecimal> amounts) {
+        List<Money> deposits = new ArrayList<>(amounts.size());
+        Money total = Money.ZERO;
+        for (BigDecimal amount : amounts) {
+            Money deposit = toMoney(amount);
+            deposits.add(deposit);
+            total = total.plus(deposit);
+        }
 
-        // Ensure wallet has sufficient funds
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new NoFundsException(String.format(NO_FUNDS_FORMAT, walletId));
+        Wallet wallet;
+        if (shardedWalletRegistry.isSharded(walletId)) {
+            wallet = findWalletById(walletId);
+            creditShard(wallet, total);
+        } else {
+            Wallet lockedWallet = findWalletForUpdate(walletId);
+            lockedWallet.setBalance(lockedWallet.getBalance().plus(total));
+            wallet = walletRepository.save(lockedWallet);
+            cacheBalance(wallet);
         }
+        Money balance = totalBalance(wallet);
+
+        List<Transaction> transactions = new ArrayList<>(deposits.size());
+        for (Money deposit : deposits) {
+            transactions.add(newTransaction(wallet, deposit, TransactionType.DEPOSIT));
+        }
+        transactionRepository.saveAll(transactions);
+
+        // Every deposit is recorded and answered with the balance right after it, as if they had been applied one by one
+        Money runningBalance = balance.minus(total);
+        List<WalletTransactionResponse> responses = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            runningBalance = runningBalance.plus(transaction.getAmount());
+            recordMovement(transaction, runningBalance);
+            responses.add(WalletResponseMapper.toWalletTransactionResponse(wallet, runningBalance));
+        }
+        return responses;
+    }
 
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        Transaction transaction = createTransaction(wallet, amount.negate(), TransactionType.WITHDRAWAL);
+    @Override
+    @Transactional
+    @RetryOnOptimisticLock
+    public WalletTransactionResponse withdraw(UUID walletId, BigDecimal amount) {
+        Money money = toMoney(amount);
+        Wallet wallet = findWalletForUpdate(walletId);
+
+        Money balance = debit(wallet, money);
+        Transaction transaction = createTransaction(wallet, money.negate(), TransactionType.WITHDRAWAL);
 
         Wallet savedWallet = walletRepository.save(wallet);
+        cacheBalance(savedWallet);
+        recordMovement(transaction, balance);
 
-        return WalletResponseMapper.toWalletTransactionResponse(savedWallet);
+        return WalletResponseMapper.toWalletTransactionResponse(savedWallet, balance);
     }
 
     @Override
     @Transactional
+    @RetryOnOptimisticLock
     public WalletTransactionResponse transfer(UUID sourceWalletId, UUID destinationWalletId, BigDecimal amount) {
-        Wallet sourceWallet = findWalletById(sourceWalletId);
-        Wallet destinationWallet = findWalletById(destinationWalletId);
-
-        // Ensure the source wallet has enough funds
-        if (sourceWallet.getBalance().compareTo(amount) < 0) {
-            throw new NoFundsException(String.format(NO_FUNDS_FORMAT, sourceWalletId));
+        // Locks are always taken in the same global order so concurrent transfers cannot deadlock:
+        // first wallet rows in UUID order, then shard rows in (wallet UUID, shard index) order.
+        // The destination row is not locked if the registry knows it is sharded, its credit then goes to a shard
+        Money money = toMoney(amount);
+        boolean destinationSharded = shardedWalletRegistry.isSharded(destinationWalletId);
+        Wallet sourceWallet;
+        Wallet destinationWallet;
+        if (destinationSharded) {
+            sourceWallet = findWalletForUpdate(sourceWalletId);
+            destinationWallet = findWalletById(destinationWalletId);
+        } else if (sourceWalletId.compareTo(destinationWalletId) <= 0) {
+            sourceWallet = findWalletForUpdate(sourceWalletId);
+            destinationWallet = findWalletForUpdate(destinationWalletId);
+        } else {
+            destinationWallet = findWalletForUpdate(destinationWalletId);
+            sourceWallet = findWalletForUpdate(sourceWalletId);
         }
 
-        // Deduct the amount from source wallet
-        sourceWallet.setBalance(sourceWallet.getBalance().subtract(amount));
-
-        // Add the amount to the destination wallet
-        destinationWallet.setBalance(destinationWallet.getBalance().add(amount));
+        Money sourceBalance;
+        if (destinationSharded && destinationWalletId.compareTo(sourceWalletId) < 0) {
+            // The credit is rolled back if the source wallet turns out to have insufficient funds
+            creditShard(destinationWallet, money);
+            sourceBalance = debit(sourceWallet, money);
+        } else {
+            sourceBalance = debit(sourceWallet, money);
+            if (destinationSharded) {
+                creditShard(destinationWallet, money);
+            } else {
+                destinationWallet.setBalance(destinationWallet.getBalance().plus(money));
+            }
+        }
 
         // Create transactions for both wallets --withdraw from source and deposit to destination --
-        Transaction withdrawalTransaction = createTransaction(sourceWallet, amount.negate(), TransactionType.TRANSFER);
-        Transaction depositTransaction = createTransaction(destinationWallet, amount, TransactionType.DEPOSIT);
+        Transaction withdrawalTransaction = createTransaction(sourceWallet, money.negate(), TransactionType.TRANSFER);
+        Transaction depositTransaction = createTransaction(destinationWallet, money, TransactionType.DEPOSIT);
 
         walletRepository.save(sourceWallet);
-        walletRepository.save(destinationWallet);
+        cacheBalance(sourceWallet);
+        recordMovement(withdrawalTransaction, sourceBalance);
+        if (!destinationSharded) {
+            walletRepository.save(destinationWallet);
+            cacheBalance(destinationWallet);
+        }
+        Money destinationBalance = totalBalance(destinationWallet);
+        recordMovement(depositTransaction, destinationBalance);
 
         // Return the updated destination wallet details
-        return WalletResponseMapper.toWalletTransactionResponse(destinationWallet);
+        return WalletResponseMapper.toWalletTransactionResponse(destinationWallet, destinationBalance);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnOptimisticLock
+    public WalletBatchResponse batch(List<WalletBatchMovement> movements, WalletBatchMode mode) {
+        if (movements.size() > maxBatchSize) {
+            throw new InvalidRequestException(String.format(BATCH_TOO_LARGE_FORMAT, movements.size(), maxBatchSize));
+        }
+
+        // All the wallets of the batch are loaded, and locked in UUID order, with a single query
+        Map<UUID, Wallet> wallets = findWalletsForUpdate(involvedWalletIds(movements));
+        Map<UUID, Money> available = new HashMap<>();
+        for (Wallet wallet : wallets.values()) {
+            Money shardsBalance = wallet.getShardCount() > 0
+                    ? findShardsForUpdate(wallet.getId()).stream().map(WalletShard::getBalance).reduce(Money.ZERO, Money::plus)
+                    : Money.ZERO;
+            available.put(wallet.getId(), wallet.getBalance().plus(shardsBalance));
+        }
+        Map<UUID, Money> runningBalances = new HashMap<>(available);
+
+        // Movements are first validated against the in-memory balances, nothing is written until the batch outcome is known
+        List<WalletBatchItemResponse> results = new ArrayList<>();
+        for (int index = 0; index < movements.size(); index++) {
+            String error = simulate(movements.get(index), wallets, available);
+            WalletBatchItemResponse result = new WalletBatchItemResponse();
+            result.setIndex(index);
+            result.setSuccess(error == null);
+            result.setError(error);
+            results.add(result);
+        }
+
+        boolean commit = mode == WalletBatchMode.BEST_EFFORT || results.stream().allMatch(WalletBatchItemResponse::isSuccess);
+        if (commit) {
+            List<Transaction> transactions = new ArrayList<>();
+            for (WalletBatchItemResponse result : results) {
+                if (result.isSuccess()) {
+                    apply(movements.get(result.getIndex()), wallets, transactions);
+                }
+            }
+            // Inserts are sent in JDBC batches, see hibernate.jdbc.batch_size
+            transactionRepository.saveAll(transactions);
+            walletRepository.saveAll(wallets.values());
+            wallets.values().forEach(this::cacheBalance);
+            // Transactions are in movement order, so every event carries the balance, including shards, right after its movement
+            for (Transaction transaction : transactions) {
+                recordMovement(transaction, runningBalances.merge(transaction.getWallet().getId(), transaction.getAmount(), Money::plus));
+            }
+        }
+
+        WalletBatchResponse response = new WalletBatchResponse();
+        response.setCommitted(commit);
+        response.setResults(results);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public WalletTransactionResponse enableSharding(UUID walletId, int shardCount) {
+        Wallet wallet = findWalletForUpdate(walletId);
+        if (shardCount < wallet.getShardCount()) {
+            throw new InvalidRequestException(String.format(INVALID_SHARD_COUNT_FORMAT, walletId, wallet.getShardCount(), shardCount));
+        }
+
+        for (int shardIndex = wallet.getShardCount(); shardIndex < shardCount; shardIndex++) {
+            WalletShard shard = new WalletShard();
+            shard.setWalletId(walletId);
+            shard.setShardIndex(shardIndex);
+            shard.setBalance(Money.ZERO);
+            walletShardRepository.save(shard);
+        }
+        wallet.setShardCount(shardCount);
+        Wallet savedWallet = walletRepository.save(wallet);
+
+        shardedWalletRegistry.register(walletId, shardCount);
+        walletBalanceCache.evict(walletId);
+
+        return WalletResponseMapper.toWalletTransactionResponse(savedWallet, totalBalance(savedWallet));
     }
 
     /**
-     * Find wallet by its ID, throws exception if not found.
+     * Find wallet by its ID to be modified without a lock, throws exception if not found.
      *
      * @param walletId ID of the wallet to find
      * @return Wallet entity
      */
     private Wallet findWalletById(UUID walletId) {
+        ensureMightExistForWrite(walletId);
         return walletRepository.findById(walletId)
+                .orElseThrow(() -> walletNotFound(walletId));
+    }
+
+    /**
+     * Read only the balance columns of a wallet, throws exception if not found.
+     *
+     * @param walletId ID of the wallet to find
+     * @return balance, version and shard count of the wallet
+     */
+    private WalletBalanceView findBalanceById(UUID walletId) {
+        ensureMightExist(walletId);
+        return walletRepository.findBalanceById(walletId)
+                .orElseThrow(() -> walletNotFound(walletId));
+    }
+
+    /**
+     * Find wallet by its ID to be modified, throws exception if not found.
+     * In pessimistic mode the wallet row stays locked until the transaction ends.
+     *
+     * @param walletId ID of the wallet to find
+     * @return Wallet entity
+     */
+    private Wallet findWalletForUpdate(UUID walletId) {
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC) {
+            return findWalletById(walletId);
+        }
+        ensureMightExistForWrite(walletId);
+        return walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> walletNotFound(walletId));
+    }
+
+    /**
+     * Rejects the wallets the existence filter knows are missing, before the wallet is read or locked.
+     *
+     * @param walletId ID of the wallet to find
+     */
+    private void ensureMightExist(UUID walletId) {
+        if (!walletExistenceFilter.mightExist(walletId)) {
+            throw new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+        }
+    }
+
+    /**
+     * Rejects the wallets the existence filter knows are missing, confirming a filter miss with a primary key lookup
+     * so the wallets created by other instances since the last reload can be moved.
+     *
+     * @param walletId ID of the wallet to find
+     */
+    private void ensureMightExistForWrite(UUID walletId) {
+        if (!walletExistenceFilter.mightExistForWrite(walletId)) {
+            throw new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+        }
+    }
+
+    /**
+     * @param walletId ID of a wallet the database did not find
+     * @return the exception to throw, once the wallet is in the negative cache
+     */
+    private WalletNotFoundException walletNotFound(UUID walletId) {
+        walletExistenceFilter.recordMissing(walletId);
+        return new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+    }
+
+    /**
+     * Find wallets by their IDs to be modified, missing wallets are left out.
+     * In pessimistic mode the wallet rows stay locked until the transaction ends.
+     *
+     * @param walletIds IDs of the wallets to find
+     * @return Wallet entities sorted by ID
+     */
+    private Map<UUID, Wallet> findWalletsForUpdate(Collection<UUID> walletIds) {
+        Map<UUID, Wallet> wallets = new TreeMap<>();
+        List<UUID> candidates = walletIds.stream().filter(walletExistenceFilter::mightExistForWrite).toList();
+        if (candidates.isEmpty()) {
+            return wallets;
+        }
+        List<Wallet> found = concurrencyMode == ConcurrencyMode.OPTIMISTIC
+                ? walletRepository.findAllById(candidates)
+                : walletRepository.findAllByIdForUpdate(candidates);
+        found.forEach(wallet -> wallets.put(wallet.getId(), wallet));
+        return wallets;
+    }
+
+    /**
+     * @param walletIds IDs of the wallets to find
+     * @return balances of the wallets found, including shards
+     */
+    private Map<UUID, BigDecimal> findBalances(List<UUID> walletIds) {
+        // Credits to sharded wallets do not bump the wallet version, so their balance is never cached
+        Map<UUID, BigDecimal> balances = walletBalanceCache.getAll(walletIds.stream()
+                .filter(walletId -> walletId != null)
+                .toList());
+        Collection<UUID> uncached = new TreeSet<>();
+        for (UUID walletId : walletIds) {
+            if (walletId != null && !balances.containsKey(walletId) && walletExistenceFilter.mightExist(walletId)) {
+                uncached.add(walletId);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return balances;
+        }
+
+        Map<UUID, Money> walletBalances = new HashMap<>();
+        Collection<UUID> shardedWalletIds = new ArrayList<>();
+        for (WalletBalanceView view : walletRepository.findBalancesByIdIn(uncached)) {
+            walletBalances.put(view.getWalletId(), view.getBalance());
+            if (view.getShardCount() > 0) {
+                shardedWalletIds.add(view.getWalletId());
+            } else {
+                walletBalanceCache.put(view.getWalletId(), view.getBalance(), view.getVersion() == null ? 0 : view.getVersion());
+            }
+        }
+        if (!shardedWalletIds.isEmpty()) {
+            for (WalletShard shard : walletShardRepository.findByWalletIdIn(shardedWalletIds)) {
+                walletBalances.merge(shard.getWalletId(), shard.getBalance(), Money::plus);
+            }
+        }
+        walletBalances.forEach((walletId, balance) -> balances.put(walletId, balance.toBigDecimal()));
+        uncached.stream()
+                .filter(walletId -> !walletBalances.containsKey(walletId))
+                .forEach(walletExistenceFilter::recordMissing);
+        return balances;
+    }
+
+    private static Collection<UUID> involvedWalletIds(List<WalletBatchMovement> movements) {
+        Collection<UUID> walletIds = new TreeSet<>();
+        for (WalletBatchMovement movement : movements) {
+            if (movement.getToWalletId() != null) {
+                walletIds.add(movement.getToWalletId());
+            }
+            if (movement.getType() == TransactionType.TRANSFER && movement.getFromWalletId() != null) {
+                walletIds.add(movement.getFromWalletId());
+            }
+        }
+        return walletIds;
+    }
+
+    /**
+     * Validates a batch movement and applies it to the in-memory balances.
+     *
+     * @param movement  Movement to validate
+     * @param wallets   Wallets of the batch
+     * @param available Balances of the batch wallets, including shards, after the previous movements
+     * @return the reason the movement cannot be applied, null if it is valid
+     */
+    private static String simulate(WalletBatchMovement movement, Map<UUID, Wallet> wallets, Map<UUID, Money> available) {
+        Money amount = toMoneyOrNull(movement.getAmount());
+        if (movement.getType() == null || amount == null || amount.signum() <= 0 || movement.getToWalletId() == null
+                || (movement.getType() == TransactionType.TRANSFER && movement.getFromWalletId() == null)) {
+            return String.format(INVALID_MOVEMENT_FORMAT, movement);
+        }
+        UUID creditedWalletId = movement.getType() == TransactionType.WITHDRAWAL ? null : movement.getToWalletId();
+        UUID debitedWalletId = switch (movement.getType()) {
+            case DEPOSIT -> null;
+            case WITHDRAWAL -> movement.getToWalletId();
+            case TRANSFER -> movement.getFromWalletId();
+        };
+
+        if (creditedWalletId != null && !wallets.containsKey(creditedWalletId)) {
+            return String.format(WALLET_NOT_FOUND_FORMAT, creditedWalletId);
+        }
+        if (debitedWalletId != null && !wallets.containsKey(debitedWalletId)) {
+            return String.format(WALLET_NOT_FOUND_FORMAT, debitedWalletId);
+        }
+        if (debitedWalletId != null && available.get(debitedWalletId).isLessThan(amount)) {
+            return String.format(NO_FUNDS_FORMAT, debitedWalletId);
+        }
+
+        if (debitedWalletId != null) {
+            available.merge(debitedWalletId, amount.negate(), Money::plus);
+        }
+        if (creditedWalletId != null) {
+            available.merge(creditedWalletId, amount, Money::plus);
+        }
+        return null;
+    }
+
+    /**
+     * Applies a validated batch movement to the wallet entities. Credits to sharded wallets go to the wallet row,
+     * which is already locked by the batch.
+     *
+     * @param movement     Movement to apply
+     * @param wallets      Wallets of the batch
+     * @param transactions Transactions of the batch, pending to be saved
+     */
+    private void apply(WalletBatchMovement movement, Map<UUID, Wallet> wallets, List<Transaction> transactions) {
+        Money amount = Money.of(movement.getAmount());
+        switch (movement.getType()) {
+            case DEPOSIT -> {
+                Wallet wallet = wallets.get(movement.getToWalletId());
+                wallet.setBalance(wallet.getBalance().plus(amount));
+                transactions.add(newTransaction(wallet, amount, TransactionType.DEPOSIT));
+            }
+            case WITHDRAWAL -> {
+                Wallet wallet = wallets.get(movement.getToWalletId());
+                debit(wallet, amount);
+                transactions.add(newTransaction(wallet, amount.negate(), TransactionType.WITHDRAWAL));
+            }
+            case TRANSFER -> {
+                Wallet sourceWallet = wallets.get(movement.getFromWalletId());
+                Wallet destinationWallet = wallets.get(movement.getToWalletId());
+                debit(sourceWallet, amount);
+                destinationWallet.setBalance(destinationWallet.getBalance().plus(amount));
+                transactions.add(newTransaction(sourceWallet, amount.negate(), TransactionType.TRANSFER));
+                transactions.add(newTransaction(destinationWallet, amount, TransactionType.DEPOSIT));
+            }
+        }
+    }
+
+    /**
+     * Debits the wallet row first and then drains its shards in index order.
+     * The wallet row must already be locked by the caller; shards are locked here, all of them, so the
+     * insufficient funds check sees a stable total.
+     *
+     * @param wallet Wallet to debit
+     * @param amount Amount to debit
+     * @return the wallet balance after the debit, including its shards
+     */
+    private Money debit(Wallet wallet, Money amount) {
+        List<WalletShard> shards = wallet.getShardCount() > 0 ? findShardsForUpdate(wallet.getId()) : List.of();
+        Money total = wallet.getBalance();
+        for (WalletShard shard : shards) {
+            total = total.plus(shard.getBalance());
+        }
+
+        // Ensure wallet has sufficient funds
+        if (total.isLessThan(amount)) {
+            throw new NoFundsException(String.format(NO_FUNDS_FORMAT, wallet.getId()));
+        }
+
+        Money remaining = amount.minus(wallet.getBalance().min(amount));
+        wallet.setBalance(wallet.getBalance().minus(amount.minus(remaining)));
+        for (WalletShard shard : shards) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            Money drained = shard.getBalance().min(remaining);
+            if (drained.signum() > 0) {
+                shard.setBalance(shard.getBalance().minus(drained));
+                walletShardRepository.save(shard);
+                remaining = remaining.minus(drained);
+            }
+        }
+        return total.minus(amount);
+    }
+
+    /**
+     * Credits one shard of a sharded wallet, picked at random so concurrent credits spread across the shard rows.
+     *
+     * @param wallet Sharded wallet, its shard count is the one of the row read
+     * @param amount Amount to credit
+     */
+    private void creditShard(Wallet wallet, Money amount) {
+        UUID walletId = wallet.getId();
+        int shardIndex = ThreadLocalRandom.current().nextInt(wallet.getShardCount());
+        WalletShard shard = (concurrencyMode == ConcurrencyMode.OPTIMISTIC
+                ? walletShardRepository.findByWalletIdAndShardIndex(walletId, shardIndex)
+                : walletShardRepository.findByWalletIdAndShardIndexForUpdate(walletId, shardIndex))
                 .orElseThrow(() -> new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId)));
+        shard.setBalance(shard.getBalance().plus(amount));
+        walletShardRepository.save(shard);
+    }
+
+    private List<WalletShard> findShardsForUpdate(UUID walletId) {
+        return concurrencyMode == ConcurrencyMode.OPTIMISTIC
+                ? walletShardRepository.findByWalletIdOrderByShardIndex(walletId)
+                : walletShardRepository.findByWalletIdForUpdate(walletId);
+    }
+
+    /**
+     * @param wallet Wallet entity
+     * @return the wallet row balance plus the balance of its shards
+     */
+    private Money totalBalance(Wallet wallet) {
+        if (wallet.getShardCount() == 0) {
+            return wallet.getBalance();
+        }
+        return wallet.getBalance().plus(Money.of(walletShardRepository.sumBalanceByWalletId(wallet.getId())));
+    }
+
+    private void cacheBalance(Wallet wallet) {
+        if (wallet.getShardCount() == 0) {
+            walletBalanceCache.put(wallet);
+        }
+    }
+
+    /**
+     * Writes the movement event to the outbox and pushes the new balance to the stream subscribers after commit.
+     *
+     * @param transaction transaction recorded for the movement
+     * @param balance     balance of the wallet once the movement commits
+     */
+    private void recordMovement(Transaction transaction, Money balance) {
+        outboxService.append(transaction, balance);
+        balancePublisher.publish(transaction.getWallet(), balance);
     }
 
     /**
@@ -151,13 +691,46 @@ public class WalletServiceImpl implements WalletService {
      * @param type   Type of transaction (deposit or withdrawal)
      * @return Saved transaction data
      */
-    private Transaction createTransaction(Wallet wallet, BigDecimal amount, TransactionType type) {
+    private Transaction createTransaction(Wallet wallet, Money amount, TransactionType type) {
+        return transactionRepository.save(newTransaction(wallet, amount, type));
+    }
+
+    /**
+     * Converts a request amount to cents, at the boundary between the DTOs and the service.
+     * Also used by the deposit coalescer, so an invalid amount is rejected before it joins a batch.
+     *
+     * @param amount Amount of the request
+     * @return the amount in cents, rejected unless positive, as the ledger engine and batch movements do
+     */
+    static Money toMoney(BigDecimal amount) {
+        Money money = toMoneyOrNull(amount);
+        if (money == null || money.signum() <= 0) {
+            throw new InvalidRequestException(String.format(INVALID_AMOUNT_FORMAT, amount));
+        }
+        return money;
+    }
+
+    /**
+     * @param amount Amount of the request
+     * @return the amount in cents, null if it is missing, has more decimals than the currency or does not fit in cents
+     */
+    private static Money toMoneyOrNull(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Transaction newTransaction(Wallet wallet, Money amount, TransactionType type) {
         Transaction transaction = new Transaction();
         transaction.setWallet(wallet);
         transaction.setAmount(amount);
         transaction.setTimestamp(LocalDateTime.now());
         transaction.setType(type);
-
-        return transactionRepository.save(transaction);
+        return transaction;
     }
 }
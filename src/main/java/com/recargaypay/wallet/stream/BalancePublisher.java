@@ -0,0 +1,212 @@
+package com.recargaypay.wallet.stream;
+
+import com.recargaypay.wallet.model.dto.BalanceUpdate;
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process fan-out of committed wallet balances to Server-Sent Events subscribers.
+ * Every subscriber buffers a single balance, the newest one, so a slow client skips the intermediate
+ * balances instead of making the buffer grow. Idle subscribers hold no thread, events are written by
+ * short-lived virtual threads, at most one per subscriber at a time.
+ */
+@Slf4j
+@Component
+public class BalancePublisher {
+
+    public static final String BALANCE_EVENT = "balance";
+    public static final String HEARTBEAT_COMMENT = "heartbeat";
+    public static final String SUBSCRIBERS_GAUGE = "wallet.balance.stream.subscribers";
+    public static final String COALESCED_COUNTER = "wallet.balance.stream.coalesced";
+
+    private final ConcurrentHashMap<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration timeout;
+    private final Counter coalesced;
+
+    public BalancePublisher(MeterRegistry meterRegistry, @Value("${wallet.stream.timeout:30m}") Duration timeout) {
+        this.timeout = timeout;
+        meterRegistry.gauge(SUBSCRIBERS_GAUGE, subscriberCount);
+        this.coalesced = meterRegistry.counter(COALESCED_COUNTER);
+    }
+
+    /**
+     * Opens a stream of the wallet balances, starting with the given current balance.
+     *
+     * @param walletId UUID
+     * @param balance  current balance of the wallet
+     * @return emitter completed on timeout, client disconnection or shutdown
+     */
+    public SseEmitter subscribe(UUID walletId, BigDecimal balance) {
+        return subscribe(walletId, balance, new SseEmitter(timeout.toMillis()));
+    }
+
+    public SseEmitter subscribe(UUID walletId, BigDecimal balance, SseEmitter emitter) {
+        Subscription subscription = new Subscription(walletId, emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onError(error -> subscription.close());
+        emitter.onTimeout(() -> {
+            subscription.close();
+            emitter.complete();
+        });
+
+        subscriptions.compute(walletId, (id, walletSubscriptions) -> {
+            Set<Subscription> updated = walletSubscriptions == null ? ConcurrentHashMap.newKeySet() : walletSubscriptions;
+            updated.add(subscription);
+            return updated;
+        });
+        subscriberCount.incrementAndGet();
+
+        // Any committed balance, even of the same wallet version, supersedes the one read when subscribing
+        subscription.offer(new VersionedBalance(Long.MIN_VALUE, new BalanceUpdate(walletId, balance, LocalDateTime.now())));
+        return emitter;
+    }
+
+    /**
+     * Pushes the balance to the wallet subscribers once the current transaction commits, or right away when
+     * there is no transaction. Nothing is pushed if the transaction rolls back.
+     *
+     * @param wallet  Wallet entity, its version orders the balances of concurrent commits
+     * @param balance balance of the wallet once the movement commits, including shards
+     */
+    public void publish(Wallet wallet, Money balance) {
+        TransactionCallbacks.afterCommit(() -> {
+            Set<Subscription> walletSubscriptions = subscriptions.get(wallet.getId());
+            if (walletSubscriptions == null) {
+                return;
+            }
+            // The version is read here because Hibernate only increments it when the wallet is flushed
+            long version = wallet.getVersion() == null ? 0 : wallet.getVersion();
+            VersionedBalance update = new VersionedBalance(version, new BalanceUpdate(wallet.getId(), balance.toBigDecimal(), LocalDateTime.now()));
+            walletSubscriptions.forEach(subscription -> subscription.offer(update));
+        });
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Sends a comment to every subscriber, so proxies keep idle streams open and closed clients are detected.
+     */
+    @Scheduled(fixedDelayString = "${wallet.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscriptions.values().forEach(walletSubscriptions -> walletSubscriptions.forEach(Subscription::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(walletSubscriptions -> walletSubscriptions.forEach(subscription -> {
+            subscription.close();
+            subscription.emitter.complete();
+        }));
+        senders.shutdownNow();
+    }
+
+    private record VersionedBalance(long version, BalanceUpdate update) {
+    }
+
+    private final class Subscription {
+
+        private final UUID walletId;
+        private final SseEmitter emitter;
+        private final AtomicReference<VersionedBalance> latest = new AtomicReference<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile VersionedBalance sent;
+
+        private Subscription(UUID walletId, SseEmitter emitter) {
+            this.walletId = walletId;
+            this.emitter = emitter;
+        }
+
+        private void offer(VersionedBalance candidate) {
+            VersionedBalance previous;
+            do {
+                previous = latest.get();
+                if (previous != null && candidate.version() < previous.version()) {
+                    return;
+                }
+            } while (!latest.compareAndSet(previous, candidate));
+            if (previous != null && previous != sent) {
+                coalesced.increment();
+            }
+            schedule();
+        }
+
+        private void heartbeat() {
+            if (heartbeatDue.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (!closed.get() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private boolean hasPending() {
+            return latest.get() != sent || heartbeatDue.get();
+        }
+
+        private void drain() {
+            do {
+                try {
+                    while (!closed.get() && hasPending()) {
+                        VersionedBalance next = latest.get();
+                        heartbeatDue.set(false);
+                        if (next != sent) {
+                            sent = next;
+                            emitter.send(SseEmitter.event().name(BALANCE_EVENT).data(next.update(), MediaType.APPLICATION_JSON));
+                        } else {
+                            emitter.send(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+                        }
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Balance stream of wallet {} closed: {}", walletId, e.getMessage());
+                    close();
+                } finally {
+                    draining.set(false);
+                }
+                // A balance offered between the last check and the release is picked up here
+            } while (!closed.get() && hasPending() && draining.compareAndSet(false, true));
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.computeIfPresent(walletId, (id, walletSubscriptions) -> {
+                walletSubscriptions.remove(this);
+                return walletSubscriptions.isEmpty() ? null : walletSubscriptions;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+}
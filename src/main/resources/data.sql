@@ -1,7 +1,13 @@
 -- Drop the tables if they exist
+DROP TABLE IF EXISTS LEDGER_SEGMENT;
+DROP TABLE IF EXISTS OUTBOX_EVENT;
+DROP TABLE IF EXISTS IDEMPOTENCY_KEY;
+DROP TABLE IF EXISTS BALANCE_CHECKPOINT;
+DROP TABLE IF EXISTS WALLET_SHARD;
 DROP TABLE IF EXISTS TRANSACTION_RPAY;
 DROP TABLE IF EXISTS WALLET;
 DROP TABLE IF EXISTS USER_RPAY;
+DROP SEQUENCE IF EXISTS OUTBOX_EVENT_SEQ;
 
 -- Create the users table
 CREATE TABLE USER_RPAY (
@@ -13,13 +19,26 @@ CREATE TABLE USER_RPAY (
 -- Create the wallets table
 CREATE TABLE WALLET (
     id UUID PRIMARY KEY,
-    balance DECIMAL(10, 2),
+    balance DECIMAL(19, 2),
     user_uid UUID NOT NULL,
     version BIGINT,
     updated_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    shard_count INT DEFAULT 0 NOT NULL,
     FOREIGN KEY (user_uid) REFERENCES USER_RPAY(id) ON DELETE CASCADE
 );
 
+-- Create wallet shard table, sub-balances receiving the credits of hot wallets
+CREATE TABLE WALLET_SHARD (
+    id UUID PRIMARY KEY,
+    wallet_id UUID NOT NULL,
+    shard_index INT NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    version BIGINT,
+    UNIQUE (wallet_id, shard_index),
+    FOREIGN KEY (wallet_id) REFERENCES WALLET(id)
+);
+
 -- Create transaction table
 CREATE TABLE TRANSACTION_RPAY (
                              id UUID PRIMARY KEY,
@@ -30,6 +49,49 @@ CREATE TABLE TRANSACTION_RPAY (
                              FOREIGN KEY (wallet_id) REFERENCES WALLET(id)
 );
 
+-- Create balance checkpoint table, each row holds the sum of the wallet transactions before checkpoint_at
+CREATE TABLE BALANCE_CHECKPOINT (
+                             id UUID PRIMARY KEY,
+                             wallet_id UUID NOT NULL,
+                             balance DECIMAL(19, 2) NOT NULL,
+                             transaction_count BIGINT NOT NULL,
+                             checkpoint_at TIMESTAMP NOT NULL,
+                             FOREIGN KEY (wallet_id) REFERENCES WALLET(id)
+);
+
+-- Create idempotency key table, responses of the movements sent with an Idempotency-Key header
+CREATE TABLE IDEMPOTENCY_KEY (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    operation VARCHAR(20) NOT NULL,
+    request_hash VARCHAR(36) NOT NULL,
+    response VARCHAR(2000) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- Create outbox table, wallet movements waiting to be relayed to the event sink. The sequence increment matches the
+-- allocationSize of OutboxEvent and hibernate.jdbc.batch_size, inserts without an id take a value of their own
+CREATE SEQUENCE OUTBOX_EVENT_SEQ START WITH 1 INCREMENT BY 50;
+CREATE TABLE OUTBOX_EVENT (
+    id BIGINT DEFAULT NEXT VALUE FOR OUTBOX_EVENT_SEQ PRIMARY KEY,
+    wallet_id UUID NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    occurred_at TIMESTAMP NOT NULL
+);
+
+-- Create ledger segment table, closed months of TRANSACTION_RPAY moved to compressed segment files
+CREATE TABLE LEDGER_SEGMENT (
+    id UUID PRIMARY KEY,
+    period_start TIMESTAMP NOT NULL UNIQUE,
+    period_end TIMESTAMP NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    wallet_count INT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
 -- Insert 2 users
 INSERT INTO USER_RPAY (id, name, email) VALUES
 ('1a4f7b78-e774-4e98-97d2-734dd06b2c58', 'John Doe', 'john.doe@example.com'),
@@ -46,6 +108,16 @@ CREATE INDEX idx_email ON USER_RPAY(email);
 -- Create index on the wallet table for optimizing searches by user_uid
 CREATE INDEX idx_user_uid ON WALLET(user_uid);
 
--- create indexes on transaction table to improve searches by wallet id and timestamp
-CREATE INDEX idx_transaction_wallet_id ON TRANSACTION_RPAY(wallet_id);
+-- create index on wallet table for the incremental reloads of the existence filter
+CREATE INDEX idx_wallet_created_at ON WALLET(created_at);
+
+-- create indexes on transaction table to improve searches by wallet id and timestamp,
+-- the composite index also covers the amount so ledger sums never read the table rows
+CREATE INDEX idx_transaction_wallet_timestamp ON TRANSACTION_RPAY(wallet_id, timestamp, amount);
 CREATE INDEX idx_transaction_timestamp ON TRANSACTION_RPAY(timestamp);
+
+-- create index on checkpoint table to find the nearest checkpoint of a wallet
+CREATE INDEX idx_checkpoint_wallet_at ON BALANCE_CHECKPOINT(wallet_id, checkpoint_at);
+
+-- create index on idempotency key table to purge expired keys
+CREATE INDEX idx_idempotency_expires_at ON IDEMPOTENCY_KEY(expires_at);
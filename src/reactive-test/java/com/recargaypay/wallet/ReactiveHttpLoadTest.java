@@ -0,0 +1,11 @@
+package com.recargaypay.wallet;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@Tag("load")
+class ReactiveHttpLoadTest extends HttpLoadTest.Workload {
+}
@@ -0,0 +1,64 @@
+package com.recargaypay.wallet.reactive;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import javax.sql.DataSource;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Routes of the reactive stack, under the same paths as {@code WalletController}.
+ * Batches, shards, balance streams, paginated history and idempotency keys are only served by the servlet stack.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWalletConfig {
+
+    private static final String BASE_PATH = "/api/v1/wallet";
+
+    /**
+     * The R2DBC transaction manager is not a bean, a second {@code TransactionManager} would leave the
+     * {@code @Transactional} services of the JPA stack without a default one.
+     */
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    /**
+     * With a {@link ConnectionFactory} in the context Spring Boot would run data.sql through R2DBC, before Hibernate
+     * recreates the tables. Declaring the JDBC initializer keeps the order of the servlet stack.
+     */
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(DataSource dataSource,
+                                                                                      SqlInitializationProperties properties) {
+        return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> walletRoutes(ReactiveWalletHandler handler) {
+        return route()
+                .path(BASE_PATH, builder -> builder
+                        .POST("", handler::createWallet)
+                        .GET("/{walletId}/balance", handler::getBalance)
+                        .POST("/balances", accept(MediaType.APPLICATION_NDJSON), handler::streamBalances)
+                        .POST("/balances", handler::getBalances)
+                        .GET("/{walletId}/balance/historical", handler::getHistoricalBalance)
+                        .GET("/{walletId}/transactions", accept(MediaType.APPLICATION_NDJSON), handler::streamTransactions)
+                        .POST("/deposit", handler::deposit)
+                        .POST("/withdraw", handler::withdraw)
+                        .POST("/transfer", handler::transfer))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.recargaypay.wallet.reactive;
+
+import com.recargaypay.wallet.model.dto.CreateWalletRequest;
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletBalancesRequest;
+import com.recargaypay.wallet.model.dto.WalletTransactionRequest;
+import com.recargaypay.wallet.model.dto.WalletTransferRequest;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Handlers of the routes of {@link ReactiveWalletConfig}, with the request and response bodies of {@code WalletController}.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveWalletHandler {
+
+    private final ReactiveWalletService walletService;
+
+    public ReactiveWalletHandler(ReactiveWalletService walletService) {
+        this.walletService = walletService;
+    }
+
+    public Mono<ServerResponse> createWallet(ServerRequest request) {
+        return request.bodyToMono(CreateWalletRequest.class)
+                .flatMap(body -> walletService.createWallet(body.getUserUid()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    public Mono<ServerResponse> getBalance(ServerRequest request) {
+        return walletService.getBalance(walletId(request))
+                .flatMap(balance -> ServerResponse.ok().bodyValue(balance));
+    }
+
+    public Mono<ServerResponse> getBalances(ServerRequest request) {
+        return request.bodyToMono(WalletBalancesRequest.class)
+                .flatMap(body -> ServerResponse.ok().body(walletService.getBalances(body.getWalletIds()), WalletBalanceResponse.class));
+    }
+
+    public Mono<ServerResponse> streamBalances(ServerRequest request) {
+        return request.bodyToMono(WalletBalancesRequest.class)
+                .flatMap(body -> ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                        .body(walletService.getBalances(body.getWalletIds()), WalletBalanceResponse.class));
+    }
+
+    public Mono<ServerResponse> getHistoricalBalance(ServerRequest request) {
+        LocalDateTime timestamp = LocalDateTime.parse(request.queryParam("timestamp").orElseThrow());
+        return walletService.getHistoricalBalance(walletId(request), timestamp)
+                .flatMap(balance -> ServerResponse.ok().bodyValue(balance));
+    }
+
+    public Mono<ServerResponse> streamTransactions(ServerRequest request) {
+        TransactionHistoryFilter filter = new TransactionHistoryFilter();
+        filter.setWalletId(walletId(request));
+        filter.setType(request.queryParam("type").map(TransactionType::valueOf).orElse(null));
+        filter.setFrom(request.queryParam("from").map(LocalDateTime::parse).orElse(null));
+        filter.setTo(request.queryParam("to").map(LocalDateTime::parse).orElse(null));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(walletService.streamTransactions(filter), TransactionResponse.class);
+    }
+
+    public Mono<ServerResponse> deposit(ServerRequest request) {
+        return request.bodyToMono(WalletTransactionRequest.class)
+                .flatMap(body -> walletService.deposit(body.getToWalletId(), body.getAmount()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    public Mono<ServerResponse> withdraw(ServerRequest request) {
+        return request.bodyToMono(WalletTransactionRequest.class)
+                .flatMap(body -> walletService.withdraw(body.getToWalletId(), body.getAmount()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    public Mono<ServerResponse> transfer(ServerRequest request) {
+        return request.bodyToMono(WalletTransferRequest.class)
+                .flatMap(body -> walletService.transfer(body.getFromWalletId(), body.getToWalletId(), body.getAmount()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    private static UUID walletId(ServerRequest request) {
+        return UUID.fromString(request.pathVariable("walletId"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.recargaypay.wallet.reactive;
+
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * R2DBC access to the tables of data.sql. Balances are updated with a single conditional {@code UPDATE}, so the row
+ * lock is held only by the statement and its transaction, never while a thread waits on the network.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveWalletRepository {
+
+    /**
+     * Wallet row balance plus the balance of its shards
+     */
+    private static final String TOTAL_BALANCE = "w.balance + COALESCE((SELECT SUM(s.balance) FROM WALLET_SHARD s WHERE s.wallet_id = w.id), 0)";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveWalletRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    public Mono<Boolean> userExists(UUID userId) {
+        return databaseClient.sql("SELECT COUNT(*) AS users FROM USER_RPAY WHERE id = :id")
+                .bind("id", userId)
+                .map(row -> row.get("users", Long.class) > 0)
+                .one();
+    }
+
+    public Mono<Void> insertWallet(UUID walletId, UUID userId, LocalDateTime now) {
+        return databaseClient.sql("INSERT INTO WALLET (id, balance, user_uid, version, updated_at, shard_count) " +
+                        "VALUES (:id, 0, :userId, 0, :now, 0)")
+                .bind("id", walletId)
+                .bind("userId", userId)
+                .bind("now", now)
+                .then();
+    }
+
+    /**
+     * @return the wallet shard count, empty if the wallet does not exist
+     */
+    public Mono<Integer> findShardCount(UUID walletId) {
+        return databaseClient.sql("SELECT shard_count FROM WALLET WHERE id = :id")
+                .bind("id", walletId)
+                .map(row -> row.get("shard_count", Integer.class))
+                .one();
+    }
+
+    /**
+     * @return the balance of the wallet including its shards, empty if the wallet does not exist
+     */
+    public Mono<BigDecimal> findBalance(UUID walletId) {
+        return databaseClient.sql("SELECT " + TOTAL_BALANCE + " AS balance FROM WALLET w WHERE w.id = :id")
+                .bind("id", walletId)
+                .map(row -> row.get("balance", BigDecimal.class))
+                .one();
+    }
+
+    /**
+     * @return ID and balance of the wallets found, unknown IDs are left out
+     */
+    public Flux<WalletBalance> findBalances(Collection<UUID> walletIds) {
+        return databaseClient.sql("SELECT w.id, " + TOTAL_BALANCE + " AS balance FROM WALLET w WHERE w.id IN (:ids)")
+                .bind("ids", walletIds)
+                .map(row -> new WalletBalance(row.get("id", UUID.class), row.get("balance", BigDecimal.class)))
+                .all();
+    }
+
+    /**
+     * Adds the amount to an unsharded wallet.
+     *
+     * @return 1 if the wallet was credited, 0 if it does not exist or is sharded
+     */
+    public Mono<Long> credit(UUID walletId, BigDecimal amount, LocalDateTime now) {
+        return databaseClient.sql("UPDATE WALLET SET balance = balance + :amount, version = version + 1, updated_at = :now " +
+                        "WHERE id = :id AND shard_count = 0")
+                .bind("amount", amount)
+                .bind("now", now)
+                .bind("id", walletId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Subtracts the amount from an unsharded wallet holding at least that amount.
+     *
+     * @return 1 if the wallet was debited, 0 if it does not exist, is sharded or has insufficient funds
+     */
+    public Mono<Long> debit(UUID walletId, BigDecimal amount, LocalDateTime now) {
+        return databaseClient.sql("UPDATE WALLET SET balance = balance - :amount, version = version + 1, updated_at = :now " +
+                        "WHERE id = :id AND shard_count = 0 AND balance >= :amount")
+                .bind("amount", amount)
+                .bind("now", now)
+                .bind("id", walletId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<WalletTransactionResponse> findWalletResponse(UUID walletId) {
+        return databaseClient.sql("SELECT id, user_uid, balance, updated_at FROM WALLET WHERE id = :id")
+                .bind("id", walletId)
+                .map(ReactiveWalletRepository::toWalletResponse)
+                .one();
+    }
+
+    /**
+     * Writes the transaction and its outbox event, as {@code WalletServiceImpl} does in the transaction of the movement.
+     */
+    public Mono<Void> recordMovement(UUID walletId, TransactionType type, BigDecimal amount, BigDecimal balance, LocalDateTime now) {
+        Mono<Void> transaction = databaseClient.sql("INSERT INTO TRANSACTION_RPAY (id, wallet_id, amount, timestamp, type) " +
+                        "VALUES (:id, :walletId, :amount, :now, :type)")
+                .bind("id", UUID.randomUUID())
+                .bind("walletId", walletId)
+                .bind("amount", amount)
+                .bind("now", now)
+                .bind("type", type.name())
+                .then();
+        Mono<Void> event = databaseClient.sql("INSERT INTO OUTBOX_EVENT (wallet_id, type, amount, balance, occurred_at) " +
+                        "VALUES (:walletId, :type, :amount, :balance, :now)")
+                .bind("walletId", walletId)
+                .bind("type", type.name())
+                .bind("amount", amount)
+                .bind("balance", balance)
+                .bind("now", now)
+                .then();
+        return transaction.then(event);
+    }
+
+    /**
+     * Transactions of the wallet in timestamp order, emitted as the rows are read.
+     */
+    public Flux<TransactionResponse> streamHistory(UUID walletId, TransactionType type, LocalDateTime from, LocalDateTime to) {
+        StringBuilder sql = new StringBuilder("SELECT id, wallet_id, type, amount, timestamp FROM TRANSACTION_RPAY WHERE wallet_id = :walletId");
+        if (type != null) {
+            sql.append(" AND type = :type");
+        }
+        if (from != null) {
+            sql.append(" AND timestamp >= :from");
+        }
+        if (to != null) {
+            sql.append(" AND timestamp < :to");
+        }
+        sql.append(" ORDER BY timestamp, id");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("walletId", walletId);
+        if (type != null) {
+            spec = spec.bind("type", type.name());
+        }
+        if (from != null) {
+            spec = spec.bind("from", from);
+        }
+        if (to != null) {
+            spec = spec.bind("to", to);
+        }
+        return spec.map(row -> new TransactionResponse(row.get("id", UUID.class), row.get("wallet_id", UUID.class),
+                        TransactionType.valueOf(row.get("type", String.class)), row.get("amount", BigDecimal.class),
+                        row.get("timestamp", LocalDateTime.class)))
+                .all();
+    }
+
+    private static WalletTransactionResponse toWalletResponse(Readable row) {
+        WalletTransactionResponse response = new WalletTransactionResponse();
+        response.setId(row.get("id", UUID.class));
+        response.setUserId(row.get("user_uid", UUID.class));
+        response.setBalance(row.get("balance", BigDecimal.class));
+        response.setLastUpdated(row.get("updated_at", LocalDateTime.class));
+        return response;
+    }
+
+    /**
+     * @param walletId UUID
+     * @param balance  balance including shards
+     */
+    public record WalletBalance(UUID walletId, BigDecimal balance) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.recargaypay.wallet.reactive;
+
+import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@code WalletService}, with the same results and errors.
+ */
+public interface ReactiveWalletService {
+
+    Mono<CreateWalletResponse> createWallet(UUID userId);
+
+    Mono<BigDecimal> getBalance(UUID walletId);
+
+    /**
+     * @return the balance of every wallet, in the order of the IDs, unknown wallets reported in their own response
+     */
+    Flux<WalletBalanceResponse> getBalances(List<UUID> walletIds);
+
+    Mono<BigDecimal> getHistoricalBalance(UUID walletId, LocalDateTime timestamp);
+
+    Mono<WalletTransactionResponse> deposit(UUID walletId, BigDecimal amount);
+
+    Mono<WalletTransactionResponse> withdraw(UUID walletId, BigDecimal amount);
+
+    /**
+     * @return the destination wallet data, including its updated balance
+     */
+    Mono<WalletTransactionResponse> transfer(UUID sourceWalletId, UUID destinationWalletId, BigDecimal amount);
+
+    Flux<TransactionResponse> streamTransactions(TransactionHistoryFilter filter);
+}
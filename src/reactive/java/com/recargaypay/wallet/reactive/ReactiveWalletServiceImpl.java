@@ -0,0 +1,213 @@
+package com.recargaypay.wallet.reactive;
+
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.exception.NoFundsException;
+import com.recargaypay.wallet.exception.UserNotFoundException;
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.INVALID_AMOUNT_FORMAT;
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.NO_FUNDS_FORMAT;
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.TOO_MANY_WALLETS_FORMAT;
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.USER_NOT_FOUND_FORMAT;
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.WALLET_NOT_FOUND_FORMAT;
+
+/**
+ * Movements are conditional {@code UPDATE}s in an R2DBC transaction: a debit only matches a wallet holding the amount,
+ * and when nothing matches the wallet is read once to tell a missing wallet from insufficient funds.
+ * Sharded wallets are only readable here, movements on them are rejected.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveWalletServiceImpl implements ReactiveWalletService {
+
+    public static final String SHARDED_UNSUPPORTED_FORMAT = "Wallet %s is sharded, its movements are not supported by the reactive stack";
+
+    /**
+     * Wallet IDs resolved per query by {@link #getBalances}
+     */
+    private static final int BALANCE_LOOKUP_CHUNK_SIZE = 500;
+
+    private final ReactiveWalletRepository walletRepository;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final TransactionalOperator transactionalOperator;
+    private final int maxBatchSize;
+
+    public ReactiveWalletServiceImpl(ReactiveWalletRepository walletRepository, BalanceCheckpointService balanceCheckpointService,
+                                     TransactionalOperator transactionalOperator,
+                                     @Value("${wallet.batch.max-size:1000}") int maxBatchSize) {
+        this.walletRepository = walletRepository;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.transactionalOperator = transactionalOperator;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public Mono<CreateWalletResponse> createWallet(UUID userId) {
+        UUID walletId = UUID.randomUUID();
+        return walletRepository.userExists(userId)
+                .flatMap(exists -> exists
+                        ? walletRepository.insertWallet(walletId, userId, LocalDateTime.now())
+                        : Mono.error(new UserNotFoundException(String.format(USER_NOT_FOUND_FORMAT, userId))))
+                .then(Mono.fromSupplier(() -> {
+                    CreateWalletResponse response = new CreateWalletResponse();
+                    response.setWalletId(walletId);
+                    response.setUserId(userId);
+                    return response;
+                }));
+    }
+
+    @Override
+    public Mono<BigDecimal> getBalance(UUID walletId) {
+        return walletRepository.findBalance(walletId)
+                .switchIfEmpty(Mono.error(() -> walletNotFound(walletId)));
+    }
+
+    @Override
+    public Flux<WalletBalanceResponse> getBalances(List<UUID> walletIds) {
+        if (walletIds.size() > maxBatchSize) {
+            return Flux.error(new InvalidRequestException(String.format(TOO_MANY_WALLETS_FORMAT, walletIds.size(), maxBatchSize)));
+        }
+        // Chunks are queried one at a time, so a large lookup holds a single connection and the order is kept
+        return Flux.fromIterable(walletIds)
+                .buffer(BALANCE_LOOKUP_CHUNK_SIZE)
+                .concatMap(chunk -> findBalances(chunk)
+                        .flatMapIterable(balances -> chunk.stream().map(walletId -> toBalanceResponse(walletId, balances)).toList()));
+    }
+
+    /**
+     * Checkpoints and archived segments are read through the blocking {@link BalanceCheckpointService}, on the bounded
+     * elastic scheduler so the event loop never waits on JDBC.
+     */
+    @Override
+    public Mono<BigDecimal> getHistoricalBalance(UUID walletId, LocalDateTime timestamp) {
+        return Mono.fromCallable(() -> balanceCheckpointService.getBalanceAt(walletId, timestamp))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<WalletTransactionResponse> deposit(UUID walletId, BigDecimal amount) {
+        return toAmount(amount).flatMap(money -> {
+            LocalDateTime now = LocalDateTime.now();
+            return credit(walletId, money, now)
+                    .then(recordMovement(walletId, TransactionType.DEPOSIT, money, now))
+                    .as(transactionalOperator::transactional);
+        });
+    }
+
+    @Override
+    public Mono<WalletTransactionResponse> withdraw(UUID walletId, BigDecimal amount) {
+        return toAmount(amount).flatMap(money -> {
+            LocalDateTime now = LocalDateTime.now();
+            return debit(walletId, money, now)
+                    .then(recordMovement(walletId, TransactionType.WITHDRAWAL, money.negate(), now))
+                    .as(transactionalOperator::transactional);
+        });
+    }
+
+    @Override
+    public Mono<WalletTransactionResponse> transfer(UUID sourceWalletId, UUID destinationWalletId, BigDecimal amount) {
+        return toAmount(amount).flatMap(money -> {
+            LocalDateTime now = LocalDateTime.now();
+            // Rows are updated in UUID order, as WalletServiceImpl locks them, so opposite transfers cannot deadlock
+            Mono<Void> movement = sourceWalletId.compareTo(destinationWalletId) <= 0
+                    ? debit(sourceWalletId, money, now).then(credit(destinationWalletId, money, now))
+                    : credit(destinationWalletId, money, now).then(debit(sourceWalletId, money, now));
+            return movement
+                    .then(recordMovement(sourceWalletId, TransactionType.TRANSFER, money.negate(), now))
+                    .then(recordMovement(destinationWalletId, TransactionType.DEPOSIT, money, now))
+                    .as(transactionalOperator::transactional);
+        });
+    }
+
+    @Override
+    public Flux<TransactionResponse> streamTransactions(TransactionHistoryFilter filter) {
+        return walletRepository.findShardCount(filter.getWalletId())
+                .switchIfEmpty(Mono.error(() -> walletNotFound(filter.getWalletId())))
+                .thenMany(walletRepository.streamHistory(filter.getWalletId(), filter.getType(), filter.getFrom(), filter.getTo()));
+    }
+
+    private Mono<Map<UUID, BigDecimal>> findBalances(List<UUID> walletIds) {
+        List<UUID> ids = walletIds.stream().filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return walletRepository.findBalances(ids)
+                .collectMap(ReactiveWalletRepository.WalletBalance::walletId, ReactiveWalletRepository.WalletBalance::balance);
+    }
+
+    private Mono<Void> credit(UUID walletId, Money amount, LocalDateTime now) {
+        return walletRepository.credit(walletId, amount.toBigDecimal(), now)
+                .flatMap(updated -> updated > 0 ? Mono.<Void>empty() : explainFailure(walletId, null));
+    }
+
+    private Mono<Void> debit(UUID walletId, Money amount, LocalDateTime now) {
+        return walletRepository.debit(walletId, amount.toBigDecimal(), now)
+                .flatMap(updated -> updated > 0 ? Mono.<Void>empty()
+                        : explainFailure(walletId, new NoFundsException(String.format(NO_FUNDS_FORMAT, walletId))));
+    }
+
+    /**
+     * @param noMatch error raised when the wallet exists and is not sharded
+     */
+    private Mono<Void> explainFailure(UUID walletId, RuntimeException noMatch) {
+        return walletRepository.findShardCount(walletId)
+                .switchIfEmpty(Mono.error(() -> walletNotFound(walletId)))
+                .flatMap(shardCount -> Mono.error(shardCount > 0
+                        ? new InvalidRequestException(String.format(SHARDED_UNSUPPORTED_FORMAT, walletId))
+                        : Objects.requireNonNullElseGet(noMatch, () -> walletNotFound(walletId))));
+    }
+
+    /**
+     * @return the wallet data read back in the movement transaction, with the balance it commits with
+     */
+    private Mono<WalletTransactionResponse> recordMovement(UUID walletId, TransactionType type, Money amount, LocalDateTime now) {
+        return walletRepository.findWalletResponse(walletId)
+                .flatMap(response -> walletRepository
+                        .recordMovement(walletId, type, amount.toBigDecimal(), response.getBalance(), now)
+                        .thenReturn(response));
+    }
+
+    private static WalletBalanceResponse toBalanceResponse(UUID walletId, Map<UUID, BigDecimal> balances) {
+        BigDecimal balance = walletId == null ? null : balances.get(walletId);
+        return balance != null
+                ? new WalletBalanceResponse(walletId, balance, null)
+                : new WalletBalanceResponse(walletId, null, String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+    }
+
+    private static Mono<Money> toAmount(BigDecimal amount) {
+        try {
+            if (amount != null && amount.signum() > 0) {
+                return Mono.just(Money.of(amount));
+            }
+        } catch (ArithmeticException e) {
+            // Reported below with the same message as WalletServiceImpl
+        }
+        return Mono.error(new InvalidRequestException(String.format(INVALID_AMOUNT_FORMAT, amount)));
+    }
+
+    private static WalletNotFoundException walletNotFound(UUID walletId) {
+        return new WalletNotFoundException(String.format(WALLET_NOT_FOUND_FORMAT, walletId));
+    }
+}
@@ -0,0 +1,154 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.model.dto.LedgerSum;
+import com.recargaypay.wallet.model.entity.BalanceCheckpoint;
+import com.recargaypay.wallet.repository.BalanceCheckpointRepository;
+import com.recargaypay.wallet.repository.TransactionRepository;
+import com.recargaypay.wallet.service.LedgerArchiveService;
+import com.recargaypay.wallet.service.impl.BalanceCheckpointServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BalanceCheckpointServiceTest {
+
+    private BalanceCheckpointServiceImpl balanceCheckpointService;
+
+    @Mock
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private LedgerArchiveService ledgerArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        balanceCheckpointService = new BalanceCheckpointServiceImpl(balanceCheckpointRepository, transactionRepository, ledgerArchiveService);
+    }
+
+    @Test
+    void testGetBalanceAt_NoCheckpoint() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime timestamp = LocalDateTime.now();
+        when(balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, timestamp))
+                .thenReturn(Optional.empty());
+        when(transactionRepository.sumByWalletIdBefore(walletId, timestamp))
+                .thenReturn(new LedgerSum(BigDecimal.valueOf(70), 2L));
+
+        assertEquals(BigDecimal.valueOf(70), balanceCheckpointService.getBalanceAt(walletId, timestamp));
+    }
+
+    @Test
+    void testGetBalanceAt_SumsOnlyDeltaAfterCheckpoint() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime timestamp = LocalDateTime.now();
+        BalanceCheckpoint checkpoint = checkpoint(walletId, BigDecimal.valueOf(500), 10, timestamp.minusDays(1));
+        when(balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, timestamp))
+                .thenReturn(Optional.of(checkpoint));
+        when(transactionRepository.sumByWalletIdBetween(walletId, checkpoint.getCheckpointAt(), timestamp))
+                .thenReturn(new LedgerSum(BigDecimal.valueOf(25), 1L));
+
+        assertEquals(BigDecimal.valueOf(525), balanceCheckpointService.getBalanceAt(walletId, timestamp));
+        verify(transactionRepository, never()).sumByWalletIdBefore(any(), any());
+    }
+
+    @Test
+    void testGetBalanceAt_CheckpointBeforeArchiveIgnored() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime timestamp = LocalDateTime.now();
+        LocalDateTime archivedUntil = timestamp.minusDays(10);
+        BalanceCheckpoint checkpoint = checkpoint(walletId, BigDecimal.valueOf(500), 10, archivedUntil.minusDays(1));
+        when(ledgerArchiveService.archivedUntil()).thenReturn(Optional.of(archivedUntil));
+        when(balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, timestamp))
+                .thenReturn(Optional.of(checkpoint));
+        when(ledgerArchiveService.sumArchivedBefore(walletId, timestamp)).thenReturn(new LedgerSum(BigDecimal.valueOf(520), 11L));
+        when(transactionRepository.sumByWalletIdBefore(walletId, timestamp)).thenReturn(new LedgerSum(BigDecimal.valueOf(5), 1L));
+
+        assertEquals(BigDecimal.valueOf(525), balanceCheckpointService.getBalanceAt(walletId, timestamp));
+        verify(transactionRepository, never()).sumByWalletIdBetween(any(), any(), any());
+    }
+
+    @Test
+    void testCheckpoint_StartsFromArchive() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime cutoff = LocalDateTime.now();
+        LocalDateTime archivedUntil = cutoff.minusDays(10);
+        when(ledgerArchiveService.archivedUntil()).thenReturn(Optional.of(archivedUntil));
+        when(balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, cutoff))
+                .thenReturn(Optional.empty());
+        when(ledgerArchiveService.sumArchivedBefore(walletId, archivedUntil)).thenReturn(new LedgerSum(BigDecimal.valueOf(500), 10L));
+        when(transactionRepository.sumByWalletIdBefore(walletId, cutoff)).thenReturn(new LedgerSum(BigDecimal.valueOf(30), 2L));
+        when(balanceCheckpointRepository.save(any(BalanceCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<BalanceCheckpoint> checkpoint = balanceCheckpointService.checkpoint(walletId, cutoff);
+
+        assertTrue(checkpoint.isPresent());
+        assertEquals(BigDecimal.valueOf(530), checkpoint.get().getBalance());
+        assertEquals(12, checkpoint.get().getTransactionCount());
+    }
+
+    @Test
+    void testCheckpoint_ExtendsPreviousCheckpoint() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime cutoff = LocalDateTime.now();
+        BalanceCheckpoint previous = checkpoint(walletId, BigDecimal.valueOf(500), 10, cutoff.minusDays(1));
+        when(balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, cutoff))
+                .thenReturn(Optional.of(previous));
+        when(transactionRepository.sumByWalletIdBetween(walletId, previous.getCheckpointAt(), cutoff))
+                .thenReturn(new LedgerSum(BigDecimal.valueOf(30), 2L));
+        when(balanceCheckpointRepository.save(any(BalanceCheckpoint.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<BalanceCheckpoint> checkpoint = balanceCheckpointService.checkpoint(walletId, cutoff);
+
+        assertTrue(checkpoint.isPresent());
+        assertEquals(BigDecimal.valueOf(530), checkpoint.get().getBalance());
+        assertEquals(12, checkpoint.get().getTransactionCount());
+        assertEquals(cutoff, checkpoint.get().getCheckpointAt());
+    }
+
+    @Test
+    void testCheckpoint_NoNewTransactions() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(balanceCheckpointRepository.findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, cutoff))
+                .thenReturn(Optional.empty());
+        when(transactionRepository.sumByWalletIdBefore(walletId, cutoff)).thenReturn(new LedgerSum(BigDecimal.ZERO, 0L));
+
+        assertTrue(balanceCheckpointService.checkpoint(walletId, cutoff).isEmpty());
+        verify(balanceCheckpointRepository, never()).save(any(BalanceCheckpoint.class));
+    }
+
+    @Test
+    void testVerifyLatestCheckpoints_ReportsMismatch() {
+        UUID walletId = UUID.randomUUID();
+        BalanceCheckpoint checkpoint = checkpoint(walletId, BigDecimal.valueOf(500), 1, LocalDateTime.now());
+        when(balanceCheckpointRepository.findLatestPerWallet()).thenReturn(List.of(checkpoint));
+        when(transactionRepository.sumByWalletIdBefore(walletId, checkpoint.getCheckpointAt()))
+                .thenReturn(new LedgerSum(BigDecimal.valueOf(400), 1L));
+
+        assertEquals(List.of(walletId), balanceCheckpointService.verifyLatestCheckpoints(10));
+    }
+
+    private static BalanceCheckpoint checkpoint(UUID walletId, BigDecimal balance, long transactionCount, LocalDateTime checkpointAt) {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setWalletId(walletId);
+        checkpoint.setBalance(balance);
+        checkpoint.setTransactionCount(transactionCount);
+        checkpoint.setCheckpointAt(checkpointAt);
+        return checkpoint;
+    }
+}
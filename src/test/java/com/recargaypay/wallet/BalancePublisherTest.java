@@ -0,0 +1,145 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.model.dto.BalanceUpdate;
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.stream.BalancePublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalancePublisherTest {
+
+    private BalancePublisher balancePublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final UUID walletId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        balancePublisher = new BalancePublisher(meterRegistry, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        balancePublisher.shutdown();
+    }
+
+    @Test
+    void testPublish_SlowSubscriberOnlyGetsLatestBalance() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(1));
+        balancePublisher.subscribe(walletId, BigDecimal.ZERO, emitter);
+        assertTrue(emitter.sending.await(5, TimeUnit.SECONDS));
+
+        // The initial balance is still being written, the three commits collapse into the last one
+        balancePublisher.publish(wallet(1L), money(10));
+        balancePublisher.publish(wallet(2L), money(20));
+        balancePublisher.publish(wallet(3L), money(30));
+        emitter.release.countDown();
+
+        awaitTrue(() -> emitter.balances.size() == 2);
+        assertEquals(List.of(Money.ZERO, money(30)), emitter.balances);
+        assertEquals(2, meterRegistry.get(BalancePublisher.COALESCED_COUNTER).counter().count());
+    }
+
+    @Test
+    void testPublish_OlderVersionIsNotSent() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        balancePublisher.subscribe(walletId, BigDecimal.ZERO, emitter);
+
+        balancePublisher.publish(wallet(2L), money(20));
+        balancePublisher.publish(wallet(1L), money(10));
+        balancePublisher.publish(wallet(3L), money(30));
+
+        awaitTrue(() -> emitter.balances.contains(money(30)));
+        assertFalse(emitter.balances.contains(money(10)));
+    }
+
+    @Test
+    void testPublish_OtherWalletSubscribersAreNotNotified() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        balancePublisher.subscribe(UUID.randomUUID(), BigDecimal.ZERO, emitter);
+        awaitTrue(() -> emitter.balances.size() == 1);
+
+        balancePublisher.publish(wallet(1L), money(10));
+
+        assertEquals(List.of(Money.ZERO), emitter.balances);
+    }
+
+    @Test
+    void testSubscribe_FailedSendClosesSubscription() throws Exception {
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        balancePublisher.subscribe(walletId, BigDecimal.ZERO, emitter);
+
+        awaitTrue(() -> balancePublisher.subscriberCount() == 0);
+        assertEquals(0, meterRegistry.get(BalancePublisher.SUBSCRIBERS_GAUGE).gauge().value());
+    }
+
+    private Wallet wallet(Long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setVersion(version);
+        return wallet;
+    }
+
+    private static Money money(long value) {
+        return Money.of(BigDecimal.valueOf(value));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Records the sent balances, the first send blocks until released to simulate a slow client.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Money> balances = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            builder.build().stream()
+                    .filter(data -> data.getData() instanceof BalanceUpdate)
+                    .forEach(data -> balances.add(Money.of(((BalanceUpdate) data.getData()).getBalance())));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.service.WalletService;
+import com.recargaypay.wallet.service.impl.DepositCoalescingServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DepositCoalescingServiceTest {
+
+    private DepositCoalescingServiceImpl depositCoalescingService;
+
+    @Mock
+    private WalletService walletService;
+
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        // A long window so every deposit of the test lands in the same batch, which flushes when full
+        depositCoalescingService = new DepositCoalescingServiceImpl(walletService, true, 10_000_000, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        depositCoalescingService.shutdown();
+        callers.shutdown();
+    }
+
+    @Test
+    void testDeposit_CoalescedIntoOneTransaction() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.depositAll(eq(walletId), anyList())).thenAnswer(invocation -> {
+            List<BigDecimal> amounts = invocation.getArgument(1);
+            return amounts.stream().map(DepositCoalescingServiceTest::response).toList();
+        });
+
+        List<CompletableFuture<WalletTransactionResponse>> responses = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            BigDecimal amount = BigDecimal.valueOf(i);
+            responses.add(CompletableFuture.supplyAsync(() -> depositCoalescingService.deposit(walletId, amount), callers));
+        }
+
+        List<BigDecimal> balances = responses.stream().map(CompletableFuture::join).map(WalletTransactionResponse::getBalance).toList();
+        assertEquals(List.of(decimal(1), decimal(2), decimal(3), decimal(4)), balances.stream().sorted().toList());
+        verify(walletService, times(1)).depositAll(eq(walletId), anyList());
+        verify(walletService, never()).deposit(any(), any());
+    }
+
+    @Test
+    void testDeposit_FailureReachesEveryCaller() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.depositAll(eq(walletId), anyList())).thenThrow(new WalletNotFoundException("Wallet not found"));
+
+        List<CompletableFuture<WalletTransactionResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(CompletableFuture.supplyAsync(() -> depositCoalescingService.deposit(walletId, BigDecimal.ONE), callers));
+        }
+
+        responses.forEach(response -> assertInstanceOf(WalletNotFoundException.class,
+                assertThrows(Exception.class, response::join).getCause()));
+    }
+
+    @Test
+    void testDeposit_InvalidAmountRejectedBeforeBatching() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.depositAll(eq(walletId), anyList())).thenAnswer(invocation -> {
+            List<BigDecimal> amounts = invocation.getArgument(1);
+            return amounts.stream().map(DepositCoalescingServiceTest::response).toList();
+        });
+
+        assertThrows(InvalidRequestException.class, () -> depositCoalescingService.deposit(walletId, new BigDecimal("1.001")));
+        List<CompletableFuture<WalletTransactionResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(CompletableFuture.supplyAsync(() -> depositCoalescingService.deposit(walletId, BigDecimal.ONE), callers));
+        }
+
+        responses.forEach(response -> assertEquals(decimal(1), response.join().getBalance()));
+        verify(walletService, times(1)).depositAll(walletId, List.of(decimal(1), decimal(1), decimal(1), decimal(1)));
+    }
+
+    @Test
+    void testDeposit_Disabled() {
+        depositCoalescingService.shutdown();
+        depositCoalescingService = new DepositCoalescingServiceImpl(walletService, false, 2000, 100);
+        UUID walletId = UUID.randomUUID();
+
+        depositCoalescingService.deposit(walletId, BigDecimal.TEN);
+
+        verify(walletService, times(1)).deposit(walletId, BigDecimal.TEN);
+        verify(walletService, never()).depositAll(any(), anyList());
+    }
+
+    private static BigDecimal decimal(long amount) {
+        return BigDecimal.valueOf(amount).setScale(2);
+    }
+
+    private static WalletTransactionResponse response(BigDecimal balance) {
+        WalletTransactionResponse response = new WalletTransactionResponse();
+        response.setBalance(balance);
+        return response;
+    }
+}
@@ -0,0 +1,132 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.repository.WalletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HTTP workload with 5k concurrent clients, each sending a deposit and then a transfer between the two sample
+ * wallets of data.sql, so the thread-per-request and the virtual thread modes of Tomcat, and the reactive stack
+ * ({@code ReactiveHttpLoadTest}, only compiled with the {@code reactive} profile), can be compared. Tagged
+ * {@code load}, so it only runs with the {@code load} Maven profile.
+ */
+@Slf4j
+@Tag("load")
+class HttpLoadTest {
+
+    private static final UUID JOHN_WALLET_ID = UUID.fromString("8e5ed43e-7b6b-4339-bf1a-1c8ed2da1234");
+    private static final UUID JANE_WALLET_ID = UUID.fromString("4f0d2c17-ff93-4bfa-bba3-52d2b4c5482e");
+    private static final int CLIENTS = 5_000;
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"spring.threads.virtual.enabled=false", "wallet.ratelimit.enabled=false"})
+    class PlatformThreads extends Workload {
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"spring.threads.virtual.enabled=true", "wallet.ratelimit.enabled=false"})
+    class VirtualThreads extends Workload {
+    }
+
+    abstract static class Workload {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private WalletRepository walletRepository;
+
+        @Test
+        void testConcurrentClients_DepositAndTransfer() throws InterruptedException {
+            BigDecimal initialTotal = totalBalance();
+            AtomicInteger deposits = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            long[] latencies = new long[CLIENTS * 2];
+            AtomicInteger sent = new AtomicInteger();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            CountDownLatch ready = new CountDownLatch(1);
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            long start = System.nanoTime();
+            for (int i = 0; i < CLIENTS; i++) {
+                executor.submit(() -> {
+                    ready.await();
+                    long depositStart = System.nanoTime();
+                    if (post(client, "/deposit", "{\"toWalletId\":\"" + JOHN_WALLET_ID + "\",\"amount\":1}")) {
+                        deposits.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    latencies[sent.getAndIncrement()] = System.nanoTime() - depositStart;
+
+                    long transferStart = System.nanoTime();
+                    if (!post(client, "/transfer", "{\"fromWalletId\":\"" + JOHN_WALLET_ID + "\",\"toWalletId\":\""
+                            + JANE_WALLET_ID + "\",\"amount\":1}")) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[sent.getAndIncrement()] = System.nanoTime() - transferStart;
+                    return null;
+                });
+            }
+            ready.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Arrays.sort(latencies);
+            log.info("{}: {} requests, {} failed, {} requests/s, p50 {} ms, p99 {} ms",
+                    getClass().getSimpleName(), latencies.length, failed.get(), Math.round(latencies.length / seconds),
+                    TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length / 2]),
+                    TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length * 99 / 100]));
+
+            // Transfers only move money between the two wallets, deposits add 1 each
+            assertEquals(0, initialTotal.add(BigDecimal.valueOf(deposits.get())).compareTo(totalBalance()));
+            assertEquals(0, failed.get());
+        }
+
+        private boolean post(HttpClient client, String path, String body) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/wallet" + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        private BigDecimal totalBalance() {
+            List<Wallet> wallets = walletRepository.findAllById(List.of(JOHN_WALLET_ID, JANE_WALLET_ID));
+            return wallets.stream()
+                    .map(wallet -> wallet.getBalance().toBigDecimal())
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+}
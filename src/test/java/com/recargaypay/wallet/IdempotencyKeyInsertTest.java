@@ -0,0 +1,68 @@
+package com.recargaypay.wallet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.model.dto.WalletTransactionRequest;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The key row is committed by another connection, as another instance would, after the key was looked up and
+ * before it is stored: the insert must fail and the stored response win, instead of being overwritten.
+ */
+@SpringBootTest
+class IdempotencyKeyInsertTest {
+
+    private static final UUID JANE_WALLET_ID = UUID.fromString("4f0d2c17-ff93-4bfa-bba3-52d2b4c5482e");
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testExecute_KeyStoredConcurrentlyIsNotOverwritten() throws Exception {
+        String key = "concurrent-" + UUID.randomUUID();
+        WalletTransactionRequest request = new WalletTransactionRequest();
+        request.setToWalletId(JANE_WALLET_ID);
+        request.setAmount(BigDecimal.TEN);
+        String requestHash = UUID.nameUUIDFromBytes(("deposit" + request).getBytes(StandardCharsets.UTF_8)).toString();
+        WalletTransactionResponse stored = response(BigDecimal.valueOf(110));
+        String storedJson = objectMapper.writeValueAsString(stored);
+
+        WalletTransactionResponse response = idempotencyService.execute(key, "deposit", request, () -> {
+            CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                    "INSERT INTO IDEMPOTENCY_KEY (idempotency_key, operation, request_hash, response, created_at, expires_at) VALUES (?, ?, ?, ?, ?, ?)",
+                    key, "deposit", requestHash, storedJson, LocalDateTime.now(), LocalDateTime.now().plusHours(1))).join();
+            return response(BigDecimal.valueOf(120));
+        });
+
+        assertEquals(stored, response);
+        assertEquals(storedJson, jdbcTemplate.queryForObject("SELECT response FROM IDEMPOTENCY_KEY WHERE idempotency_key = ?",
+                String.class, key));
+    }
+
+    private static WalletTransactionResponse response(BigDecimal balance) {
+        WalletTransactionResponse response = new WalletTransactionResponse();
+        response.setId(JANE_WALLET_ID);
+        response.setUserId(UUID.randomUUID());
+        response.setBalance(balance);
+        response.setLastUpdated(LocalDateTime.now().withNano(0));
+        return response;
+    }
+}
@@ -0,0 +1,118 @@
+package com.recargaypay.wallet;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.model.dto.WalletTransactionRequest;
+import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.IdempotencyKey;
+import com.recargaypay.wallet.repository.IdempotencyKeyRepository;
+import com.recargaypay.wallet.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTest {
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(idempotencyKeyRepository.findById(any())).thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        idempotencyService = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionManager,
+                JsonMapper.builder().findAndAddModules().build(), Duration.ofHours(1), 100, 16);
+    }
+
+    @Test
+    void testExecute_RepeatedKeyReturnsStoredResponse() {
+        AtomicInteger executions = new AtomicInteger();
+        WalletTransactionRequest request = request(BigDecimal.TEN);
+
+        WalletTransactionResponse first = idempotencyService.execute("key-1", "deposit", request, () -> response(executions));
+        WalletTransactionResponse second = idempotencyService.execute("key-1", "deposit", request, () -> response(executions));
+
+        assertEquals(1, executions.get());
+        assertEquals(first, second);
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentRequest() {
+        AtomicInteger executions = new AtomicInteger();
+
+        idempotencyService.execute("key-1", "deposit", request(BigDecimal.TEN), () -> response(executions));
+
+        assertThrows(InvalidRequestException.class,
+                () -> idempotencyService.execute("key-1", "deposit", request(BigDecimal.ONE), () -> response(executions)));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_StoredKeyIsReplayedFromDatabase() {
+        AtomicInteger executions = new AtomicInteger();
+        WalletTransactionRequest request = request(BigDecimal.TEN);
+        WalletTransactionResponse first = response(executions);
+        ArgumentCaptor<IdempotencyKey> saved = ArgumentCaptor.forClass(IdempotencyKey.class);
+        idempotencyService.execute("key-1", "deposit", request, () -> first);
+        verify(idempotencyKeyRepository).saveAndFlush(saved.capture());
+
+        // A new instance only finds the key in the database
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(saved.getValue()));
+        IdempotencyServiceImpl restarted = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionManager,
+                JsonMapper.builder().findAndAddModules().build(), Duration.ofHours(1), 100, 16);
+
+        WalletTransactionResponse replayed = restarted.execute("key-1", "deposit", request, () -> response(executions));
+
+        assertEquals(first, replayed);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_WithoutKeyAlwaysRuns() {
+        AtomicInteger executions = new AtomicInteger();
+
+        idempotencyService.execute(null, "deposit", request(BigDecimal.TEN), () -> response(executions));
+        idempotencyService.execute(null, "deposit", request(BigDecimal.TEN), () -> response(executions));
+
+        assertEquals(2, executions.get());
+        verify(idempotencyKeyRepository, never()).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    private static WalletTransactionRequest request(BigDecimal amount) {
+        WalletTransactionRequest request = new WalletTransactionRequest();
+        request.setToWalletId(UUID.fromString("8e5ed43e-7b6b-4339-bf1a-1c8ed2da1234"));
+        request.setAmount(amount);
+        return request;
+    }
+
+    private static WalletTransactionResponse response(AtomicInteger executions) {
+        executions.incrementAndGet();
+        WalletTransactionResponse response = new WalletTransactionResponse();
+        response.setId(UUID.randomUUID());
+        response.setUserId(UUID.randomUUID());
+        response.setBalance(BigDecimal.valueOf(100));
+        response.setLastUpdated(LocalDateTime.now().withNano(0));
+        return response;
+    }
+}
@@ -0,0 +1,85 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.ledger.LedgerJournal;
+import com.recargaypay.wallet.ledger.LedgerOperation;
+import com.recargaypay.wallet.ledger.LedgerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerJournalTest {
+
+    private static final long SEGMENT_SIZE = LedgerRecord.SIZE * 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayAcrossSegments() throws IOException {
+        Path path = directory.resolve("partition-0.journal");
+        UUID walletId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        try (LedgerJournal journal = new LedgerJournal(path, SEGMENT_SIZE)) {
+            journal.startAppending();
+            journal.append(LedgerOperation.OPEN, walletId, userId, 0, 1L);
+            for (int i = 0; i < 9; i++) {
+                journal.append(LedgerOperation.DEPOSIT, walletId, null, 100, 2L + i);
+            }
+            journal.commit();
+        }
+
+        List<LedgerRecord> records = replay(path);
+        assertEquals(10, records.size());
+        assertEquals(new LedgerRecord(1, LedgerOperation.OPEN, walletId, userId, 0, 1L), records.getFirst());
+        assertEquals(900, records.stream().filter(record -> record.operation() == LedgerOperation.DEPOSIT)
+                .mapToLong(LedgerRecord::amount).sum());
+    }
+
+    @Test
+    void testTornRecordIsDropped() throws IOException {
+        Path path = directory.resolve("partition-0.journal");
+        UUID walletId = UUID.randomUUID();
+
+        try (LedgerJournal journal = new LedgerJournal(path, SEGMENT_SIZE)) {
+            journal.startAppending();
+            journal.append(LedgerOperation.DEPOSIT, walletId, null, 100, 1L);
+            journal.append(LedgerOperation.DEPOSIT, walletId, null, 200, 2L);
+            journal.commit();
+        }
+        // Corrupts the amount of the second record, as a crash in the middle of a write would
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), LedgerRecord.SIZE + 44);
+        }
+
+        try (LedgerJournal journal = new LedgerJournal(path, SEGMENT_SIZE)) {
+            List<LedgerRecord> records = new ArrayList<>();
+            journal.scan(records::add);
+            assertEquals(1, records.size());
+
+            journal.startAppending();
+            LedgerRecord appended = journal.append(LedgerOperation.DEPOSIT, walletId, null, 300, 3L);
+            journal.commit();
+            assertEquals(2, appended.sequence());
+        }
+        assertEquals(List.of(100L, 300L), replay(path).stream().map(LedgerRecord::amount).toList());
+    }
+
+    private static List<LedgerRecord> replay(Path path) throws IOException {
+        List<LedgerRecord> records = new ArrayList<>();
+        try (LedgerJournal journal = new LedgerJournal(path, SEGMENT_SIZE)) {
+            journal.scan(records::add);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,94 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.archive.LedgerSegmentFile;
+import com.recargaypay.wallet.archive.LedgerSegmentFile.Footer;
+import com.recargaypay.wallet.archive.LedgerSegmentFile.WalletSummary;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerSegmentFileTest {
+
+    private static final LocalDateTime PERIOD_START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime PERIOD_END = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFooterSummarizesEveryWallet() throws IOException {
+        Path file = directory.resolve("ledger-2024-01.seg");
+        UUID johnWalletId = UUID.randomUUID();
+        UUID janeWalletId = UUID.randomUUID();
+
+        Footer written = LedgerSegmentFile.write(file, PERIOD_START, PERIOD_END, List.of(
+                transaction(johnWalletId, "100.50", PERIOD_START.plusDays(1)),
+                transaction(janeWalletId, "20.00", PERIOD_START.plusDays(2)),
+                transaction(johnWalletId, "-30.25", PERIOD_START.plusDays(3))).iterator());
+        Footer read = LedgerSegmentFile.readFooter(file);
+
+        assertEquals(written, read);
+        assertEquals(3, read.recordCount());
+        assertEquals(new WalletSummary(7025, 2), read.summaries().get(johnWalletId));
+        assertEquals(new WalletSummary(2000, 1), read.summaries().get(janeWalletId));
+        assertFalse(Files.exists(directory.resolve("ledger-2024-01.seg.tmp")));
+    }
+
+    @Test
+    void testScanStopsAtTimestamp() throws IOException {
+        Path file = directory.resolve("ledger-2024-01.seg");
+        UUID walletId = UUID.randomUUID();
+        LedgerSegmentFile.write(file, PERIOD_START, PERIOD_END, List.of(
+                transaction(walletId, "10.00", PERIOD_START.plusDays(1)),
+                transaction(UUID.randomUUID(), "99.00", PERIOD_START.plusDays(2)),
+                transaction(walletId, "5.00", PERIOD_START.plusDays(2).withNano(500)),
+                transaction(walletId, "1.00", PERIOD_START.plusDays(3))).iterator());
+
+        assertEquals(new WalletSummary(1000, 1), LedgerSegmentFile.scan(file, walletId, PERIOD_START.plusDays(2).withNano(500)));
+        assertEquals(new WalletSummary(1500, 2), LedgerSegmentFile.scan(file, walletId, PERIOD_START.plusDays(3)));
+        assertEquals(new WalletSummary(1600, 3), LedgerSegmentFile.scan(file, walletId, PERIOD_END));
+    }
+
+    @Test
+    void testReadReturnsWalletRecordsInRange() throws IOException {
+        Path file = directory.resolve("ledger-2024-01.seg");
+        UUID walletId = UUID.randomUUID();
+        TransactionResponse first = transaction(walletId, "10.00", PERIOD_START.plusDays(1));
+        TransactionResponse second = transaction(walletId, "-5.00", PERIOD_START.plusDays(2).withNano(500));
+        TransactionResponse third = transaction(walletId, "1.00", PERIOD_START.plusDays(3));
+        LedgerSegmentFile.write(file, PERIOD_START, PERIOD_END, List.of(first,
+                transaction(UUID.randomUUID(), "99.00", PERIOD_START.plusDays(2)), second, third).iterator());
+
+        List<TransactionResponse> transactions = new ArrayList<>();
+        LedgerSegmentFile.read(file, walletId, PERIOD_START.plusDays(2), PERIOD_START.plusDays(3), transactions::add);
+
+        assertEquals(List.of(second), transactions);
+    }
+
+    @Test
+    void testEmptyPeriod() throws IOException {
+        Path file = directory.resolve("ledger-2024-01.seg");
+
+        LedgerSegmentFile.write(file, PERIOD_START, PERIOD_END, List.<TransactionResponse>of().iterator());
+
+        assertEquals(0, LedgerSegmentFile.readFooter(file).recordCount());
+        assertEquals(new WalletSummary(0, 0), LedgerSegmentFile.scan(file, UUID.randomUUID(), PERIOD_END));
+    }
+
+    private static TransactionResponse transaction(UUID walletId, String amount, LocalDateTime timestamp) {
+        TransactionType type = amount.startsWith("-") ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT;
+        return new TransactionResponse(UUID.randomUUID(), walletId, type, new BigDecimal(amount), timestamp);
+    }
+}
@@ -0,0 +1,228 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.exception.NoFundsException;
+import com.recargaypay.wallet.service.WalletService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Random concurrent deposits, withdrawals, transfers and balance reads on a set of fresh wallets, half of the
+ * operations on a few hot ones. Once every thread is done the database must show no lost or duplicated update:
+ * <ul>
+ *     <li>the total balance equals the initial one plus the successful deposits minus the successful withdrawals</li>
+ *     <li>no wallet or shard balance is negative, and no balance read during the run was</li>
+ *     <li>the balance of every wallet, shards included, equals the sum of its {@code TRANSACTION_RPAY} rows</li>
+ *     <li>there is exactly one transaction row per successful deposit and withdrawal and two per successful transfer</li>
+ * </ul>
+ * Insufficient funds and exhausted lock retries are expected rejections, any other error fails the run.
+ * The achieved operations/s are logged so that correctness and throughput regressions show up in the same run.
+ * It runs once per concurrency mode, and once on sharded wallets.
+ */
+@Slf4j
+class MoneyConservationStressTest {
+
+    private static final UUID JOHN_USER_ID = UUID.fromString("1a4f7b78-e774-4e98-97d2-734dd06b2c58");
+    private static final int WALLETS = 32;
+    private static final int HOT_WALLETS = 4;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+    private static final long INITIAL_BALANCE_CENTS = 500_00;
+    private static final int MAX_AMOUNT_CENTS = 50_00;
+
+    @Nested
+    @SpringBootTest(properties = "wallet.concurrency.mode=PESSIMISTIC")
+    class Pessimistic extends Workload {
+    }
+
+    @Nested
+    @SpringBootTest(properties = "wallet.concurrency.mode=OPTIMISTIC")
+    class Optimistic extends Workload {
+    }
+
+    @Nested
+    @SpringBootTest(properties = "wallet.concurrency.mode=PESSIMISTIC")
+    class Sharded extends Workload {
+
+        @Override
+        protected int shardCount() {
+            return 4;
+        }
+    }
+
+    abstract static class Workload {
+
+        @Autowired
+        private WalletService walletService;
+
+        @Autowired
+        private NamedParameterJdbcTemplate jdbcTemplate;
+
+        private final LongAdder depositedCents = new LongAdder();
+        private final LongAdder withdrawnCents = new LongAdder();
+        private final AtomicInteger deposits = new AtomicInteger();
+        private final AtomicInteger withdrawals = new AtomicInteger();
+        private final AtomicInteger transfers = new AtomicInteger();
+        private final AtomicInteger reads = new AtomicInteger();
+        private final AtomicInteger insufficientFunds = new AtomicInteger();
+        private final AtomicInteger conflicts = new AtomicInteger();
+        private final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+
+        /**
+         * @return shards of every wallet, 0 to leave them unsharded
+         */
+        protected int shardCount() {
+            return 0;
+        }
+
+        @Test
+        void testRandomConcurrentOperations_ConserveMoney() throws InterruptedException {
+            List<UUID> wallets = createWallets();
+            long initialTotal = WALLETS * INITIAL_BALANCE_CENTS;
+            assertEquals(initialTotal, totalBalanceCents(wallets));
+
+            CountDownLatch ready = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                executor.submit(() -> {
+                    ready.await();
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        runRandomOperation(wallets);
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            ready.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            int operations = THREADS * OPERATIONS_PER_THREAD;
+            log.info("{}: {} operations ({} deposits, {} withdrawals, {} transfers, {} reads), "
+                            + "{} insufficient funds, {} conflicts, {} operations/s",
+                    getClass().getSimpleName(), operations, deposits.get(), withdrawals.get(), transfers.get(), reads.get(),
+                    insufficientFunds.get(), conflicts.get(), Math.round(operations / seconds));
+
+            assertEquals(List.of(), List.copyOf(violations));
+            assertEquals(initialTotal + depositedCents.sum() - withdrawnCents.sum(), totalBalanceCents(wallets));
+            assertLedgerMatchesBalances(wallets);
+            assertEquals(WALLETS + deposits.get() + withdrawals.get() + 2L * transfers.get(), transactionCount(wallets));
+            assertTrue(transfers.get() > 0);
+        }
+
+        private List<UUID> createWallets() {
+            List<UUID> wallets = new ArrayList<>(WALLETS);
+            for (int i = 0; i < WALLETS; i++) {
+                UUID walletId = walletService.createWallet(JOHN_USER_ID).getWalletId();
+                if (shardCount() > 0) {
+                    walletService.enableSharding(walletId, shardCount());
+                }
+                walletService.deposit(walletId, BigDecimal.valueOf(INITIAL_BALANCE_CENTS, 2));
+                wallets.add(walletId);
+            }
+            return wallets;
+        }
+
+        private void runRandomOperation(List<UUID> wallets) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            UUID walletId = pickWallet(wallets, random);
+            long cents = random.nextLong(1, MAX_AMOUNT_CENTS + 1);
+            BigDecimal amount = BigDecimal.valueOf(cents, 2);
+            int operation = random.nextInt(100);
+            try {
+                if (operation < 20) {
+                    walletService.deposit(walletId, amount);
+                    depositedCents.add(cents);
+                    deposits.incrementAndGet();
+                } else if (operation < 40) {
+                    walletService.withdraw(walletId, amount);
+                    withdrawnCents.add(cents);
+                    withdrawals.incrementAndGet();
+                } else if (operation < 90) {
+                    UUID destinationWalletId = pickWallet(wallets, random);
+                    while (destinationWalletId.equals(walletId)) {
+                        destinationWalletId = pickWallet(wallets, random);
+                    }
+                    walletService.transfer(walletId, destinationWalletId, amount);
+                    transfers.incrementAndGet();
+                } else {
+                    BigDecimal balance = walletService.getBalance(walletId);
+                    if (balance.signum() < 0) {
+                        violations.add("Negative balance read for wallet " + walletId + ": " + balance);
+                    }
+                    reads.incrementAndGet();
+                }
+            } catch (NoFundsException e) {
+                insufficientFunds.incrementAndGet();
+            } catch (ConcurrencyFailureException e) {
+                // The movement rolled back, the checks below catch it if it did not
+                conflicts.incrementAndGet();
+            } catch (RuntimeException e) {
+                violations.add("Unexpected " + e.getClass().getSimpleName() + " on wallet " + walletId + ": " + e.getMessage());
+            }
+        }
+
+        private static UUID pickWallet(List<UUID> wallets, ThreadLocalRandom random) {
+            return wallets.get(random.nextBoolean() ? random.nextInt(HOT_WALLETS) : random.nextInt(WALLETS));
+        }
+
+        /**
+         * @return sum of the wallet and shard rows, read from the database so no cache is involved
+         */
+        private long totalBalanceCents(List<UUID> wallets) {
+            BigDecimal total = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM WALLET WHERE id IN (:ids)",
+                    Map.of("ids", wallets), BigDecimal.class);
+            BigDecimal shards = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM WALLET_SHARD WHERE wallet_id IN (:ids)",
+                    Map.of("ids", wallets), BigDecimal.class);
+            return total.add(shards).movePointRight(2).longValueExact();
+        }
+
+        private void assertLedgerMatchesBalances(List<UUID> wallets) {
+            List<String> mismatches = jdbcTemplate.query("""
+                            SELECT w.id, w.balance,
+                                   COALESCE((SELECT SUM(s.balance) FROM WALLET_SHARD s WHERE s.wallet_id = w.id), 0) AS shard_balance,
+                                   COALESCE((SELECT MIN(s.balance) FROM WALLET_SHARD s WHERE s.wallet_id = w.id), 0) AS min_shard_balance,
+                                   COALESCE((SELECT SUM(t.amount) FROM TRANSACTION_RPAY t WHERE t.wallet_id = w.id), 0) AS ledger_balance
+                            FROM WALLET w WHERE w.id IN (:ids)""",
+                    Map.of("ids", wallets),
+                    (row, rowNumber) -> {
+                        BigDecimal balance = row.getBigDecimal("balance");
+                        BigDecimal total = balance.add(row.getBigDecimal("shard_balance"));
+                        BigDecimal ledger = row.getBigDecimal("ledger_balance");
+                        if (balance.signum() < 0 || row.getBigDecimal("min_shard_balance").signum() < 0) {
+                            return "Negative balance in wallet " + row.getString("id");
+                        }
+                        return total.compareTo(ledger) == 0 ? null
+                                : "Wallet " + row.getString("id") + " balance " + total + " differs from its ledger " + ledger;
+                    });
+            assertEquals(WALLETS, mismatches.size());
+            assertEquals(List.of(), mismatches.stream().filter(mismatch -> mismatch != null).toList());
+        }
+
+        private long transactionCount(List<UUID> wallets) {
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TRANSACTION_RPAY WHERE wallet_id IN (:ids)",
+                    Map.of("ids", wallets), Long.class);
+        }
+    }
+}
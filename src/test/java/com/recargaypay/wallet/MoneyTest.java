@@ -0,0 +1,52 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.model.money.MoneyConverter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    void testOf_ConvertsToCents() {
+        assertEquals(15075, Money.of(new BigDecimal("150.75")).minorUnits());
+        assertEquals(1000, Money.of(new BigDecimal("10.000")).minorUnits());
+        assertEquals(new BigDecimal("150.75"), Money.ofMinor(15075).toBigDecimal());
+    }
+
+    @Test
+    void testOf_RejectsMoreDecimalsThanCurrency() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void testArithmetic_FailsOnOverflow() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).negate());
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1e20")));
+    }
+
+    @Test
+    void testArithmetic_IsValueBased() {
+        Money balance = Money.ofMinor(10_000);
+
+        assertEquals(Money.ofMinor(8_950), balance.minus(Money.ofMinor(1_050)));
+        assertEquals(Money.ZERO, balance.plus(balance.negate()));
+        assertTrue(Money.ofMinor(1).isLessThan(Money.ofMinor(2)));
+        assertEquals(Money.ofMinor(1), Money.ofMinor(1).min(Money.ofMinor(2)));
+    }
+
+    @Test
+    void testConverter_RoundTripsColumnValue() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(new BigDecimal("200.00"), converter.convertToDatabaseColumn(Money.ofMinor(20_000)));
+        assertEquals(Money.ofMinor(20_000), converter.convertToEntityAttribute(new BigDecimal("200.00")));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,115 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.model.dto.WalletEvent;
+import com.recargaypay.wallet.model.entity.OutboxEvent;
+import com.recargaypay.wallet.model.money.Money;
+import com.recargaypay.wallet.outbox.WalletEventSink;
+import com.recargaypay.wallet.repository.OutboxEventRepository;
+import com.recargaypay.wallet.service.impl.OutboxServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OutboxServiceTest {
+
+    private OutboxServiceImpl outboxService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private WalletEventSink walletEventSink;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new OutboxServiceImpl(outboxEventRepository, walletEventSink, meterRegistry, 2, 10,
+                Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testRelay_PublishesThenDeletesInBatches() {
+        when(outboxEventRepository.findByOrderByIdAsc(Limit.of(2)))
+                .thenReturn(List.of(event(1L), event(2L)))
+                .thenReturn(List.of(event(3L)));
+
+        assertEquals(3, outboxService.relay());
+
+        verify(walletEventSink, times(2)).publish(anyList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+        assertEquals(3, meterRegistry.get(OutboxServiceImpl.PUBLISHED_COUNTER).counter().count());
+        // The short last batch drained the table, nothing left to count
+        assertEquals(0, meterRegistry.get(OutboxServiceImpl.PENDING_GAUGE).gauge().value());
+        verify(outboxEventRepository, never()).count();
+    }
+
+    @Test
+    void testRelay_BacklogCountedOncePerSampleInterval() {
+        // One batch per run, so a full batch leaves a backlog behind
+        SimpleMeterRegistry cappedMeterRegistry = new SimpleMeterRegistry();
+        OutboxServiceImpl cappedOutboxService = new OutboxServiceImpl(outboxEventRepository, walletEventSink, cappedMeterRegistry, 2, 1,
+                Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1));
+        when(outboxEventRepository.findByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(event(1L), event(2L)));
+        when(outboxEventRepository.count()).thenReturn(40L);
+
+        assertEquals(2, cappedOutboxService.relay());
+        assertEquals(2, cappedOutboxService.relay());
+
+        verify(outboxEventRepository, times(1)).count();
+        assertEquals(40, cappedMeterRegistry.get(OutboxServiceImpl.PENDING_GAUGE).gauge().value());
+    }
+
+    @Test
+    void testRelay_SinkFailureKeepsEventsAndBacksOff() {
+        when(outboxEventRepository.findByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(event(1L)));
+        doThrow(new IllegalStateException("Sink down")).when(walletEventSink).publish(anyList());
+
+        assertEquals(0, outboxService.relay());
+        // Backing off: the next run does not even read the outbox
+        assertEquals(0, outboxService.relay());
+
+        verify(outboxEventRepository, times(1)).findByOrderByIdAsc(Limit.of(2));
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+        assertEquals(1, meterRegistry.get(OutboxServiceImpl.FAILURES_COUNTER).counter().count());
+    }
+
+    @Test
+    void testRelay_EventsAreMapped() {
+        OutboxEvent outboxEvent = event(7L);
+        when(outboxEventRepository.findByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(outboxEvent));
+
+        outboxService.relay();
+
+        verify(walletEventSink).publish(argThat((List<WalletEvent> events) -> events.size() == 1
+                && events.getFirst().getId() == 7L
+                && events.getFirst().getWalletId().equals(outboxEvent.getWalletId())
+                && events.getFirst().getBalance().equals(outboxEvent.getBalance().toBigDecimal())));
+    }
+
+    private static OutboxEvent event(Long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setWalletId(UUID.randomUUID());
+        event.setAmount(Money.of(BigDecimal.TEN));
+        event.setBalance(Money.of(BigDecimal.valueOf(100)));
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+}
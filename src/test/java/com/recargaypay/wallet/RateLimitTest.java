@@ -0,0 +1,185 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.exception.ServiceOverloadedException;
+import com.recargaypay.wallet.exception.TooManyRequestsException;
+import com.recargaypay.wallet.ratelimit.LoadShedder;
+import com.recargaypay.wallet.ratelimit.RateLimitInterceptor;
+import com.recargaypay.wallet.ratelimit.RequestRateLimiter;
+import com.recargaypay.wallet.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testTokenBucket_AllowsBurstThenRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(0));
+        }
+        assertFalse(bucket.tryAcquire(0));
+        // A token refills every 100 ms
+        assertFalse(bucket.tryAcquire(SECOND / 20));
+        assertTrue(bucket.tryAcquire(SECOND / 10));
+        assertFalse(bucket.tryAcquire(SECOND / 10));
+        // An idle bucket refills up to its burst only
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(10 * SECOND));
+        }
+        assertFalse(bucket.tryAcquire(10 * SECOND));
+    }
+
+    @Test
+    void testTokenBucket_ConcurrentAcquiresNeverExceedBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1_000, 0);
+        AtomicInteger acquired = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    if (bucket.tryAcquire(0)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(1_000, acquired.get());
+    }
+
+    @Test
+    void testAcquireWallet_RejectsOverLimitAndCounts() {
+        RequestRateLimiter limiter = rateLimiter(true);
+        UUID walletId = UUID.randomUUID();
+
+        limiter.acquireWallet(walletId);
+        limiter.acquireWallet(walletId);
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> limiter.acquireWallet(walletId));
+
+        assertEquals(String.format(RequestRateLimiter.WALLET_LIMIT_FORMAT, walletId), exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(1, meterRegistry.counter(RequestRateLimiter.REJECTED_COUNTER, "scope", "wallet").count());
+        // Other wallets have their own bucket
+        limiter.acquireWallet(UUID.randomUUID());
+        now.addAndGet(SECOND);
+        limiter.acquireWallet(walletId);
+    }
+
+    @Test
+    void testAcquireClient_RejectsOverLimitAndCounts() {
+        RequestRateLimiter limiter = rateLimiter(true);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquireClient("integrator");
+        }
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquireClient("integrator"));
+
+        limiter.acquireClient("other");
+        assertEquals(1, meterRegistry.counter(RequestRateLimiter.REJECTED_COUNTER, "scope", "client").count());
+    }
+
+    @Test
+    void testInterceptor_ClientCannotPickItsBucket() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(rateLimiter(true),
+                new LoadShedder(meterRegistry, false, 2, 1, 10, Duration.ofMillis(20)), "");
+
+        for (int i = 0; i < 4; i++) {
+            interceptor.preHandle(request("client-" + i), new MockHttpServletResponse(), null);
+        }
+        // Without a trusted proxy header configured, the header sent by the client is ignored
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("client-4"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testAcquire_DisabledNeverRejects() {
+        RequestRateLimiter limiter = rateLimiter(false);
+        UUID walletId = UUID.randomUUID();
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquireWallet(walletId);
+            limiter.acquireClient("integrator");
+        }
+    }
+
+    @Test
+    void testLoadShedder_ShedsOverLimit() {
+        LoadShedder loadShedder = new LoadShedder(meterRegistry, true, 2, 1, 10, Duration.ofMillis(20));
+
+        loadShedder.acquire();
+        loadShedder.acquire();
+        assertThrows(ServiceOverloadedException.class, loadShedder::acquire);
+        assertEquals(1, meterRegistry.counter(RequestRateLimiter.REJECTED_COUNTER, "scope", "shed").count());
+
+        loadShedder.release();
+        loadShedder.acquire();
+        assertEquals(2, loadShedder.inFlight());
+    }
+
+    @Test
+    void testLoadShedder_AdaptsToConnectionAcquireTime() {
+        LoadShedder loadShedder = new LoadShedder(meterRegistry, true, 100, 20, 200, Duration.ofMillis(20));
+        Timer acquireTimer = meterRegistry.timer(LoadShedder.ACQUIRE_TIMER, "pool", "primary");
+
+        acquireTimer.record(Duration.ofMillis(100));
+        loadShedder.adjust();
+        assertEquals(75, loadShedder.limit());
+
+        // Only the acquisitions since the previous adjustment count
+        acquireTimer.record(Duration.ofMillis(1));
+        loadShedder.adjust();
+        assertEquals(78, loadShedder.limit());
+
+        for (int i = 0; i < 20; i++) {
+            acquireTimer.record(Duration.ofSeconds(1));
+            loadShedder.adjust();
+        }
+        assertEquals(20, loadShedder.limit());
+
+        // Idle intervals let the limit recover
+        for (int i = 0; i < 100; i++) {
+            loadShedder.adjust();
+        }
+        assertEquals(200, loadShedder.limit());
+    }
+
+    private static MockHttpServletRequest request(String clientHeader) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Client-Id", clientHeader);
+        return request;
+    }
+
+    private RequestRateLimiter rateLimiter(boolean enabled) {
+        return new RequestRateLimiter(meterRegistry, enabled, 4, 4, 2, 2, 1_000, Duration.ofMinutes(1), now::get);
+    }
+}
@@ -0,0 +1,65 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Primary and replica are two H2 in-memory databases that do not replicate, so where a read went shows in its result.
+ */
+@SpringBootTest(properties = {
+        "wallet.datasource.replica.enabled=true",
+        "wallet.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "wallet.datasource.replica.read-your-writes-window=300ms"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-test;DB_CLOSE_DELAY=-1";
+
+    private static final UUID JOHN_USER_ID = UUID.fromString("1a4f7b78-e774-4e98-97d2-734dd06b2c58");
+    private static final UUID JANE_WALLET_ID = UUID.fromString("4f0d2c17-ff93-4bfa-bba3-52d2b4c5482e");
+
+    @Autowired
+    private WalletService walletService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "test", "test");
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(replica);
+        // Only the replica has this deposit
+        new JdbcTemplate(replica).update("INSERT INTO TRANSACTION_RPAY (id, wallet_id, amount, timestamp, type) VALUES (?, ?, 5.00, ?, 'DEPOSIT')",
+                UUID.randomUUID(), JANE_WALLET_ID, LocalDateTime.now().minusMinutes(1));
+    }
+
+    @Test
+    void testHistoricalBalance_ReadFromReplica() {
+        BigDecimal balance = walletService.getHistoricalBalance(JANE_WALLET_ID, LocalDateTime.now().plusHours(1));
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(balance));
+    }
+
+    @Test
+    void testHistoricalBalance_ReadYourWritesUntilWindowEnds() throws InterruptedException {
+        UUID walletId = walletService.createWallet(JOHN_USER_ID).getWalletId();
+        walletService.deposit(walletId, BigDecimal.TEN);
+
+        // The deposit is only on the primary, the wallet reads stay there within the window
+        assertEquals(0, BigDecimal.TEN.compareTo(walletService.getHistoricalBalance(walletId, LocalDateTime.now().plusHours(1))));
+
+        Thread.sleep(500);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getHistoricalBalance(walletId, LocalDateTime.now().plusHours(1))));
+    }
+}
@@ -0,0 +1,136 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.exception.WalletNotFoundException;
+import com.recargaypay.wallet.model.dto.TransactionHistoryFilter;
+import com.recargaypay.wallet.model.dto.TransactionResponse;
+import com.recargaypay.wallet.model.entity.TransactionType;
+import com.recargaypay.wallet.repository.TransactionRepository;
+import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.service.LedgerArchiveService;
+import com.recargaypay.wallet.service.impl.TransactionHistoryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TransactionHistoryServiceTest {
+
+    private TransactionHistoryServiceImpl transactionHistoryService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private LedgerArchiveService ledgerArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        WalletExistenceFilter walletExistenceFilter = new WalletExistenceFilter(walletRepository, new SimpleMeterRegistry(),
+                true, 1000, 0.01, 1000, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        transactionHistoryService = new TransactionHistoryServiceImpl(transactionRepository, walletRepository, walletExistenceFilter,
+                ledgerArchiveService, 500);
+    }
+
+    @Test
+    void testGetTransactions_LimitOutOfRange() {
+        TransactionHistoryFilter filter = filter(UUID.randomUUID());
+
+        assertThrows(InvalidRequestException.class, () -> transactionHistoryService.getTransactions(filter, null, 0));
+        assertThrows(InvalidRequestException.class, () -> transactionHistoryService.getTransactions(filter, null, 501));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testGetTransactions_InvalidCursor() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.existsById(walletId)).thenReturn(true);
+
+        assertThrows(InvalidRequestException.class,
+                () -> transactionHistoryService.getTransactions(filter(walletId), "not-a-cursor", 50));
+        verify(transactionRepository, never()).findBy(any(), any());
+    }
+
+    @Test
+    void testStreamTransactions_WalletNotFound() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.existsById(walletId)).thenReturn(false);
+
+        assertThrows(WalletNotFoundException.class,
+                () -> transactionHistoryService.streamTransactions(filter(walletId), transaction -> { }));
+        verify(transactionRepository, never()).streamHistory(any(), any(), any(), any());
+    }
+
+    @Test
+    void testStreamTransactions_ArchivedMonthsBeforeLiveRows() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime archivedUntil = LocalDateTime.of(2024, 2, 1, 0, 0);
+        TransactionResponse archivedDeposit = transaction(walletId, TransactionType.DEPOSIT, archivedUntil.minusDays(2));
+        TransactionResponse archivedWithdrawal = transaction(walletId, TransactionType.WITHDRAWAL, archivedUntil.minusDays(1));
+        TransactionResponse liveDeposit = transaction(walletId, TransactionType.DEPOSIT, archivedUntil.plusDays(1));
+        TransactionHistoryFilter filter = filter(walletId);
+        filter.setType(TransactionType.DEPOSIT);
+        when(walletRepository.existsById(walletId)).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<TransactionResponse> consumer = invocation.getArgument(3);
+            consumer.accept(archivedDeposit);
+            consumer.accept(archivedWithdrawal);
+            return null;
+        }).when(ledgerArchiveService).streamArchived(eq(walletId), isNull(), isNull(), any());
+        when(transactionRepository.streamHistory(walletId, TransactionType.DEPOSIT, null, null)).thenReturn(Stream.of(liveDeposit));
+
+        List<TransactionResponse> transactions = new ArrayList<>();
+        transactionHistoryService.streamTransactions(filter, transactions::add);
+
+        assertEquals(List.of(archivedDeposit, liveDeposit), transactions);
+    }
+
+    @Test
+    void testGetTransactions_FlagsRangeStartingInArchive() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime archivedUntil = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(walletRepository.existsById(walletId)).thenReturn(true);
+        when(ledgerArchiveService.archivedUntil()).thenReturn(Optional.of(archivedUntil));
+        when(transactionRepository.findBy(any(), any())).thenReturn(Window.from(List.of(), index -> ScrollPosition.keyset()));
+        TransactionHistoryFilter liveFilter = filter(walletId);
+        liveFilter.setFrom(archivedUntil);
+
+        assertEquals(archivedUntil, transactionHistoryService.getTransactions(filter(walletId), null, 50).getArchivedUntil());
+        assertNull(transactionHistoryService.getTransactions(liveFilter, null, 50).getArchivedUntil());
+    }
+
+    private static TransactionResponse transaction(UUID walletId, TransactionType type, LocalDateTime timestamp) {
+        return new TransactionResponse(UUID.randomUUID(), walletId, type, BigDecimal.TEN, timestamp);
+    }
+
+    private static TransactionHistoryFilter filter(UUID walletId) {
+        TransactionHistoryFilter filter = new TransactionHistoryFilter();
+        filter.setWalletId(walletId);
+        return filter;
+    }
+}
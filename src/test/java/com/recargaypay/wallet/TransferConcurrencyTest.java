@@ -0,0 +1,94 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.service.WalletService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contended two-wallet workload: every thread transfers back and forth between the two sample wallets of data.sql,
+ * once per concurrency mode and engine.
+ */
+@Slf4j
+class TransferConcurrencyTest {
+
+    private static final UUID JOHN_WALLET_ID = UUID.fromString("8e5ed43e-7b6b-4339-bf1a-1c8ed2da1234");
+    private static final UUID JANE_WALLET_ID = UUID.fromString("4f0d2c17-ff93-4bfa-bba3-52d2b4c5482e");
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 250;
+
+    @Nested
+    @SpringBootTest(properties = "wallet.concurrency.mode=PESSIMISTIC")
+    class Pessimistic extends Workload {
+    }
+
+    @Nested
+    @SpringBootTest(properties = "wallet.concurrency.mode=OPTIMISTIC")
+    class Optimistic extends Workload {
+    }
+
+    @Nested
+    @SpringBootTest(properties = {"wallet.engine=LEDGER", "wallet.ledger.journal-dir=target/ledger-test"})
+    class Ledger extends Workload {
+    }
+
+    abstract static class Workload {
+
+        @Autowired
+        private WalletService walletService;
+
+        @Test
+        void testConcurrentTransfers_ConserveMoney() throws InterruptedException {
+            BigDecimal initialTotal = totalBalance();
+            AtomicInteger succeeded = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            long start = System.nanoTime();
+            for (int i = 0; i < THREADS; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                        boolean johnToJane = ThreadLocalRandom.current().nextBoolean();
+                        try {
+                            walletService.transfer(johnToJane ? JOHN_WALLET_ID : JANE_WALLET_ID,
+                                    johnToJane ? JANE_WALLET_ID : JOHN_WALLET_ID, BigDecimal.ONE);
+                            succeeded.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            log.info("{}: {} transfers succeeded, {} failed, {} transfers/s",
+                    getClass().getSimpleName(), succeeded.get(), failed.get(), Math.round(succeeded.get() / seconds));
+
+            assertEquals(0, initialTotal.compareTo(totalBalance()));
+            assertTrue(succeeded.get() > 0);
+        }
+
+        private BigDecimal totalBalance() {
+            // Balances are read through the service, the ledger engine only projects them to the database asynchronously
+            List<BigDecimal> balances = List.of(walletService.getBalance(JOHN_WALLET_ID), walletService.getBalance(JANE_WALLET_ID));
+            balances.forEach(balance -> assertTrue(balance.signum() >= 0));
+            return balances.stream()
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+}
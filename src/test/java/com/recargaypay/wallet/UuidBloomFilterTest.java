@@ -0,0 +1,62 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.cache.UuidBloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidBloomFilterTest {
+
+    private static final int IDS = 10_000;
+
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        UuidBloomFilter filter = new UuidBloomFilter(IDS, 0.01);
+        List<UUID> ids = new ArrayList<>(IDS);
+        for (int i = 0; i < IDS; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        ids.forEach(filter::put);
+
+        ids.forEach(id -> assertTrue(filter.mightContain(id)));
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRateNearTarget() {
+        UuidBloomFilter filter = new UuidBloomFilter(IDS, 0.01);
+        for (int i = 0; i < IDS; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        // 1% expected, 2% leaves room for randomness
+        assertTrue(falsePositives < IDS / 50, falsePositives + " false positives");
+    }
+
+    @Test
+    void testMightContain_SequentialIds() {
+        UuidBloomFilter filter = new UuidBloomFilter(IDS, 0.01);
+        for (int i = 0; i < IDS; i++) {
+            filter.put(new UUID(0, i));
+        }
+
+        int falsePositives = 0;
+        for (int i = IDS; i < 2 * IDS; i++) {
+            if (filter.mightContain(new UUID(0, i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < IDS / 50, falsePositives + " false positives");
+    }
+}
@@ -0,0 +1,65 @@
+package com.recargaypay.wallet;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.cache.WalletBalanceCache;
+import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WalletBalanceCacheTest {
+
+    private WalletBalanceCache walletBalanceCache;
+
+    @BeforeEach
+    void setUp() {
+        walletBalanceCache = new WalletBalanceCache(Caffeine.newBuilder().recordStats().build());
+    }
+
+    @Test
+    void testPut_KeepsNewerVersion() {
+        UUID walletId = UUID.randomUUID();
+
+        walletBalanceCache.put(wallet(walletId, BigDecimal.valueOf(200), 2L));
+        walletBalanceCache.put(wallet(walletId, BigDecimal.valueOf(100), 1L));
+
+        assertEquals(Optional.of(new BigDecimal("200.00")), walletBalanceCache.get(walletId));
+    }
+
+    @Test
+    void testPut_ReplacesOlderVersion() {
+        UUID walletId = UUID.randomUUID();
+
+        walletBalanceCache.put(wallet(walletId, BigDecimal.valueOf(100), 1L));
+        walletBalanceCache.put(wallet(walletId, BigDecimal.valueOf(200), 2L));
+
+        assertEquals(Optional.of(new BigDecimal("200.00")), walletBalanceCache.get(walletId));
+    }
+
+    @Test
+    void testStats_CountsHitsAndMisses() {
+        UUID walletId = UUID.randomUUID();
+
+        walletBalanceCache.get(walletId);
+        walletBalanceCache.put(wallet(walletId, BigDecimal.TEN, 0L));
+        walletBalanceCache.get(walletId);
+
+        assertEquals(1, walletBalanceCache.stats().getHitCount());
+        assertEquals(1, walletBalanceCache.stats().getMissCount());
+        assertEquals(1, walletBalanceCache.stats().getSize());
+    }
+
+    private static Wallet wallet(UUID walletId, BigDecimal balance, Long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(Money.of(balance));
+        wallet.setVersion(version);
+        return wallet;
+    }
+}
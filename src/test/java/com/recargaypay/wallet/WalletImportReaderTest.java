@@ -0,0 +1,82 @@
+package com.recargaypay.wallet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.model.dto.WalletProvisioningRow;
+import com.recargaypay.wallet.provisioning.WalletImportFormat;
+import com.recargaypay.wallet.provisioning.WalletImportReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WalletImportReaderTest {
+
+    private static final UUID JOHN_USER_ID = UUID.fromString("1a4f7b78-e774-4e98-97d2-734dd06b2c58");
+    private static final UUID JANE_USER_ID = UUID.fromString("9b1f4ab7-2de7-4174-b71a-ccf1b2d2f1b4");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testCsv_SkipsHeaderAndBlankLines() {
+        List<WalletProvisioningRow> rows = read(WalletImportFormat.CSV, """
+                user_uid,name
+                %s,John Doe
+
+                "%s","Jane Smith"
+                not-a-user,Nobody
+                """.formatted(JOHN_USER_ID, JANE_USER_ID));
+
+        assertEquals(List.of(
+                new WalletProvisioningRow(2, JOHN_USER_ID, null),
+                new WalletProvisioningRow(4, JANE_USER_ID, null),
+                new WalletProvisioningRow(5, null, String.format(WalletImportReader.INVALID_USER_FORMAT, "not-a-user"))), rows);
+    }
+
+    @Test
+    void testCsv_FirstLineIsAUser() {
+        List<WalletProvisioningRow> rows = read(WalletImportFormat.CSV, JOHN_USER_ID + "\n" + JANE_USER_ID);
+
+        assertEquals(List.of(
+                new WalletProvisioningRow(1, JOHN_USER_ID, null),
+                new WalletProvisioningRow(2, JANE_USER_ID, null)), rows);
+    }
+
+    @Test
+    void testNdjson_ReportsInvalidLines() {
+        List<WalletProvisioningRow> rows = read(WalletImportFormat.NDJSON, """
+                {"userUid":"%s"}
+                {"userUid":
+                {"userId":"%s"}
+                {"userUid":"%s","name":"Jane Smith"}
+                """.formatted(JOHN_USER_ID, JANE_USER_ID, JANE_USER_ID));
+
+        assertEquals(List.of(
+                new WalletProvisioningRow(1, JOHN_USER_ID, null),
+                new WalletProvisioningRow(2, null, WalletImportReader.INVALID_JSON),
+                new WalletProvisioningRow(3, null, String.format(WalletImportReader.INVALID_USER_FORMAT, "")),
+                new WalletProvisioningRow(4, JANE_USER_ID, null)), rows);
+    }
+
+    @Test
+    void testFormat_FromContentTypeAndFileName() {
+        assertEquals(WalletImportFormat.NDJSON, WalletImportFormat.of(MediaType.APPLICATION_NDJSON));
+        assertEquals(WalletImportFormat.CSV, WalletImportFormat.of(MediaType.parseMediaType(WalletImportFormat.TEXT_CSV_VALUE)));
+        assertEquals(WalletImportFormat.NDJSON, WalletImportFormat.of(Path.of("users.ndjson")));
+        assertEquals(WalletImportFormat.CSV, WalletImportFormat.of(Path.of("users.csv")));
+    }
+
+    private List<WalletProvisioningRow> read(WalletImportFormat format, String content) {
+        WalletImportReader reader = new WalletImportReader(new BufferedReader(new StringReader(content)), format, objectMapper);
+        List<WalletProvisioningRow> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        assertFalse(reader.hasNext());
+        return rows;
+    }
+}
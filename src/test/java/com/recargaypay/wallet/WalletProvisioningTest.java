@@ -0,0 +1,121 @@
+package com.recargaypay.wallet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.exception.InvalidRequestException;
+import com.recargaypay.wallet.model.dto.WalletProvisioningResult;
+import com.recargaypay.wallet.model.dto.WalletProvisioningSummary;
+import com.recargaypay.wallet.provisioning.WalletImportRunner;
+import com.recargaypay.wallet.service.WalletProvisioningService;
+import com.recargaypay.wallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.recargaypay.wallet.service.impl.WalletServiceImpl.USER_NOT_FOUND_FORMAT;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class WalletProvisioningTest {
+
+    private static final UUID JOHN_USER_ID = UUID.fromString("1a4f7b78-e774-4e98-97d2-734dd06b2c58");
+    private static final UUID JANE_USER_ID = UUID.fromString("9b1f4ab7-2de7-4174-b71a-ccf1b2d2f1b4");
+    private static final int BULK_WALLETS = 5_000;
+    private static final int MAX_REQUEST_SIZE = 100_000;
+
+    @Autowired
+    private WalletProvisioningService walletProvisioningService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletExistenceFilter walletExistenceFilter;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testProvision_ReportsEveryRowInOrder() {
+        UUID unknownUserId = UUID.randomUUID();
+        List<WalletProvisioningResult> results = new ArrayList<>();
+
+        WalletProvisioningSummary summary = walletProvisioningService.provision(
+                Arrays.asList(JOHN_USER_ID, unknownUserId, null, JANE_USER_ID), results::add);
+
+        assertEquals(4, summary.getRows());
+        assertEquals(2, summary.getCreated());
+        assertEquals(2, summary.getFailed());
+        assertEquals(List.of(1L, 2L, 3L, 4L), results.stream().map(WalletProvisioningResult::getRow).toList());
+        assertEquals(String.format(USER_NOT_FOUND_FORMAT, unknownUserId), results.get(1).getError());
+        assertNull(results.get(1).getWalletId());
+        assertNotNull(results.get(2).getError());
+
+        for (WalletProvisioningResult result : List.of(results.get(0), results.get(3))) {
+            assertNull(result.getError());
+            assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getBalance(result.getWalletId())));
+            assertTrue(walletExistenceFilter.mightExist(result.getWalletId()));
+            assertEquals(result.getUserUid(), jdbcTemplate.queryForObject("SELECT user_uid FROM WALLET WHERE id = :id",
+                    Map.of("id", result.getWalletId()), UUID.class));
+        }
+        // The wallets are usable right away
+        walletService.deposit(results.get(0).getWalletId(), BigDecimal.TEN);
+        walletService.transfer(results.get(0).getWalletId(), results.get(3).getWalletId(), BigDecimal.ONE);
+        assertEquals(0, BigDecimal.ONE.compareTo(walletService.getBalance(results.get(3).getWalletId())));
+    }
+
+    @Test
+    void testProvision_RejectsRequestOverMaximum() {
+        List<UUID> userUids = Collections.nCopies(MAX_REQUEST_SIZE + 1, JOHN_USER_ID);
+
+        assertThrows(InvalidRequestException.class, () -> walletProvisioningService.provision(userUids, result -> fail()));
+    }
+
+    @Test
+    void testProvision_CreatesOneDistinctWalletPerRow() {
+        List<UUID> walletIds = new ArrayList<>(BULK_WALLETS);
+        WalletProvisioningSummary summary = walletProvisioningService.provision(Collections.nCopies(BULK_WALLETS, JOHN_USER_ID),
+                result -> walletIds.add(result.getWalletId()));
+
+        assertEquals(BULK_WALLETS, summary.getCreated());
+        assertEquals(BULK_WALLETS, walletIds.stream().distinct().count());
+        assertEquals(BULK_WALLETS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WALLET WHERE id IN (:ids)",
+                Map.of("ids", walletIds), Integer.class));
+    }
+
+    @Test
+    void testImportFile_WritesResultPerLine(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("users.csv");
+        Files.writeString(file, "user_uid\n" + JOHN_USER_ID + "\nnot-a-user\n" + JANE_USER_ID + "\n");
+
+        WalletProvisioningSummary summary = new WalletImportRunner(walletProvisioningService, objectMapper, null, file.toString(), false).importFile();
+
+        assertEquals(3, summary.getRows());
+        assertEquals(2, summary.getCreated());
+        List<String> lines = Files.readAllLines(directory.resolve("users.csv" + WalletImportRunner.RESULTS_SUFFIX));
+        assertEquals(3, lines.size());
+        List<WalletProvisioningResult> results = new ArrayList<>();
+        for (String line : lines) {
+            results.add(objectMapper.readValue(line, WalletProvisioningResult.class));
+        }
+        assertEquals(List.of(2L, 3L, 4L), results.stream().map(WalletProvisioningResult::getRow).toList());
+        assertNotNull(results.get(0).getWalletId());
+        assertNotNull(results.get(1).getError());
+        assertEquals(JANE_USER_ID, results.get(2).getUserUid());
+    }
+}
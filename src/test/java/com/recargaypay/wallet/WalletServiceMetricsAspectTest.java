@@ -0,0 +1,62 @@
+package com.recargaypay.wallet;
+
+import com.recargaypay.wallet.exception.NoFundsException;
+import com.recargaypay.wallet.metrics.WalletServiceMetricsAspect;
+import com.recargaypay.wallet.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WalletServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private WalletService walletService;
+
+    @Mock
+    private WalletService target;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addInterface(WalletService.class);
+        proxyFactory.addAspect(new WalletServiceMetricsAspect(meterRegistry));
+        walletService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void testTimesSuccessfulOperation() {
+        UUID walletId = UUID.randomUUID();
+        when(target.getBalance(walletId)).thenReturn(BigDecimal.TEN);
+
+        assertEquals(BigDecimal.TEN, walletService.getBalance(walletId));
+
+        assertEquals(1, meterRegistry.get(WalletServiceMetricsAspect.OPERATION_TIMER)
+                .tags("operation", "getBalance", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testCountsException() {
+        UUID walletId = UUID.randomUUID();
+        when(target.withdraw(walletId, BigDecimal.TEN)).thenThrow(new NoFundsException("No funds"));
+
+        assertThrows(NoFundsException.class, () -> walletService.withdraw(walletId, BigDecimal.TEN));
+
+        assertEquals(1, meterRegistry.get(WalletServiceMetricsAspect.OPERATION_ERRORS)
+                .tags("operation", "withdraw", "exception", "NoFundsException").counter().count());
+        assertEquals(1, meterRegistry.get(WalletServiceMetricsAspect.OPERATION_TIMER)
+                .tags("operation", "withdraw", "outcome", "error").timer().count());
+    }
+}
@@ -1,28 +1,55 @@
 package com.recargaypay.wallet;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recargaypay.wallet.cache.ShardedWalletRegistry;
+import com.recargaypay.wallet.cache.WalletBalanceCache;
+import com.recargaypay.wallet.cache.WalletExistenceFilter;
+import com.recargaypay.wallet.datasource.ReplicaRoutingDataSource;
+import com.recargaypay.wallet.exception.InvalidRequestException;
 import com.recargaypay.wallet.exception.NoFundsException;
 import com.recargaypay.wallet.exception.UserNotFoundException;
 import com.recargaypay.wallet.exception.WalletNotFoundException;
 import com.recargaypay.wallet.model.dto.CreateWalletResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceResponse;
+import com.recargaypay.wallet.model.dto.WalletBalanceView;
+import com.recargaypay.wallet.model.dto.WalletBatchMode;
+import com.recargaypay.wallet.model.dto.WalletBatchMovement;
+import com.recargaypay.wallet.model.dto.WalletBatchResponse;
 import com.recargaypay.wallet.model.dto.WalletTransactionResponse;
+import com.recargaypay.wallet.model.entity.ConcurrencyMode;
+import com.recargaypay.wallet.model.entity.Transaction;
+import com.recargaypay.wallet.model.entity.TransactionType;
 import com.recargaypay.wallet.model.entity.User;
 import com.recargaypay.wallet.model.entity.Wallet;
+import com.recargaypay.wallet.model.entity.WalletShard;
+import com.recargaypay.wallet.model.money.Money;
 import com.recargaypay.wallet.repository.TransactionRepository;
 import com.recargaypay.wallet.repository.UserRepository;
 import com.recargaypay.wallet.repository.WalletRepository;
+import com.recargaypay.wallet.repository.WalletShardRepository;
+import com.recargaypay.wallet.service.BalanceCheckpointService;
+import com.recargaypay.wallet.service.OutboxService;
 import com.recargaypay.wallet.service.impl.WalletServiceImpl;
+import com.recargaypay.wallet.stream.BalancePublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -42,11 +69,33 @@ public class WalletServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Mock
+    private WalletShardRepository walletShardRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private BalancePublisher balancePublisher;
+
+    private WalletBalanceCache walletBalanceCache;
+
+    private ShardedWalletRegistry shardedWalletRegistry;
+
+    private WalletExistenceFilter walletExistenceFilter;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
-        walletService = new WalletServiceImpl(walletRepository, userRepository, transactionRepository);
+        walletBalanceCache = new WalletBalanceCache(Caffeine.newBuilder().recordStats().build());
+        shardedWalletRegistry = new ShardedWalletRegistry(walletRepository);
+        walletExistenceFilter = new WalletExistenceFilter(walletRepository, new SimpleMeterRegistry(), true, 1000, 0.01, 1000, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        walletService = new WalletServiceImpl(walletRepository, userRepository, transactionRepository, balanceCheckpointService, walletBalanceCache,
+                walletShardRepository, shardedWalletRegistry, walletExistenceFilter, outboxService, balancePublisher, ConcurrencyMode.OPTIMISTIC, 1000);
     }
 
     @Test
@@ -64,8 +113,9 @@ public class WalletServiceTest {
         user.setId(userId);
 
         Wallet wallet = new Wallet();
+        wallet.setId(UUID.randomUUID());
         wallet.setUser(user);
-        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setBalance(Money.ZERO);
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
@@ -79,9 +129,184 @@ public class WalletServiceTest {
     @Test
     void testGetBalance_WalletNotFound() {
         UUID walletId = UUID.randomUUID();
-        when(walletRepository.findById(walletId)).thenReturn(Optional.empty());
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.empty());
+
+        assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(walletId));
+    }
+
+    @Test
+    void testGetBalance_ServedFromCache() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.of(new WalletBalanceView(walletId, money(100), 1L, 0)));
+
+        assertEquals(decimal(100), walletService.getBalance(walletId));
+        assertEquals(decimal(100), walletService.getBalance(walletId));
+
+        // Only the balance columns are read, the wallet entity is never loaded
+        verify(walletRepository, times(1)).findBalanceById(walletId);
+        verify(walletRepository, never()).findById(walletId);
+        assertEquals(1, walletBalanceCache.stats().getHitCount());
+        assertEquals(1, walletBalanceCache.stats().getMissCount());
+    }
+
+    @Test
+    void testCreateWallet_UserIdWithoutLoadingUser() {
+        UUID userId = UUID.randomUUID();
+        User user = new User();
+        user.setId(userId);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(walletRepository.save(any(Wallet.class))).thenAnswer(invocation -> {
+            Wallet wallet = invocation.getArgument(0);
+            wallet.setId(UUID.randomUUID());
+            return wallet;
+        });
+
+        CreateWalletResponse response = walletService.createWallet(userId);
+
+        assertEquals(userId, response.getUserId());
+    }
+
+    @Test
+    void testGetBalance_FilterMissRejectedWithoutQuery() {
+        UUID knownWalletId = UUID.randomUUID();
+        UUID unknownWalletId = UUID.randomUUID();
+        when(walletRepository.findLatestCreatedAt()).thenReturn(LocalDateTime.now());
+        when(walletRepository.streamAllIds()).thenReturn(Stream.of(knownWalletId));
+        when(walletRepository.findBalanceById(knownWalletId)).thenReturn(Optional.of(new WalletBalanceView(knownWalletId, money(10), 1L, 0)));
+        walletExistenceFilter.refresh();
+
+        WalletNotFoundException exception = assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(unknownWalletId));
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(decimal(10), walletService.getBalance(knownWalletId));
+        verify(walletRepository, never()).existsById(any());
+        verify(walletRepository, never()).findBalanceById(unknownWalletId);
+    }
+
+    @Test
+    void testGetBalance_WalletCreatedElsewhereFoundAfterReload() {
+        UUID walletId = UUID.randomUUID();
+        LocalDateTime loadedAt = LocalDateTime.now();
+        when(walletRepository.findLatestCreatedAt()).thenReturn(loadedAt);
+        when(walletRepository.streamAllIds()).thenReturn(Stream.empty());
+        walletExistenceFilter.refresh();
+        // Created by another instance after the filter was loaded
+        when(walletRepository.findLatestCreatedAt()).thenReturn(loadedAt.plusSeconds(1));
+        when(walletRepository.streamIdsCreatedSince(loadedAt.minusSeconds(10))).thenReturn(Stream.of(walletId));
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.of(new WalletBalanceView(walletId, money(10), 1L, 0)));
+
+        assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(walletId));
+        walletExistenceFilter.refresh();
+
+        assertEquals(decimal(10), walletService.getBalance(walletId));
+        verify(walletRepository, times(1)).streamAllIds();
+    }
+
+    @Test
+    void testDeposit_FilterMissConfirmedByLookup() {
+        UUID walletId = UUID.randomUUID();
+        UUID unknownWalletId = UUID.randomUUID();
+        when(walletRepository.findLatestCreatedAt()).thenReturn(LocalDateTime.now());
+        when(walletRepository.streamAllIds()).thenReturn(Stream.empty());
+        walletExistenceFilter.refresh();
+        // Created by another instance since the last reload
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        wallet.setUser(user);
+        wallet.setBalance(money(100));
+        when(walletRepository.existsById(walletId)).thenReturn(true);
+        when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
+
+        walletService.deposit(walletId, BigDecimal.TEN);
+        walletService.deposit(walletId, BigDecimal.TEN);
+        assertThrows(WalletNotFoundException.class, () -> walletService.deposit(unknownWalletId, BigDecimal.TEN));
+        assertThrows(WalletNotFoundException.class, () -> walletService.deposit(unknownWalletId, BigDecimal.TEN));
+
+        assertEquals(money(120), wallet.getBalance());
+        verify(walletRepository, times(1)).existsById(walletId);
+        // The second deposit to the unknown wallet is answered by the negative cache
+        verify(walletRepository, times(1)).existsById(unknownWalletId);
+        verify(walletRepository, never()).findById(unknownWalletId);
+    }
+
+    @Test
+    void testGetBalance_MissingWalletNegativelyCached() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.empty());
 
         assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(walletId));
+        assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(walletId));
+
+        verify(walletRepository, times(1)).findBalanceById(walletId);
+    }
+
+    @Test
+    void testGetBalance_ReplicaMissNotNegativelyCached() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.empty());
+
+        // A lagging replica may not have the wallet yet, so its miss must not reject the next lookups
+        ReplicaRoutingDataSource.onReplica(() -> assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(walletId)));
+        ReplicaRoutingDataSource.onReplica(() -> assertThrows(WalletNotFoundException.class, () -> walletService.getBalance(walletId)));
+
+        verify(walletRepository, times(2)).findBalanceById(walletId);
+    }
+
+    @Test
+    void testCreateWallet_FoundOnceFilterLoaded() {
+        UUID userId = UUID.randomUUID();
+        User user = new User();
+        user.setId(userId);
+        when(walletRepository.streamAllIds()).thenReturn(Stream.empty());
+        walletExistenceFilter.refresh();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(walletRepository.save(any(Wallet.class))).thenAnswer(invocation -> {
+            Wallet wallet = invocation.getArgument(0);
+            wallet.setId(UUID.randomUUID());
+            return wallet;
+        });
+
+        UUID walletId = walletService.createWallet(userId).getWalletId();
+        walletBalanceCache.evict(walletId);
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.of(new WalletBalanceView(walletId, Money.ZERO, 0L, 0)));
+
+        assertEquals(decimal(0), walletService.getBalance(walletId));
+    }
+
+    @Test
+    void testStreamBalances_CachedFirstAndMissingReported() {
+        UUID cachedWalletId = UUID.randomUUID();
+        UUID storedWalletId = UUID.randomUUID();
+        UUID missingWalletId = UUID.randomUUID();
+        walletBalanceCache.put(cachedWalletId, money(50), 1);
+        when(walletRepository.findBalancesByIdIn(anyCollection()))
+                .thenReturn(List.of(new WalletBalanceView(storedWalletId, money(75), 2L, 0)));
+
+        List<WalletBalanceResponse> balances = new ArrayList<>();
+        walletService.streamBalances(List.of(missingWalletId, cachedWalletId, storedWalletId), balances::add);
+
+        assertEquals(List.of(missingWalletId, cachedWalletId, storedWalletId),
+                balances.stream().map(WalletBalanceResponse::getWalletId).toList());
+        assertNull(balances.get(0).getBalance());
+        assertNotNull(balances.get(0).getError());
+        assertEquals(decimal(50), balances.get(1).getBalance());
+        assertEquals(decimal(75), balances.get(2).getBalance());
+        // Only the wallets missing from the cache are queried, with a single query
+        verify(walletRepository, times(1)).findBalancesByIdIn(Set.of(missingWalletId, storedWalletId));
+        verify(walletRepository, never()).findById(any());
+        assertEquals(Optional.of(decimal(75)), walletBalanceCache.get(storedWalletId));
+    }
+
+    @Test
+    void testStreamBalances_TooManyWallets() {
+        List<UUID> walletIds = Collections.nCopies(1001, UUID.randomUUID());
+
+        assertThrows(InvalidRequestException.class, () -> walletService.streamBalances(walletIds, balance -> {
+        }));
+        verifyNoInteractions(walletRepository);
     }
 
     @Test
@@ -92,7 +317,7 @@ public class WalletServiceTest {
         User user = new User();
         user.setId(UUID.randomUUID());
         wallet.setUser(user);
-        wallet.setBalance(BigDecimal.valueOf(100));
+        wallet.setBalance(money(100));
 
         BigDecimal depositAmount = BigDecimal.valueOf(50);
         when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
@@ -101,8 +326,37 @@ public class WalletServiceTest {
         WalletTransactionResponse response = walletService.deposit(walletId, depositAmount);
 
         assertNotNull(response);
-        assertEquals(BigDecimal.valueOf(150), wallet.getBalance());
+        assertEquals(money(150), wallet.getBalance());
+        verify(walletRepository, times(1)).save(wallet);
+        verify(outboxService, times(1)).append(any(Transaction.class), eq(money(150)));
+        verify(balancePublisher, times(1)).publish(wallet, money(150));
+    }
+
+    @Test
+    void testDepositAll_SingleBalanceUpdate() {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        wallet.setUser(user);
+        wallet.setBalance(money(100));
+
+        when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
+
+        List<WalletTransactionResponse> responses = walletService.depositAll(walletId,
+                List.of(BigDecimal.valueOf(10), BigDecimal.valueOf(20), BigDecimal.valueOf(30)));
+
+        assertEquals(money(160), wallet.getBalance());
+        assertEquals(List.of(decimal(110), decimal(130), decimal(160)),
+                responses.stream().map(WalletTransactionResponse::getBalance).toList());
         verify(walletRepository, times(1)).save(wallet);
+        verify(transactionRepository, times(1)).saveAll(argThat((List<Transaction> transactions) -> transactions.size() == 3));
+        InOrder inOrder = inOrder(outboxService);
+        inOrder.verify(outboxService).append(any(), eq(money(110)));
+        inOrder.verify(outboxService).append(any(), eq(money(130)));
+        inOrder.verify(outboxService).append(any(), eq(money(160)));
     }
 
     @Test
@@ -110,13 +364,36 @@ public class WalletServiceTest {
         UUID walletId = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(walletId);
-        wallet.setBalance(BigDecimal.valueOf(50));
+        wallet.setBalance(money(50));
 
         BigDecimal withdrawAmount = BigDecimal.valueOf(100);
 
         when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
 
-        assertThrows(NoFundsException.class, () -> walletService.withdraw(walletId, withdrawAmount));
+        NoFundsException exception = assertThrows(NoFundsException.class, () -> walletService.withdraw(walletId, withdrawAmount));
+        assertEquals(String.format(WalletServiceImpl.NO_FUNDS_FORMAT, walletId), exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void testWithdraw_MoreDecimalsThanCurrency() {
+        UUID walletId = UUID.randomUUID();
+
+        assertThrows(InvalidRequestException.class, () -> walletService.withdraw(walletId, new BigDecimal("0.001")));
+        verify(walletRepository, never()).findById(walletId);
+    }
+
+    @Test
+    void testMovements_NonPositiveAmountRejected() {
+        UUID walletId = UUID.randomUUID();
+        UUID otherWalletId = UUID.randomUUID();
+
+        assertThrows(InvalidRequestException.class, () -> walletService.deposit(walletId, BigDecimal.ZERO));
+        assertThrows(InvalidRequestException.class, () -> walletService.withdraw(walletId, BigDecimal.valueOf(-10)));
+        // A negative transfer would move money from the destination to the source without checking its funds
+        assertThrows(InvalidRequestException.class, () -> walletService.transfer(walletId, otherWalletId, BigDecimal.valueOf(-10)));
+        assertThrows(InvalidRequestException.class, () -> walletService.depositAll(walletId, List.of(BigDecimal.TEN, BigDecimal.valueOf(-1))));
+        verifyNoInteractions(walletRepository, transactionRepository);
     }
 
     @Test
@@ -124,7 +401,7 @@ public class WalletServiceTest {
         UUID walletId = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(walletId);
-        wallet.setBalance(BigDecimal.valueOf(100));
+        wallet.setBalance(money(100));
         User user = new User();
         UUID userId = UUID.randomUUID();
         user.setId(userId);
@@ -138,7 +415,7 @@ public class WalletServiceTest {
         WalletTransactionResponse response = walletService.withdraw(walletId, withdrawAmount);
 
         assertNotNull(response);
-        assertEquals(BigDecimal.valueOf(50), wallet.getBalance());
+        assertEquals(money(50), wallet.getBalance());
         verify(walletRepository, times(1)).save(wallet);
     }
 
@@ -148,11 +425,11 @@ public class WalletServiceTest {
         UUID destinationWalletId = UUID.randomUUID();
         Wallet sourceWallet = new Wallet();
         sourceWallet.setId(sourceWalletId);
-        sourceWallet.setBalance(BigDecimal.valueOf(50));
+        sourceWallet.setBalance(money(50));
 
         Wallet destinationWallet = new Wallet();
         destinationWallet.setId(destinationWalletId);
-        destinationWallet.setBalance(BigDecimal.valueOf(100));
+        destinationWallet.setBalance(money(100));
 
         BigDecimal transferAmount = BigDecimal.valueOf(100);
 
@@ -168,11 +445,11 @@ public class WalletServiceTest {
         UUID destinationWalletId = UUID.randomUUID();
         Wallet sourceWallet = new Wallet();
         sourceWallet.setId(sourceWalletId);
-        sourceWallet.setBalance(BigDecimal.valueOf(100));
+        sourceWallet.setBalance(money(100));
 
         Wallet destinationWallet = new Wallet();
         destinationWallet.setId(destinationWalletId);
-        destinationWallet.setBalance(BigDecimal.valueOf(100));
+        destinationWallet.setBalance(money(100));
         UUID userId = UUID.randomUUID();
         User user = new User();
         user.setId(userId);
@@ -187,19 +464,221 @@ public class WalletServiceTest {
         WalletTransactionResponse response = walletService.transfer(sourceWalletId, destinationWalletId, transferAmount);
 
         assertNotNull(response);
-        assertEquals(BigDecimal.valueOf(150), destinationWallet.getBalance());
-        assertEquals(BigDecimal.valueOf(50), sourceWallet.getBalance());
+        assertEquals(money(150), destinationWallet.getBalance());
+        assertEquals(money(50), sourceWallet.getBalance());
         verify(walletRepository, times(2)).save(any(Wallet.class));
+        assertEquals(Optional.of(decimal(50)), walletBalanceCache.get(sourceWalletId));
+        assertEquals(Optional.of(decimal(150)), walletBalanceCache.get(destinationWalletId));
     }
 
     @Test
     void testGetHistoricalBalance_NoTransactions() {
         UUID walletId = UUID.randomUUID();
         LocalDateTime timestamp = LocalDateTime.now();
-        when(transactionRepository.findByWalletIdAndTimestampBefore(walletId, timestamp)).thenReturn(List.of());
+        when(balanceCheckpointService.getBalanceAt(walletId, timestamp)).thenReturn(BigDecimal.ZERO);
 
         BigDecimal historicalBalance = walletService.getHistoricalBalance(walletId, timestamp);
 
         assertEquals(BigDecimal.ZERO, historicalBalance);
+        verify(balanceCheckpointService, times(1)).getBalanceAt(walletId, timestamp);
+    }
+
+    @Test
+    void testTransfer_PessimisticLocksWalletsInIdOrder() {
+        walletService = new WalletServiceImpl(walletRepository, userRepository, transactionRepository, balanceCheckpointService, walletBalanceCache,
+                walletShardRepository, shardedWalletRegistry, walletExistenceFilter, outboxService, balancePublisher, ConcurrencyMode.PESSIMISTIC, 1000);
+        UUID lowerWalletId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID higherWalletId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        Wallet sourceWallet = new Wallet();
+        sourceWallet.setId(higherWalletId);
+        sourceWallet.setBalance(money(100));
+
+        Wallet destinationWallet = new Wallet();
+        destinationWallet.setId(lowerWalletId);
+        destinationWallet.setBalance(money(100));
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        destinationWallet.setUser(user);
+
+        when(walletRepository.findByIdForUpdate(higherWalletId)).thenReturn(Optional.of(sourceWallet));
+        when(walletRepository.findByIdForUpdate(lowerWalletId)).thenReturn(Optional.of(destinationWallet));
+
+        walletService.transfer(higherWalletId, lowerWalletId, BigDecimal.valueOf(50));
+
+        InOrder inOrder = inOrder(walletRepository);
+        inOrder.verify(walletRepository).findByIdForUpdate(lowerWalletId);
+        inOrder.verify(walletRepository).findByIdForUpdate(higherWalletId);
+        verify(walletRepository, never()).findById(any());
+    }
+
+    @Test
+    void testDeposit_ShardedWalletCreditsShard() {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(money(100));
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        wallet.setUser(user);
+        wallet.setShardCount(1);
+        WalletShard shard = shard(walletId, 0, BigDecimal.valueOf(10));
+        shardedWalletRegistry.register(walletId, 1);
+
+        when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+        when(walletShardRepository.findByWalletIdAndShardIndex(walletId, 0)).thenReturn(Optional.of(shard));
+        when(walletShardRepository.sumBalanceByWalletId(walletId)).thenReturn(BigDecimal.valueOf(60));
+
+        WalletTransactionResponse response = walletService.deposit(walletId, BigDecimal.valueOf(50));
+
+        assertEquals(money(60), shard.getBalance());
+        assertEquals(money(100), wallet.getBalance());
+        assertEquals(decimal(160), response.getBalance());
+        verify(walletRepository, never()).save(any(Wallet.class));
+    }
+
+    @Test
+    void testWithdraw_ShardedWalletDrainsShards() {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(money(20));
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        wallet.setUser(user);
+        WalletShard firstShard = shard(walletId, 0, BigDecimal.valueOf(30));
+        WalletShard secondShard = shard(walletId, 1, BigDecimal.valueOf(40));
+        wallet.setShardCount(2);
+
+        when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
+        when(walletShardRepository.findByWalletIdOrderByShardIndex(walletId)).thenReturn(List.of(firstShard, secondShard));
+
+        WalletTransactionResponse response = walletService.withdraw(walletId, BigDecimal.valueOf(60));
+
+        assertEquals(Money.ZERO, wallet.getBalance());
+        assertEquals(Money.ZERO, firstShard.getBalance());
+        assertEquals(money(30), secondShard.getBalance());
+        assertEquals(decimal(30), response.getBalance());
+    }
+
+    @Test
+    void testWithdraw_ShardedWalletInsufficientFunds() {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(money(20));
+        wallet.setShardCount(1);
+
+        when(walletRepository.findById(walletId)).thenReturn(Optional.of(wallet));
+        when(walletShardRepository.findByWalletIdOrderByShardIndex(walletId)).thenReturn(List.of(shard(walletId, 0, BigDecimal.valueOf(30))));
+
+        assertThrows(NoFundsException.class, () -> walletService.withdraw(walletId, BigDecimal.valueOf(60)));
+        assertEquals(money(20), wallet.getBalance());
+    }
+
+    @Test
+    void testGetBalance_WalletShardedByAnotherInstance() {
+        UUID walletId = UUID.randomUUID();
+        when(walletRepository.findBalanceById(walletId)).thenReturn(Optional.of(new WalletBalanceView(walletId, money(20), 1L, 2)));
+        when(walletShardRepository.sumBalanceByWalletId(walletId)).thenReturn(BigDecimal.valueOf(30));
+
+        assertEquals(decimal(50), walletService.getBalance(walletId));
+        assertTrue(walletBalanceCache.get(walletId).isEmpty());
+    }
+
+    @Test
+    void testDeposit_WalletShardedByAnotherInstanceCreditsWalletRow() {
+        Wallet wallet = wallet(BigDecimal.valueOf(20));
+        wallet.setShardCount(2);
+        when(walletRepository.findById(wallet.getId())).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(any(Wallet.class))).thenReturn(wallet);
+        when(walletShardRepository.sumBalanceByWalletId(wallet.getId())).thenReturn(BigDecimal.valueOf(30));
+
+        WalletTransactionResponse response = walletService.deposit(wallet.getId(), BigDecimal.valueOf(10));
+
+        assertEquals(money(30), wallet.getBalance());
+        assertEquals(decimal(60), response.getBalance());
+        assertTrue(walletBalanceCache.get(wallet.getId()).isEmpty());
+        verify(walletShardRepository, never()).findByWalletIdAndShardIndex(any(), anyInt());
+    }
+
+    @Test
+    void testBatch_AllOrNothingRollsBackOnFailure() {
+        Wallet wallet = wallet(BigDecimal.valueOf(100));
+        when(walletRepository.findAllById(any())).thenReturn(List.of(wallet));
+
+        WalletBatchResponse response = walletService.batch(List.of(
+                movement(TransactionType.DEPOSIT, null, wallet.getId(), BigDecimal.valueOf(50)),
+                movement(TransactionType.WITHDRAWAL, null, wallet.getId(), BigDecimal.valueOf(500))), WalletBatchMode.ALL_OR_NOTHING);
+
+        assertFalse(response.isCommitted());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertFalse(response.getResults().get(1).isSuccess());
+        assertEquals(money(100), wallet.getBalance());
+        verify(transactionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testBatch_BestEffortAppliesValidMovements() {
+        Wallet source = wallet(BigDecimal.valueOf(100));
+        Wallet destination = wallet(BigDecimal.valueOf(10));
+        UUID missingWalletId = UUID.randomUUID();
+        when(walletRepository.findAllById(any())).thenReturn(List.of(source, destination));
+
+        WalletBatchResponse response = walletService.batch(List.of(
+                movement(TransactionType.TRANSFER, source.getId(), destination.getId(), BigDecimal.valueOf(60)),
+                movement(TransactionType.TRANSFER, source.getId(), destination.getId(), BigDecimal.valueOf(60)),
+                movement(TransactionType.DEPOSIT, null, missingWalletId, BigDecimal.valueOf(5)),
+                movement(TransactionType.WITHDRAWAL, null, destination.getId(), BigDecimal.valueOf(70))), WalletBatchMode.BEST_EFFORT);
+
+        assertTrue(response.isCommitted());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertFalse(response.getResults().get(1).isSuccess());
+        assertFalse(response.getResults().get(2).isSuccess());
+        assertTrue(response.getResults().get(3).isSuccess());
+        assertEquals(money(40), source.getBalance());
+        assertEquals(Money.ZERO, destination.getBalance());
+        verify(walletRepository, times(1)).findAllById(any());
+        verify(transactionRepository, times(1)).saveAll(argThat((List<Transaction> transactions) -> transactions.size() == 3));
+        // Each event carries the balance right after its movement, not the final one
+        InOrder inOrder = inOrder(balancePublisher);
+        inOrder.verify(balancePublisher).publish(source, money(40));
+        inOrder.verify(balancePublisher).publish(destination, money(70));
+        inOrder.verify(balancePublisher).publish(destination, Money.ZERO);
+    }
+
+    private static Wallet wallet(BigDecimal balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(UUID.randomUUID());
+        wallet.setBalance(Money.of(balance));
+        return wallet;
+    }
+
+    private static WalletBatchMovement movement(TransactionType type, UUID fromWalletId, UUID toWalletId, BigDecimal amount) {
+        WalletBatchMovement movement = new WalletBatchMovement();
+        movement.setType(type);
+        movement.setFromWalletId(fromWalletId);
+        movement.setToWalletId(toWalletId);
+        movement.setAmount(amount);
+        return movement;
+    }
+
+    private static WalletShard shard(UUID walletId, int shardIndex, BigDecimal balance) {
+        WalletShard shard = new WalletShard();
+        shard.setWalletId(walletId);
+        shard.setShardIndex(shardIndex);
+        shard.setBalance(Money.of(balance));
+        return shard;
+    }
+
+    private static Money money(long value) {
+        return Money.of(BigDecimal.valueOf(value));
+    }
+
+    /**
+     * Amounts leave the service with the scale of the currency, 2 decimals.
+     */
+    private static BigDecimal decimal(long value) {
+        return BigDecimal.valueOf(value).setScale(Money.SCALE);
     }
 }